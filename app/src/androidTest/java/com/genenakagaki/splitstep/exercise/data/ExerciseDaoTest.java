@@ -5,9 +5,12 @@ import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
-import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise_Table;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise_Table;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseAlreadyExistsException;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseNotFoundException;
 import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseColumnsException;
@@ -16,19 +19,26 @@ import com.genenakagaki.splitstep.exercise.utils.DatabaseUtils;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
+import com.raizlabs.android.dbflow.structure.BaseModel;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import io.reactivex.annotations.NonNull;
+import io.reactivex.observers.TestObserver;
 import io.reactivex.functions.Predicate;
 
 import static com.raizlabs.android.dbflow.sql.language.SQLite.select;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by gene on 9/9/17.
@@ -45,12 +55,15 @@ public class ExerciseDaoTest {
         FlowManager.init(FlowConfig.builder(mContext)
                 .addDatabaseConfig(DatabaseConfig.inMemoryBuilder(ExerciseDatabase.class)
                         .databaseName("ExerciseDatabase")
+                        .modelNotifier(DirectModelNotifier.get())
                         .build())
                 .build());
     }
 
     @After
     public void tearDown() throws Exception {
+        ExerciseDao.getInstance().clearCache();
+        ReactionExerciseDao.getInstance().clearCache();
         FlowManager.destroy();
     }
 
@@ -101,31 +114,131 @@ public class ExerciseDaoTest {
                 .assertError(ExerciseAlreadyExistsException.class);
     }
 
+    @Test
+    public void testInsert_WithNameDifferingInCaseAndSpacing_ShouldEmitError() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        exerciseDao.insert("Lateral Shuffle", ExerciseType.REGULAR).test().assertComplete();
+
+        exerciseDao.insert(" lateral  shuffle ", ExerciseType.REGULAR)
+                .test()
+                .assertError(ExerciseAlreadyExistsException.class);
+        exerciseDao.insert("   ", ExerciseType.REGULAR)
+                .test()
+                .assertError(InvalidExerciseNameException.class);
+        assertEquals(false, exerciseDao.isNameAndTypeValid("LATERAL SHUFFLE", ExerciseType.REGULAR_VALUE));
+    }
+
+    @Test
+    public void testFindNames_ShouldEmitNamesOfType() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercises(new String[] {"a", "b"}, ExerciseType.REGULAR_VALUE);
+        DatabaseUtils.insertExercises(new String[] {"c"}, ExerciseType.REACTION_VALUE);
+
+        exerciseDao.findNames(ExerciseType.REGULAR).test().assertValue(Arrays.asList("a", "b"));
+    }
 
-    /* Get */
     @Test
-    public void testFindById_WithExistingExerciseId_ShouldEmitCorrectExercise() {
+    public void testInsert_WithExistingNameOfOtherType_ShouldComplete() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
 
         EXERCISE.insert();
 
-        exerciseDao.findById(EXERCISE.id)
+        exerciseDao.insert(EXERCISE.name, ExerciseType.REACTION)
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void testInsert_WithExistingReactionExercise_ShouldNotInsertReactionColumns() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        exerciseDao.insert(EXERCISE.name, ExerciseType.REACTION)
+                .test()
+                .assertComplete();
+        exerciseDao.insert(EXERCISE.name, ExerciseType.REACTION)
+                .test()
+                .assertError(ExerciseAlreadyExistsException.class);
+
+        List<ReactionExercise> reactionExercises = select()
+                .from(ReactionExercise.class)
+                .queryList();
+
+        assertEquals(1, reactionExercises.size());
+    }
+
+    @Test
+    public void testInsert_WithRegularExercise_ShouldInsertDefaultSettings() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "settings");
+
+        exerciseDao.insert(exercise)
                 .test()
-                .assertValue(new Predicate<Exercise>() {
+                .assertComplete();
+
+        RegularExercise regularExercise = select()
+                .from(RegularExercise.class)
+                .where(RegularExercise_Table.id.eq(exercise.id))
+                .querySingle();
+        assertEquals(3, regularExercise.sets);
+        assertEquals(60, regularExercise.restDuration);
+    }
+
+
+    /* Get */
+    @Test
+    public void testFindWithSettings_WithExistingExerciseId_ShouldEmitExerciseAndSettings() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        DatabaseUtils.insertExercise(EXERCISE);
+
+        exerciseDao.findWithSettings(EXERCISE.id)
+                .test()
+                .assertValue(new Predicate<ExerciseAggregate>() {
                     @Override
-                    public boolean test(@NonNull Exercise exercise) throws Exception {
+                    public boolean test(@NonNull ExerciseAggregate aggregate) throws Exception {
+                        Exercise exercise = aggregate.getExercise();
+                        ExerciseSettings settings = aggregate.getSettings();
                         return EXERCISE.type == exercise.type
                                 && EXERCISE.favorite == exercise.favorite
-                                && EXERCISE.name.equals(exercise.name);
+                                && EXERCISE.name.equals(exercise.name)
+                                && settings instanceof RegularExercise
+                                && settings.sets == 3
+                                && settings.restDuration == 60;
                     }
                 });
     }
 
     @Test
-    public void testFindById_WithNonExistingExerciseId_ShouldEmitError() {
+    public void testFindWithSettings_WithReactionExercise_ShouldEmitItsSettings() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise reaction = new Exercise(ExerciseType.REACTION_VALUE, "reaction");
+        exerciseDao.insert(reaction).test().assertComplete();
+        ReactionExercise reactionExercise = select().from(ReactionExercise.class).querySingle();
+        reactionExercise.reps = 12;
+        reactionExercise.update();
+
+        ExerciseAggregate found = exerciseDao.findWithSettings(reaction.id).blockingGet();
+        assertTrue(found instanceof ReactionExerciseAggregate);
+        assertEquals(12, found.getSettings().reps);
+    }
 
-        exerciseDao.findById(0)
+    @Test
+    public void testFindWithSettings_WithoutSettings_ShouldEmitError() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        EXERCISE.insert();
+
+        exerciseDao.findWithSettings(EXERCISE.id)
+                .test()
+                .assertError(ExerciseNotFoundException.class);
+    }
+
+    @Test
+    public void testFindWithSettings_WithNonExistingExerciseId_ShouldEmitError() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        exerciseDao.findWithSettings(0)
                 .test()
                 .assertError(ExerciseNotFoundException.class);
     }
@@ -148,10 +261,11 @@ public class ExerciseDaoTest {
     public void testFindByType_WithRegularExercises_ShouldEmitExercises() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
 
+        // names are unique per type
         String[] exerciseNames = new String[] {
                 "exerciseName1",
-                "exerciseName1",
-                "exerciseName1"
+                "exerciseName2",
+                "exerciseName3"
         };
         DatabaseUtils.insertExercises(exerciseNames, ExerciseType.REGULAR_VALUE);
 
@@ -169,10 +283,11 @@ public class ExerciseDaoTest {
     public void testFindByType_WithReactionExercises_ShouldEmitReactionExercises() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
 
+        // names are unique per type
         String[] exerciseNames = new String[] {
                 "exerciseName1",
-                "exerciseName1",
-                "exerciseName1"
+                "exerciseName2",
+                "exerciseName3"
         };
         DatabaseUtils.insertExercises(exerciseNames, ExerciseType.REACTION_VALUE);
 
@@ -187,110 +302,349 @@ public class ExerciseDaoTest {
     }
 
 
-    /* Update */
+    /* Delete */
     @Test
-    public void testIsColumnsValid_WithZeroSets_ShouldReturnFalse() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.sets = 0;
+    public void testDelete_WithRegularExercise_ShouldBeDeleted() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        EXERCISE.insert();
+
+        exerciseDao.delete(EXERCISE.id)
+                .test()
+                .assertComplete();
+
+        List<Exercise> exercises = select()
+                .from(Exercise.class)
+                .queryList();
+
+        assertEquals(0, exercises.size());
+    }
+
+    @Test
+    public void testDelete_WithReactionExercise_ShouldBeDeleted() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+        EXERCISE.insert();
+        ReactionExercise reactionExercise = new ReactionExercise(EXERCISE.id, 1, 1);
+        reactionExercise.insert();
+
+        exerciseDao.delete(EXERCISE.id)
+                .test()
+                .assertComplete();
+
+        List<Exercise> exercises = select()
+                .from(Exercise.class)
+                .queryList();
+
+        List<ReactionExercise> reactionExercises = select()
+                .from(ReactionExercise.class)
+                .queryList();
 
-        assertEquals(false, ExerciseDao.getInstance().isColumnsValid(exercise));
+        assertEquals(0, exercises.size());
+        assertEquals(0, reactionExercises.size());
     }
 
     @Test
-    public void testIsColumnsValid_WithZeroRestDuration_ShouldReturnFalse() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.restDuration = 0;
+    public void testDelete_WithManyIds_ShouldDeleteThemAndTheirReactionExercises() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercises(new String[]{"a", "b", "c"}, ExerciseType.REACTION_VALUE);
+        List<Exercise> inserted = select().from(Exercise.class).queryList();
+        for (Exercise exercise: inserted) {
+            new ReactionExercise(exercise.id).insert();
+        }
+
+        exerciseDao.delete(Arrays.asList(inserted.get(0).id, inserted.get(2).id))
+                .test()
+                .assertComplete();
+
+        List<Exercise> exercises = select().from(Exercise.class).queryList();
+        List<ReactionExercise> reactionExercises = select().from(ReactionExercise.class).queryList();
 
-        assertEquals(false, ExerciseDao.getInstance().isColumnsValid(exercise));
+        assertEquals(1, exercises.size());
+        assertEquals(inserted.get(1).id, exercises.get(0).id);
+        assertEquals(1, reactionExercises.size());
+        assertEquals(inserted.get(1).id, reactionExercises.get(0).id);
     }
 
     @Test
-    public void testIsColumnsValid_WithRepsSubTypeWithZeroReps_ShouldReturnFalse() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.subType = ExerciseSubType.REPS_VALUE;
-        exercise.reps = 0;
+    public void testDelete_WithExerciseModel_ShouldCascadeToReactionExercise() {
+        Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "cascade");
+        exercise.insert();
+        new ReactionExercise(exercise.id).insert();
+
+        exercise.delete();
+
+        assertEquals(0, select().from(ReactionExercise.class).queryList().size());
+    }
 
-        assertEquals(false, ExerciseDao.getInstance().isColumnsValid(exercise));
+    @Test
+    public void testDelete_WithManyTypes_ShouldEmitEachRowToItsType() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise regular = new Exercise(ExerciseType.REGULAR_VALUE, "regular");
+        regular.insert();
+        Exercise reaction = new Exercise(ExerciseType.REACTION_VALUE, "reaction");
+        reaction.insert();
+
+        TestObserver<ExerciseChange> regularObserver = exerciseDao.getChanges(ExerciseType.REGULAR).test();
+        TestObserver<ExerciseChange> reactionObserver = exerciseDao.getChanges(ExerciseType.REACTION).test();
+
+        exerciseDao.delete(Arrays.asList(regular.id, reaction.id)).test().assertComplete();
+
+        regularObserver.assertValueCount(1);
+        assertEquals(BaseModel.Action.DELETE, regularObserver.values().get(0).getAction());
+        assertEquals(Collections.singletonList(regular.id), regularObserver.values().get(0).getIds());
+        reactionObserver.assertValueCount(1);
+        assertEquals(Collections.singletonList(reaction.id), reactionObserver.values().get(0).getIds());
+        regularObserver.dispose();
+        reactionObserver.dispose();
     }
 
+
+    /* Changes */
     @Test
-    public void testIsColumnsValid_WithTimedSetSubTypeWithZeroSetDuration_ShouldReturnFalse() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.subType = ExerciseSubType.TIMED_SETS_VALUE;
-        exercise.setDuration = 0;
+    public void testGetChanges_WithInsertUpdateAndDelete_ShouldEmitRowIds() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        TestObserver<ExerciseChange> observer = exerciseDao.getChanges(ExerciseType.REGULAR).test();
 
-        assertEquals(false, ExerciseDao.getInstance().isColumnsValid(exercise));
+        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "changed");
+        exercise.insert();
+        long exerciseId = exercise.id;
+        exercise.favorite = true;
+        exercise.update();
+        exerciseDao.delete(exerciseId).test().assertComplete();
+
+        observer.assertValueCount(3);
+        assertEquals(BaseModel.Action.INSERT, observer.values().get(0).getAction());
+        assertEquals(BaseModel.Action.UPDATE, observer.values().get(1).getAction());
+        assertEquals(BaseModel.Action.DELETE, observer.values().get(2).getAction());
+        for (ExerciseChange change: observer.values()) {
+            assertEquals(1, change.getIds().size());
+            assertEquals(exerciseId, (long) change.getIds().get(0));
+        }
+        observer.dispose();
     }
 
     @Test
-    public void testIsColumnsValid_WithValidColumns_ShouldReturnTrue() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
+    public void testGetChanges_WithOtherType_ShouldNotEmit() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        TestObserver<ExerciseChange> observer = exerciseDao.getChanges(ExerciseType.REGULAR).test();
 
-        assertEquals(true, ExerciseDao.getInstance().isColumnsValid(exercise));
+        new Exercise(ExerciseType.REACTION_VALUE, "reaction").insert();
+
+        observer.assertNoValues();
+        observer.dispose();
     }
 
     @Test
-    public void testUpdate_WithInvalidColumns_ShouldEmitError() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.insert();
-        exercise.sets = 0;
+    public void testFindByIds_WithDeletedId_ShouldLeaveItOut() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercises(new String[] {"a", "b"}, ExerciseType.REGULAR_VALUE);
+        List<Exercise> exercises = select().from(Exercise.class).queryList();
 
-        ExerciseDao.getInstance().update(exercise)
+        exerciseDao.findByIds(ExerciseType.REGULAR, Arrays.asList(exercises.get(0).id, 1000L))
                 .test()
-                .assertError(InvalidExerciseColumnsException.class);
+                .assertValue(new Predicate<List<Exercise>>() {
+                    @Override
+                    public boolean test(@NonNull List<Exercise> found) throws Exception {
+                        return found.size() == 1 && found.get(0).name.equals("a");
+                    }
+                });
     }
 
     @Test
-    public void testUpdate_WithValidColumns_ShouldComplete() {
-        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "exercise");
-        exercise.insert();
+    public void testFindPage_AfterId_ShouldReturnNextExercisesOfType() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercises(new String[] {"a", "b", "c", "d"}, ExerciseType.REGULAR_VALUE);
+        DatabaseUtils.insertExercises(new String[] {"reaction"}, ExerciseType.REACTION_VALUE);
+
+        List<Exercise> firstPage = exerciseDao.findPage(ExerciseType.REGULAR, ExerciseDao.FIRST_PAGE, 2)
+                .blockingGet();
+        assertEquals(2, firstPage.size());
+        assertEquals("a", firstPage.get(0).name);
+        assertEquals("b", firstPage.get(1).name);
+
+        List<Exercise> secondPage = exerciseDao.findPage(ExerciseType.REGULAR, firstPage.get(1).id, 2)
+                .blockingGet();
+        assertEquals(2, secondPage.size());
+        assertEquals("c", secondPage.get(0).name);
+        assertEquals("d", secondPage.get(1).name);
+
+        List<Exercise> lastPage = exerciseDao.findPage(ExerciseType.REGULAR, secondPage.get(1).id, 2)
+                .blockingGet();
+        assertEquals(0, lastPage.size());
+    }
 
-        ExerciseDao.getInstance().update(exercise)
+    @Test
+    public void testSearch_WithNotesAndOtherType_ShouldFindNameMatchesFirst() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise withNotes = new Exercise(ExerciseType.REGULAR_VALUE, "Box drill");
+        exerciseDao.insert(withNotes).test().assertComplete();
+        exerciseDao.update(new ExerciseColumnUpdate(withNotes).notes("ends with a ladder run"))
                 .test()
                 .assertComplete();
+        exerciseDao.insert("Ladder run", ExerciseType.REGULAR).test().assertComplete();
+        exerciseDao.insert("Ladder run", ExerciseType.REACTION).test().assertComplete();
+
+        List<Exercise> found = exerciseDao.search(ExerciseType.REGULAR, "ladd ru", 10).blockingGet();
+        assertEquals(2, found.size());
+        assertEquals("Ladder run", found.get(0).name);
+        assertEquals(ExerciseType.REGULAR_VALUE, found.get(0).type);
+        assertEquals("Box drill", found.get(1).name);
+
+        exerciseDao.search(ExerciseType.REGULAR, " * ", 10).test().assertValue(Collections.<Exercise>emptyList());
     }
 
+    /* Cache */
+    @Test
+    public void testFindWithSettings_Twice_ShouldHitCache() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        int hitCount = exerciseDao.getCacheHitCount();
+        int missCount = exerciseDao.getCacheMissCount();
+
+        ExerciseAggregate first = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
+        ExerciseAggregate second = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
+
+        assertEquals(missCount + 1, exerciseDao.getCacheMissCount());
+        assertEquals(hitCount + 1, exerciseDao.getCacheHitCount());
+        assertNotSame(first.getExercise(), second.getExercise());
+        assertNotSame(first.getSettings(), second.getSettings());
+        assertEquals(first.getExercise().name, second.getExercise().name);
+        assertEquals(first.getSettings().sets, second.getSettings().sets);
+    }
 
-    /* Delete */
     @Test
-    public void testDelete_WithRegularExercise_ShouldBeDeleted() {
+    public void testFindWithSettings_AfterFoundExerciseChanged_ShouldReturnStoredExercise() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
 
-        EXERCISE.insert();
+        ExerciseAggregate found = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
+        found.getExercise().name = "changed";
+        found.getSettings().sets = 0;
+
+        ExerciseAggregate foundAgain = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
+        assertEquals("test", foundAgain.getExercise().name);
+        assertEquals(3, foundAgain.getSettings().sets);
+    }
+
+    @Test
+    public void testFindWithSettings_AfterUpdate_ShouldReturnUpdatedSettings() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        ExerciseAggregate found = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
 
-        exerciseDao.delete(EXERCISE.id, ExerciseType.REGULAR)
+        exerciseDao.update(new ExerciseColumnUpdate(found.getExercise(), found.getSettings()).sets(7))
                 .test()
                 .assertComplete();
 
-        List<Exercise> exercises = select()
-                .from(Exercise.class)
-                .queryList();
+        assertEquals(7, found.getSettings().sets);
+        assertEquals(7, exerciseDao.findWithSettings(EXERCISE.id).blockingGet().getSettings().sets);
+    }
 
-        assertEquals(0, exercises.size());
+    @Test
+    public void testPutCached_AfterUpdateSinceRead_ShouldNotCacheStaleExercise() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        ExerciseAggregate found = exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
+        exerciseDao.clearCache();
+
+        // a read on a miss, with an update committing before its put
+        long generation = exerciseDao.getCacheGeneration();
+        Exercise stale = found.getExercise().copy();
+        exerciseDao.update(new ExerciseColumnUpdate(found.getExercise()).favorite(true))
+                .test()
+                .assertComplete();
+        exerciseDao.putCached(stale, generation);
+
+        assertEquals(true, exerciseDao.findWithSettings(EXERCISE.id).blockingGet().getExercise().favorite);
     }
 
     @Test
-    public void testDelete_WithReactionExercise_ShouldBeDeleted() {
+    public void testFindWithSettings_AfterUpdateOutsideDao_ShouldReadDatabase() {
         ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        exerciseDao.findWithSettings(EXERCISE.id).blockingGet();
 
-        EXERCISE.insert();
-        ReactionExercise reactionExercise = new ReactionExercise(EXERCISE.id, 1, 1);
-        reactionExercise.insert();
+        RegularExercise updated = findRegularExercise(EXERCISE.id);
+        updated.sets = 9;
+        updated.update();
+
+        assertEquals(9, exerciseDao.findWithSettings(EXERCISE.id).blockingGet().getSettings().sets);
+    }
 
-        exerciseDao.delete(EXERCISE.id, ExerciseType.REACTION)
+    @Test
+    public void testFindWithSettings_AfterDelete_ShouldNotBeFound() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        long exerciseId = EXERCISE.id;
+        exerciseDao.findWithSettings(exerciseId).blockingGet();
+
+        exerciseDao.delete(exerciseId).test().assertComplete();
+
+        exerciseDao.findWithSettings(exerciseId)
+                .test()
+                .assertError(ExerciseNotFoundException.class);
+    }
+
+
+    /* Column updates */
+    @Test
+    public void testUpdateColumns_WithStaleExercise_ShouldOnlyWriteSetColumns() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        DatabaseUtils.insertExercise(EXERCISE);
+        Exercise stale = exerciseDao.findPage(ExerciseType.REGULAR, ExerciseDao.FIRST_PAGE, 1)
+                .blockingGet().get(0);
+
+        RegularExercise current = findRegularExercise(EXERCISE.id);
+        current.notes = "notes";
+        current.update();
+
+        exerciseDao.update(new ExerciseColumnUpdate(stale).favorite(true).restDuration(45))
                 .test()
                 .assertComplete();
 
-        List<Exercise> exercises = select()
-                .from(Exercise.class)
-                .queryList();
+        Exercise updated = select().from(Exercise.class).where(Exercise_Table.id.eq(EXERCISE.id)).querySingle();
+        assertEquals(true, updated.favorite);
+        RegularExercise updatedSettings = findRegularExercise(EXERCISE.id);
+        assertEquals(45, updatedSettings.restDuration);
+        assertEquals("notes", updatedSettings.notes);
+    }
 
-        List<ReactionExercise> reactionExercises = select()
-                .from(ReactionExercise.class)
-                .queryList();
+    @Test
+    public void testUpdateColumns_WithInvalidValue_ShouldNotWriteAnyColumn() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "invalid");
+        ExerciseSettings settings = DatabaseUtils.insertExercise(exercise);
 
-        assertEquals(0, exercises.size());
-        assertEquals(0, reactionExercises.size());
+        exerciseDao.update(new ExerciseColumnUpdate(exercise, settings).favorite(true).sets(0))
+                .test()
+                .assertError(InvalidExerciseColumnsException.class);
+
+        Exercise updated = select().from(Exercise.class).where(Exercise_Table.id.eq(exercise.id)).querySingle();
+        assertEquals(false, updated.favorite);
+        assertEquals(3, findRegularExercise(exercise.id).sets);
+        // nor set on the models
+        assertEquals(false, exercise.favorite);
+        assertEquals(3, settings.sets);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testUpdateColumns_ShouldNotifyRowChange() {
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "notified");
+        exercise.insert();
+        TestObserver<ExerciseChange> observer = exerciseDao.getChanges(ExerciseType.REGULAR).test();
+
+        exerciseDao.update(new ExerciseColumnUpdate(exercise).favorite(true)).test().assertComplete();
+
+        assertEquals(true, exercise.favorite);
+        observer.assertValueCount(1);
+        assertEquals(false, observer.values().get(0).isTableChange());
+        assertEquals(exercise.id, (long) observer.values().get(0).getIds().get(0));
+        observer.dispose();
+    }
+
+    private static RegularExercise findRegularExercise(long exerciseId) {
+        return select().from(RegularExercise.class).where(RegularExercise_Table.id.eq(exerciseId)).querySingle();
+    }
+}
@@ -0,0 +1,156 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise_Table;
+import com.raizlabs.android.dbflow.config.DatabaseConfig;
+import com.raizlabs.android.dbflow.config.FlowConfig;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.schedulers.TestScheduler;
+
+import static com.raizlabs.android.dbflow.sql.language.SQLite.select;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class ExerciseWriteBehindTest {
+
+    private TestScheduler mTestScheduler;
+    private ExerciseWriteBehind mWriteBehind;
+    private Exercise mExercise;
+    private ReactionExercise mReactionExercise;
+    private int mUpdateCount;
+
+    private final DirectModelNotifier.ModelChangedListener<Exercise> mUpdateCounter =
+            new DirectModelNotifier.ModelChangedListener<Exercise>() {
+        @Override
+        public void onModelChanged(Exercise model, BaseModel.Action action) {
+            if (action == BaseModel.Action.UPDATE) {
+                mUpdateCount++;
+            }
+        }
+
+        @Override
+        public void onTableChanged(Class<?> tableChanged, BaseModel.Action action) {
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        Context mContext = InstrumentationRegistry.getTargetContext();
+
+        FlowManager.init(FlowConfig.builder(mContext)
+                .addDatabaseConfig(DatabaseConfig.inMemoryBuilder(ExerciseDatabase.class)
+                        .databaseName("ExerciseDatabase")
+                        .modelNotifier(DirectModelNotifier.get())
+                        .build())
+                .build());
+
+        mTestScheduler = new TestScheduler();
+        mWriteBehind = new ExerciseWriteBehind(mTestScheduler);
+
+        mExercise = new Exercise(ExerciseType.REACTION_VALUE, "test");
+        mExercise.insert();
+        mReactionExercise = new ReactionExercise(mExercise.id);
+        mReactionExercise.insert();
+
+        DirectModelNotifier.get().registerForModelChanges(Exercise.class, mUpdateCounter);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DirectModelNotifier.get().unregisterForModelChanges(Exercise.class, mUpdateCounter);
+        ExerciseDao.getInstance().clearCache();
+        ReactionExerciseDao.getInstance().clearCache();
+        FlowManager.destroy();
+    }
+
+    @Test
+    public void testUpdate_ManyTimesInARow_ShouldWriteLatestValuesOnce() {
+        for (int reps = 11; reps <= 40; reps++) {
+            mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).reps(reps));
+            mTestScheduler.advanceTimeBy(100, TimeUnit.MILLISECONDS);
+        }
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).sets(5));
+
+        assertEquals(0, mUpdateCount);
+        assertEquals(10, findReactionExercise().reps);
+        assertEquals(10, mReactionExercise.reps);
+
+        mTestScheduler.advanceTimeBy(ExerciseWriteBehind.QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, mUpdateCount);
+        assertEquals(40, findReactionExercise().reps);
+        assertEquals(5, findReactionExercise().sets);
+        // set on the model once written
+        assertEquals(40, mReactionExercise.reps);
+        assertEquals(5, mReactionExercise.sets);
+    }
+
+    @Test
+    public void testFlush_BeforeQuietPeriod_ShouldWriteExerciseAndReactionExercise() {
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).notes("notes"));
+        mWriteBehind.update(new ReactionExerciseColumnUpdate(mReactionExercise).cones(4));
+
+        mWriteBehind.flush().subscribe();
+        mTestScheduler.triggerActions();
+
+        assertEquals("notes", findReactionExercise().notes);
+        assertEquals(4, findReactionExercise().cones);
+        // both set on the one settings row
+        assertEquals("notes", mReactionExercise.notes);
+        assertEquals(4, mReactionExercise.cones);
+
+        // nothing left for the timer to write
+        mTestScheduler.advanceTimeBy(ExerciseWriteBehind.QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        assertEquals(1, mUpdateCount);
+    }
+
+    @Test
+    public void testUpdate_WithInvalidColumns_ShouldNotWrite() {
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).sets(0));
+
+        mTestScheduler.advanceTimeBy(ExerciseWriteBehind.QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(0, mUpdateCount);
+        assertEquals(3, findReactionExercise().sets);
+        assertEquals(3, mReactionExercise.sets);
+    }
+
+    @Test
+    public void testUpdate_WithInvalidUpdateBetweenValidOnes_ShouldWriteOnlyValidOnes() {
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).sets(5));
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).reps(0));
+        mWriteBehind.update(new ExerciseColumnUpdate(mExercise, mReactionExercise).restDuration(45));
+
+        mTestScheduler.advanceTimeBy(ExerciseWriteBehind.QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, mUpdateCount);
+        ReactionExercise written = findReactionExercise();
+        assertEquals(5, written.sets);
+        assertEquals(10, written.reps);
+        assertEquals(45, written.restDuration);
+        assertEquals(5, mReactionExercise.sets);
+        assertEquals(10, mReactionExercise.reps);
+    }
+
+    private ReactionExercise findReactionExercise() {
+        return select().from(ReactionExercise.class)
+                .where(ReactionExercise_Table.id.eq(mExercise.id))
+                .querySingle();
+    }
+}
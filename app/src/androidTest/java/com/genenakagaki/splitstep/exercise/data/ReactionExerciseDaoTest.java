@@ -4,8 +4,12 @@ import android.content.Context;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseNotFoundException;
+import com.genenakagaki.splitstep.exercise.utils.DatabaseUtils;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
@@ -19,6 +23,7 @@ import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Predicate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 
 /**
  * Created by gene on 9/13/17.
@@ -42,11 +47,14 @@ public class ReactionExerciseDaoTest {
 
     @After
     public void tearDown() throws Exception {
+        ExerciseDao.getInstance().clearCache();
+        ReactionExerciseDao.getInstance().clearCache();
         FlowManager.destroy();
     }
 
     @Test
     public void testFindById_WithExistingExerciseId_ShouldEmitCorrectExercise() {
+        new Exercise(ExerciseType.REACTION_VALUE, "test").insert();
         REACTION_EXERCISE.insert();
 
         ReactionExerciseDao.getInstance().findById(REACTION_EXERCISE.id)
@@ -63,30 +71,82 @@ public class ReactionExerciseDaoTest {
 
     @Test
     public void testFindById_WithNonExistingExerciseId_ShouldEmitError() {
-        ExerciseDao exerciseDao = ExerciseDao.getInstance();
-
-        exerciseDao.findById(0)
+        ReactionExerciseDao.getInstance().findById(0)
                 .test()
                 .assertError(ExerciseNotFoundException.class);
     }
 
     @Test
-    public void testIsColumnsValid_WithInvalidColumns_ShouldReturnFalse() {
-        ReactionExercise exercise = new ReactionExercise(1);
-        exercise.cones = 1;
+    public void testFindWithExercise_WithExistingExerciseId_ShouldEmitBothRows() {
+        final Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "test");
+        exercise.insert();
+        new ReactionExercise(exercise.id, 5, 3).insert();
 
-        assertEquals(false, ReactionExerciseDao.getInstance().isColumnsValid(exercise));
+        ReactionExerciseDao.getInstance().findWithExercise(exercise.id)
+                .test()
+                .assertValue(new Predicate<ReactionExerciseAggregate>() {
+                    @Override
+                    public boolean test(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                        return aggregate.getExercise().id == exercise.id
+                                && "test".equals(aggregate.getExercise().name)
+                                && aggregate.getReactionExercise().id == exercise.id
+                                && aggregate.getReactionExercise().cones == 5
+                                && aggregate.getReactionExercise().repDuration == 3;
+                    }
+                });
     }
 
     @Test
-    public void testIsColumnsValid_WithValidColumns_ShouldReturnTrue() {
-        assertEquals(true, ReactionExerciseDao.getInstance().isColumnsValid(REACTION_EXERCISE));
+    public void testFindWithExercise_ShouldEmitSettingsOfReactionExercise() {
+        Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "test");
+        ExerciseSettings settings = DatabaseUtils.insertExercise(exercise);
+        settings.sets = 4;
+        settings.notes = "notes";
+        settings.update();
+
+        ReactionExerciseDao.getInstance().findWithExercise(exercise.id)
+                .test()
+                .assertValue(new Predicate<ReactionExerciseAggregate>() {
+                    @Override
+                    public boolean test(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                        return aggregate.getSettings() == aggregate.getReactionExercise()
+                                && aggregate.getReactionExercise().sets == 4
+                                && "notes".equals(aggregate.getReactionExercise().notes);
+                    }
+                });
     }
 
     @Test
-    public void testUpdate_WithInvalidColumns_ShouldEmitError() {
-        ReactionExerciseDao.getInstance().update(REACTION_EXERCISE)
+    public void testFindWithExercise_WithoutReactionExercise_ShouldEmitError() {
+        Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "test");
+        exercise.insert();
+
+        ReactionExerciseDao.getInstance().findWithExercise(exercise.id)
                 .test()
-                .assertComplete();
+                .assertError(ExerciseNotFoundException.class);
+    }
+
+    @Test
+    public void testFindWithExercise_FoundBefore_ShouldEmitCachedRows() {
+        Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "test");
+        exercise.insert();
+        new ReactionExercise(exercise.id).insert();
+
+        ReactionExerciseDao reactionExerciseDao = ReactionExerciseDao.getInstance();
+        ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        ReactionExerciseAggregate found = reactionExerciseDao.findWithExercise(exercise.id).blockingGet();
+        int hitCount = reactionExerciseDao.getCacheHitCount();
+        int exerciseHitCount = exerciseDao.getCacheHitCount();
+
+        // a change to the rows found isn't seen by the next finder
+        found.getReactionExercise().cones = 8;
+        ReactionExerciseAggregate foundAgain = reactionExerciseDao.findWithExercise(exercise.id).blockingGet();
+
+        assertEquals(hitCount + 1, reactionExerciseDao.getCacheHitCount());
+        assertNotSame(found.getReactionExercise(), foundAgain.getReactionExercise());
+        assertEquals(2, foundAgain.getReactionExercise().cones);
+        // the rows found together are also found alone
+        assertEquals("test", exerciseDao.findWithSettings(exercise.id).blockingGet().getExercise().name);
+        assertEquals(exerciseHitCount + 2, exerciseDao.getCacheHitCount());
     }
-}
\ No newline at end of file
+}
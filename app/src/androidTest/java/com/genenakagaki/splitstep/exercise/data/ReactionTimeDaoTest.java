@@ -0,0 +1,76 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime;
+import com.raizlabs.android.dbflow.config.DatabaseConfig;
+import com.raizlabs.android.dbflow.config.FlowConfig;
+import com.raizlabs.android.dbflow.config.FlowManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Predicate;
+
+@RunWith(AndroidJUnit4.class)
+public class ReactionTimeDaoTest {
+
+    private static final long EXERCISE_ID = 1;
+    private static final long SESSION_START = 100;
+
+    @Before
+    public void setUp() throws Exception {
+        Context mContext = InstrumentationRegistry.getTargetContext();
+
+        FlowManager.init(FlowConfig.builder(mContext)
+                .addDatabaseConfig(DatabaseConfig.inMemoryBuilder(ExerciseDatabase.class)
+                        .databaseName("ExerciseDatabase")
+                        .build())
+                .build());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FlowManager.destroy();
+    }
+
+    @Test
+    public void testInsertAll_WithReactionTimes_ShouldStoreAllInOrder() {
+        List<ReactionTime> reactionTimes = Arrays.asList(
+                new ReactionTime(EXERCISE_ID, SESSION_START, 0, 1, 1000, 1500),
+                new ReactionTime(EXERCISE_ID, SESSION_START, 0, 2, 2000, ReactionTime.NO_RESPONSE),
+                new ReactionTime(EXERCISE_ID, SESSION_START, 1, 1, 3000, 3400));
+
+        ReactionTimeDao.getInstance().insertAll(reactionTimes)
+                .test()
+                .assertComplete();
+
+        ReactionTimeDao.getInstance().findBySession(EXERCISE_ID, SESSION_START)
+                .test()
+                .assertValue(new Predicate<List<ReactionTime>>() {
+                    @Override
+                    public boolean test(@NonNull List<ReactionTime> stored) throws Exception {
+                        return stored.size() == 3
+                                && stored.get(0).getReactionMillis() == 500
+                                && !stored.get(1).hasResponse()
+                                && stored.get(2).setNumber == 1;
+                    }
+                });
+    }
+
+    @Test
+    public void testInsertAll_WithNoReactionTimes_ShouldComplete() {
+        ReactionTimeDao.getInstance().insertAll(new ArrayList<ReactionTime>())
+                .test()
+                .assertComplete();
+    }
+}
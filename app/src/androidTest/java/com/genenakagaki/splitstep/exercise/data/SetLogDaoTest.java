@@ -0,0 +1,117 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.genenakagaki.splitstep.exercise.data.entity.DailySetTotal;
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+import com.genenakagaki.splitstep.exercise.data.entity.WeeklySetTotal;
+import com.raizlabs.android.dbflow.config.DatabaseConfig;
+import com.raizlabs.android.dbflow.config.FlowConfig;
+import com.raizlabs.android.dbflow.config.FlowManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Predicate;
+
+@RunWith(AndroidJUnit4.class)
+public class SetLogDaoTest {
+
+    private static final long EXERCISE_ID = 1;
+    private static final long SESSION_START = 100;
+    // 2017-10-16, a Monday
+    private static final long MONDAY = 17455;
+
+    @Before
+    public void setUp() throws Exception {
+        Context mContext = InstrumentationRegistry.getTargetContext();
+
+        FlowManager.init(FlowConfig.builder(mContext)
+                .addDatabaseConfig(DatabaseConfig.inMemoryBuilder(ExerciseDatabase.class)
+                        .databaseName("ExerciseDatabase")
+                        .build())
+                .build());
+
+        new Exercise(ExerciseType.REGULAR_VALUE, "test").insert();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FlowManager.destroy();
+    }
+
+    private static void insert(int setNumber, long restMillis, long day) {
+        SetLogDao.getInstance().insert(new SetLog(EXERCISE_ID, SESSION_START, setNumber, 30000, restMillis,
+                day * WorkoutCalendar.DAY_MILLIS, day))
+                .test()
+                .assertComplete();
+    }
+
+    @Test
+    public void testInsert_WithSetsOfASession_ShouldStoreAllInOrder() {
+        insert(0, 0, MONDAY);
+        insert(1, 90000, MONDAY);
+
+        SetLogDao.getInstance().findBySession(EXERCISE_ID, SESSION_START)
+                .test()
+                .assertValue(new Predicate<List<SetLog>>() {
+                    @Override
+                    public boolean test(@NonNull List<SetLog> stored) throws Exception {
+                        return stored.size() == 2
+                                && stored.get(0).setNumber == 0
+                                && stored.get(1).restMillis == 90000;
+                    }
+                });
+    }
+
+    @Test
+    public void testFindDailyTotals_ShouldEmitTotalsOfDaysInRange() {
+        insert(0, 0, MONDAY - 1);
+        insert(0, 0, MONDAY);
+        insert(1, 90000, MONDAY);
+        insert(0, 0, MONDAY + 2);
+
+        SetLogDao.getInstance().findDailyTotals(EXERCISE_ID, MONDAY, MONDAY + 6)
+                .test()
+                .assertValue(new Predicate<List<DailySetTotal>>() {
+                    @Override
+                    public boolean test(@NonNull List<DailySetTotal> totals) throws Exception {
+                        return totals.size() == 2
+                                && totals.get(0).day == MONDAY
+                                && totals.get(0).sets == 2
+                                && totals.get(0).workMillis == 60000
+                                && totals.get(0).restMillis == 90000
+                                && totals.get(1).day == MONDAY + 2;
+                    }
+                });
+    }
+
+    @Test
+    public void testFindWeeklyTotals_ShouldEmitTotalsOfWeeksStartingOnMonday() {
+        insert(0, 0, MONDAY - 1);
+        insert(0, 0, MONDAY);
+        insert(0, 0, MONDAY + 6);
+
+        SetLogDao.getInstance().findWeeklyTotals(EXERCISE_ID, MONDAY - 7, MONDAY)
+                .test()
+                .assertValue(new Predicate<List<WeeklySetTotal>>() {
+                    @Override
+                    public boolean test(@NonNull List<WeeklySetTotal> totals) throws Exception {
+                        return totals.size() == 2
+                                && totals.get(0).week == MONDAY - 7
+                                && totals.get(0).sets == 1
+                                && totals.get(1).week == MONDAY
+                                && totals.get(1).sets == 2;
+                    }
+                });
+    }
+}
@@ -96,21 +96,9 @@ public class ExerciseTest {
     }
 
     private boolean isExerciseEqual(Exercise e1, Exercise e2) {
-        if (e1.notes == null) {
-            if (e1.notes != e2.notes) {
-                return false;
-            }
-        } else if (e1.notes != null) {
-            if (e1.notes.equals(e2.notes));
-        }
-
         return e1.type == e2.type
                 && e1.favorite == e2.favorite
                 && e1.name.equals(e2.name)
-                && e1.subType == e2.subType
-                && e1.sets == e2.sets
-                && e1.reps == e2.reps
-                && e1.setDuration == e2.setDuration
-                && e1.restDuration == e2.restDuration;
+                && e1.subType == e2.subType;
     }
-}
\ No newline at end of file
+}
@@ -38,6 +38,9 @@ public class ReactionExerciseTest {
                         .databaseName("ExerciseDatabase")
                         .build())
                 .build());
+
+        // the reaction exercises below belong to this exercise, id 1
+        new Exercise(ExerciseType.REACTION_VALUE, "test").insert();
     }
 
     @After
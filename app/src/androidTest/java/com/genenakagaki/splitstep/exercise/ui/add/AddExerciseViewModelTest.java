@@ -10,6 +10,7 @@ import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
 import com.genenakagaki.splitstep.exercise.ui.list.AddExerciseViewModel;
 import com.genenakagaki.splitstep.exercise.ui.model.ErrorMessage;
+import com.genenakagaki.splitstep.exercise.utils.DatabaseUtils;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
@@ -19,9 +20,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Predicate;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Created by Gene on 9/6/2017.
  */
@@ -81,6 +88,35 @@ public class AddExerciseViewModelTest {
                 });
     }
 
+    @Test
+    public void testCheckName_WithLoadedNames_ShouldFlagDuplicateAndSuggestNames() {
+        AddExerciseViewModel viewModel = new AddExerciseViewModel(mContext, ExerciseType.REGULAR);
+        DatabaseUtils.insertExercises(new String[] {"Lateral Shuffle", "Lateral Hop", "Skip"},
+                ExerciseType.REGULAR_VALUE);
+
+        assertEquals(Collections.<String>emptyList(), viewModel.checkName("lateral shuffle"));
+
+        viewModel.loadNames().blockingAwait();
+
+        assertEquals(Arrays.asList("Lateral Shuffle"), viewModel.checkName("Lateral Shufle"));
+        assertEquals(Arrays.asList("Lateral Hop", "Lateral Shuffle"), viewModel.checkName("lat"));
+
+        assertEquals(Collections.<String>emptyList(), viewModel.checkName(" lateral  SHUFFLE"));
+        viewModel.getErrorMessageSubject()
+                .test()
+                .awaitCount(1)
+                .assertValue(new Predicate<ErrorMessage>() {
+                    @Override
+                    public boolean test(@NonNull ErrorMessage errorMessage) throws Exception {
+                        return !errorMessage.isValid()
+                                && errorMessage.getErrorMessage().equals(mContext.getString(R.string.error_exercise_already_exists));
+                    }
+                });
+
+        viewModel.checkName("Lateral");
+        assertTrue(viewModel.getErrorMessageSubject().blockingFirst().isValid());
+    }
+
 //    @Test
 //
 //    public void setInvalidExerciseNameError() {
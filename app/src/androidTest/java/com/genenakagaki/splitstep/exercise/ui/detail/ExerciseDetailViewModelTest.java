@@ -5,10 +5,14 @@ import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.utils.DatabaseUtils;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
@@ -42,12 +46,13 @@ public class ExerciseDetailViewModelTest {
 
     @After
     public void tearDown() throws Exception {
+        ExerciseDao.getInstance().clearCache();
         FlowManager.destroy();
     }
 
     @Test
     public void testSetDurationDisplay_WithDurationLessThanAMinute_ShouldSetCorrectDisplay() {
-        EXERCISE.insert();
+        DatabaseUtils.insertExercise(EXERCISE);
         ExerciseDetailViewModel viewModel = new ExerciseDetailViewModel(context, EXERCISE.id);
 
         DurationDisplayable durationDisplayable = new DurationDisplayable(DurationDisplayable.TYPE_REST_DURATION, 30);
@@ -58,7 +63,7 @@ public class ExerciseDetailViewModelTest {
 
     @Test
     public void testSetDurationDisplay_WithDurationMoreThanAMinute_ShouldSetCorrectDisplay() {
-        EXERCISE.insert();
+        DatabaseUtils.insertExercise(EXERCISE);
         ExerciseDetailViewModel viewModel = new ExerciseDetailViewModel(context, EXERCISE.id);
 
         DurationDisplayable durationDisplayable = new DurationDisplayable(DurationDisplayable.TYPE_REST_DURATION, 100);
@@ -70,18 +75,19 @@ public class ExerciseDetailViewModelTest {
     @Test
     public void testSetRestDuration_ShouldUpdateRestDuration() {
         Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "test");
-        exercise.restDuration = 10;
-        exercise.insert();
+        ExerciseSettings settings = DatabaseUtils.insertExercise(exercise);
+        settings.restDuration = 10;
+        settings.update();
         ExerciseDetailViewModel viewModel = new ExerciseDetailViewModel(context, exercise.id);
         viewModel.loadExercise().test()
                 .assertComplete();
 
         DurationDisplayable durationDisplayable = new DurationDisplayable(DurationDisplayable.TYPE_REST_DURATION, 20);
-        viewModel.setRestDuration(durationDisplayable).test()
-                .assertComplete();
+        viewModel.setRestDuration(durationDisplayable).blockingAwait();
+        viewModel.flush().blockingAwait();
 
-        Exercise e = SQLite.select()
-                .from(Exercise.class)
+        RegularExercise e = SQLite.select()
+                .from(RegularExercise.class)
                 .querySingle();
 
         assertEquals(20, e.restDuration);
@@ -90,18 +96,19 @@ public class ExerciseDetailViewModelTest {
     @Test
     public void testSetSetDuration_ShouldUpdateSetDuration() {
         Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "test");
-        exercise.setDuration = 10;
-        exercise.insert();
+        ExerciseSettings settings = DatabaseUtils.insertExercise(exercise);
+        settings.setDuration = 10;
+        settings.update();
         ExerciseDetailViewModel viewModel = new ExerciseDetailViewModel(context, exercise.id);
         viewModel.loadExercise().test()
                 .assertComplete();
 
         DurationDisplayable durationDisplayable = new DurationDisplayable(DurationDisplayable.TYPE_SET_DURATION, 20);
-        viewModel.setSetDuration(durationDisplayable).test()
-                .assertComplete();
+        viewModel.setSetDuration(durationDisplayable).blockingAwait();
+        viewModel.flush().blockingAwait();
 
-        Exercise e = SQLite.select()
-                .from(Exercise.class)
+        RegularExercise e = SQLite.select()
+                .from(RegularExercise.class)
                 .querySingle();
 
         assertEquals(20, e.setDuration);
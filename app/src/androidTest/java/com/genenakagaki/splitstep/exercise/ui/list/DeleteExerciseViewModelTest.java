@@ -18,6 +18,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -50,7 +52,7 @@ public class DeleteExerciseViewModelTest {
         Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "Reps exercise");
         exercise.insert();
 
-        DeleteExerciseViewModel viewModel = new DeleteExerciseViewModel(exercise.id, ExerciseType.REGULAR, "deleting");
+        DeleteExerciseViewModel viewModel = new DeleteExerciseViewModel(Collections.singletonList(exercise.id), "deleting");
 
         viewModel.deleteExerciseCompletable()
                 .test()
@@ -68,7 +70,7 @@ public class DeleteExerciseViewModelTest {
         Exercise exercise = new Exercise(ExerciseType.REACTION_VALUE, "Reaction exercise");
         exercise.insert();
 
-        DeleteExerciseViewModel viewModel = new DeleteExerciseViewModel(exercise.id, ExerciseType.REACTION, "deleting");
+        DeleteExerciseViewModel viewModel = new DeleteExerciseViewModel(Collections.singletonList(exercise.id), "deleting");
 
         ReactionExercise reactionExercise = new ReactionExercise(exercise.id, 1, 1);
         reactionExercise.insert();
@@ -88,4 +90,30 @@ public class DeleteExerciseViewModelTest {
         assertEquals(0, exercises.size());
         assertEquals(0, reactionExercises.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDeleteExercise_WithSelectedExercises_ShouldDeleteOnlyThose() {
+        Exercise first = new Exercise(ExerciseType.REGULAR_VALUE, "first");
+        first.insert();
+        Exercise second = new Exercise(ExerciseType.REACTION_VALUE, "second");
+        second.insert();
+        new ReactionExercise(second.id).insert();
+        Exercise kept = new Exercise(ExerciseType.REGULAR_VALUE, "kept");
+        kept.insert();
+
+        DeleteExerciseViewModel viewModel =
+                new DeleteExerciseViewModel(Arrays.asList(first.id, second.id), "deleting");
+
+        viewModel.deleteExerciseCompletable()
+                .test()
+                .awaitTerminalEvent();
+
+        List<Exercise> exercises = SQLite.select()
+                .from(Exercise.class)
+                .queryList();
+
+        assertEquals(1, exercises.size());
+        assertEquals(kept.id, exercises.get(0).id);
+        assertEquals(0, SQLite.select().from(ReactionExercise.class).queryList().size());
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.support.test.InstrumentationRegistry;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
@@ -11,17 +12,21 @@ import com.genenakagaki.splitstep.exercise.utils.DatabaseUtils;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
 
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Collections;
 
-import io.reactivex.annotations.NonNull;
-import io.reactivex.functions.Predicate;
+import io.reactivex.observers.BaseTestConsumer;
+import io.reactivex.observers.TestObserver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by Gene on 9/8/2017.
@@ -37,6 +42,7 @@ public class ExerciseListViewModelTest {
         FlowManager.init(FlowConfig.builder(mContext)
                 .addDatabaseConfig(DatabaseConfig.inMemoryBuilder(ExerciseDatabase.class)
                         .databaseName("ExerciseDatabase")
+                        .modelNotifier(DirectModelNotifier.get())
                         .build())
                 .build());
     }
@@ -67,25 +73,45 @@ public class ExerciseListViewModelTest {
     }
 
     @Test
-    public void testGetExerciseList_WithNoExercise_SubjectShouldEmitEmptyList() {
+    public void testToggleSelected_Twice_ShouldUnselect() {
         ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+        viewModel.setEditMode(true);
 
-        viewModel.getExerciseList()
-                .test()
-                .assertComplete();
-
-        viewModel.getExercisesSubject()
-                .test()
-                .assertValue(new Predicate<List<Exercise>>() {
-                    @Override
-                    public boolean test(@NonNull List<Exercise> exercises) throws Exception {
-                        return exercises.size() == 0;
-                    }
-                });
+        viewModel.toggleSelected(3);
+        viewModel.toggleSelected(1);
+        assertEquals(Arrays.asList(3L, 1L), viewModel.getSelectedIds());
+
+        viewModel.toggleSelected(3);
+        assertFalse(viewModel.isSelected(3));
+        assertTrue(viewModel.isSelected(1));
+    }
+
+    @Test
+    public void testSetEditMode_WithFalse_ShouldClearSelection() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+        viewModel.setEditMode(true);
+        viewModel.toggleSelected(1);
+
+        viewModel.setEditMode(false);
+
+        assertTrue(viewModel.getSelectedIds().isEmpty());
     }
 
     @Test
-    public void testGetExerciseList_WithRegularExercise_SubjectShouldEmitRegularExercises() {
+    public void testGetExerciseUpdates_WithNoExercise_ShouldReloadEmptyList() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        ExerciseListUpdate update = observer.values().get(0);
+        assertEquals(true, update.isReload());
+        assertEquals(0, update.getExercises().size());
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithRegularExercise_ShouldReloadRegularExercises() {
         ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
 
         String[] regularExerciseNames = {
@@ -95,23 +121,17 @@ public class ExerciseListViewModelTest {
         };
 
         DatabaseUtils.insertExercises(regularExerciseNames, ExerciseType.REGULAR_VALUE);
+        DatabaseUtils.insertExercises(new String[] {"reactionExercise1"}, ExerciseType.REACTION_VALUE);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
 
-        viewModel.getExerciseList()
-                .test()
-                .assertComplete();
-
-        viewModel.getExercisesSubject()
-                .test()
-                .assertValue(new Predicate<List<Exercise>>() {
-                    @Override
-                    public boolean test(@NonNull List<Exercise> exercises) throws Exception {
-                        return exercises.size() == 3;
-                    }
-                });
+        assertEquals(3, observer.values().get(0).getExercises().size());
+        observer.dispose();
     }
 
     @Test
-    public void testGetExerciseList_WithReactionExercise_SubjectShouldEmitReactionExercises() {
+    public void testGetExerciseUpdates_WithReactionExercise_ShouldReloadReactionExercises() {
         ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REACTION);
 
         String[] reactionExerciseNames = {
@@ -121,18 +141,145 @@ public class ExerciseListViewModelTest {
         };
 
         DatabaseUtils.insertExercises(reactionExerciseNames, ExerciseType.REACTION_VALUE);
+        DatabaseUtils.insertExercises(new String[] {"repsExercise1"}, ExerciseType.REGULAR_VALUE);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        ExerciseListUpdate update = observer.values().get(0);
+        assertEquals(true, update.isReload());
+        assertEquals(3, update.getExercises().size());
+        for (Exercise exercise: update.getExercises()) {
+            assertEquals(ExerciseType.REACTION_VALUE, exercise.type);
+        }
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithInsertedExercise_ShouldEmitOnlyThatRow() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        Exercise exercise = new Exercise(ExerciseType.REGULAR_VALUE, "inserted");
+        exercise.insert();
+        observer.awaitCount(2);
+
+        ExerciseListUpdate update = observer.values().get(1);
+        assertEquals(false, update.isReload());
+        assertEquals(Collections.singletonList(exercise.id), update.getIds());
+        assertEquals(1, update.getExercises().size());
+        assertEquals("inserted", update.getExercises().get(0).name);
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithExerciseInsertedByDao_ShouldEmitCommittedRow() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        // notified after the commit, so the row is read back from the read connection
+        ExerciseDao.getInstance().insert("inserted", ExerciseType.REGULAR).test().assertComplete();
+        observer.awaitCount(2);
+
+        ExerciseListUpdate update = observer.values().get(1);
+        assertEquals(false, update.isReload());
+        assertEquals(1, update.getIds().size());
+        assertEquals(1, update.getExercises().size());
+        assertEquals("inserted", update.getExercises().get(0).name);
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithDeletedExercise_ShouldEmitIdWithoutExercise() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+        EXERCISE.insert();
+        long exerciseId = EXERCISE.id;
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        ExerciseDao.getInstance().delete(exerciseId).test().assertComplete();
+        observer.awaitCount(2);
+
+        ExerciseListUpdate update = observer.values().get(1);
+        assertEquals(Collections.singletonList(exerciseId), update.getIds());
+        assertEquals(0, update.getExercises().size());
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithOtherTypeChanged_ShouldNotEmit() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        new Exercise(ExerciseType.REACTION_VALUE, "reaction").insert();
+        observer.awaitCount(2, BaseTestConsumer.TestWaitStrategy.SLEEP_10MS, 500);
+
+        observer.assertValueCount(1);
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetExerciseUpdates_WithMoreThanAPage_ShouldLoadRequestedPage() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+
+        String[] names = new String[ExerciseListViewModel.PAGE_SIZE + 5];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "exercise" + i;
+        }
+        DatabaseUtils.insertExercises(names, ExerciseType.REGULAR_VALUE);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        ExerciseListUpdate firstPage = observer.values().get(0);
+        assertEquals(ExerciseListViewModel.PAGE_SIZE, firstPage.getExercises().size());
+        assertEquals(true, firstPage.hasMore());
+
+        long lastId = firstPage.getExercises().get(ExerciseListViewModel.PAGE_SIZE - 1).id;
+        viewModel.requestPage(lastId);
+        observer.awaitCount(2);
+
+        ExerciseListUpdate secondPage = observer.values().get(1);
+        assertEquals(true, secondPage.isPage());
+        assertEquals(lastId, secondPage.getAfterId());
+        assertEquals(5, secondPage.getExercises().size());
+        assertEquals(false, secondPage.hasMore());
+        assertEquals("exercise" + ExerciseListViewModel.PAGE_SIZE, secondPage.getExercises().get(0).name);
+        observer.dispose();
+    }
+
+    @Test
+    public void testSetSearchQuery_ShouldReloadMatchesThenEveryExercise() {
+        ExerciseListViewModel viewModel = new ExerciseListViewModel(mContext, ExerciseType.REGULAR);
+        DatabaseUtils.insertExercises(new String[] {"Lateral shuffle", "Skip"}, ExerciseType.REGULAR_VALUE);
+
+        TestObserver<ExerciseListUpdate> observer = viewModel.getExerciseUpdates().test();
+        observer.awaitCount(1);
+
+        // only the query typing paused on is searched
+        viewModel.setSearchQuery("s");
+        viewModel.setSearchQuery("sh");
+        observer.awaitCount(2);
+        observer.awaitCount(3, BaseTestConsumer.TestWaitStrategy.SLEEP_10MS,
+                ExerciseListViewModel.SEARCH_DEBOUNCE_MILLIS * 2);
+        observer.assertValueCount(2);
+
+        ExerciseListUpdate results = observer.values().get(1);
+        assertEquals(true, results.isReload());
+        assertEquals(false, results.hasMore());
+        assertEquals(1, results.getExercises().size());
+        assertEquals("Lateral shuffle", results.getExercises().get(0).name);
 
-        viewModel.getExerciseList()
-                .test()
-                .assertComplete();
-
-        viewModel.getExercisesSubject()
-                .test()
-                .assertValue(new Predicate<List<Exercise>>() {
-                    @Override
-                    public boolean test(@NonNull List<Exercise> exercises) throws Exception {
-                        return exercises.size() == 3;
-                    }
-                });
+        viewModel.setSearchQuery("");
+        observer.awaitCount(3);
+        assertEquals(2, observer.values().get(2).getExercises().size());
+        observer.dispose();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,10 @@
 package com.genenakagaki.splitstep.exercise.utils;
 
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
 
 /**
  * Created by Gene on 9/6/2017.
@@ -13,4 +17,18 @@ public class DatabaseUtils {
             new Exercise(type, name).insert();
         }
     }
+
+    /**
+     * Inserts the exercise and the row of its type with the default settings, as the DAO does.
+     *
+     * @return the settings row
+     */
+    public static ExerciseSettings insertExercise(Exercise exercise) {
+        exercise.insert();
+        ExerciseSettings settings = exercise.type == ExerciseType.REACTION_VALUE
+                ? new ReactionExercise(exercise.id)
+                : new RegularExercise(exercise.id);
+        settings.insert();
+        return settings;
+    }
 }
@@ -3,11 +3,22 @@ package com.genenakagaki.splitstep;
 import android.app.Application;
 import android.util.Log;
 
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.DatabaseTuning;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.ExerciseOpenHelper;
 import com.raizlabs.android.dbflow.config.DatabaseConfig;
+import com.raizlabs.android.dbflow.config.DatabaseDefinition;
 import com.raizlabs.android.dbflow.config.FlowConfig;
 import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
+import com.raizlabs.android.dbflow.structure.database.DatabaseHelperListener;
+import com.raizlabs.android.dbflow.structure.database.FlowCursor;
+import com.raizlabs.android.dbflow.structure.database.OpenHelper;
 
+import io.reactivex.Completable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import timber.log.Timber;
 
 /**
@@ -22,7 +33,15 @@ public class App extends Application {
 
         FlowManager.init(FlowConfig.builder(this)
                 .addDatabaseConfig(DatabaseConfig.builder(ExerciseDatabase.class)
-                        .databaseName("ExerciseDatabase")
+                        .databaseName(ExerciseDatabase.NAME)
+                        .modelNotifier(DirectModelNotifier.get())
+                        .openHelper(new DatabaseConfig.OpenHelperCreator() {
+                            @Override
+                            public OpenHelper createHelper(DatabaseDefinition databaseDefinition,
+                                                           DatabaseHelperListener helperListener) {
+                                return new ExerciseOpenHelper(databaseDefinition, helperListener);
+                            }
+                        })
                         .build())
                 .build());
 
@@ -31,6 +50,74 @@ public class App extends Application {
         } else {
             Timber.plant(new CrashReportingTree());
         }
+
+        openDatabase();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        if (level == TRIM_MEMORY_UI_HIDDEN) {
+            checkpointDatabase();
+        }
+    }
+
+    /**
+     * Opens the database in the background, so pending migrations run there instead of on the
+     * first query, which may be on the main thread. Queries made meanwhile wait for it to open.
+     */
+    private void openDatabase() {
+        Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                FlowManager.getWritableDatabase(ExerciseDatabase.class);
+            }
+        }).subscribeOn(DatabaseSchedulers.write()).subscribe(new Action() {
+            @Override
+            public void run() throws Exception {
+                Timber.d("Database opened");
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                Timber.e(throwable, "Failed to open the database");
+            }
+        });
+    }
+
+    /**
+     * Checkpoints the WAL once the app goes to the background, so it doesn't stay at the size the
+     * session grew it to. While the app is in use commits checkpoint it every
+     * {@link DatabaseTuning#AUTO_CHECKPOINT_PAGES} pages.
+     *
+     * A checkpoint is a write to SQLite, so Android runs it on the primary connection rather than a
+     * read connection, which opens the database read-only and can't checkpoint it. It runs on the
+     * write scheduler, so it doesn't wait on a write of the app for the connection.
+     */
+    private void checkpointDatabase() {
+        Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                FlowCursor cursor = FlowManager.getWritableDatabase(ExerciseDatabase.class)
+                        .rawQuery(DatabaseTuning.CHECKPOINT, null);
+                try {
+                    cursor.moveToFirst();
+                } finally {
+                    cursor.close();
+                }
+            }
+        }).subscribeOn(DatabaseSchedulers.write()).subscribe(new Action() {
+            @Override
+            public void run() throws Exception {
+                Timber.d("Database checkpointed");
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                Timber.e(throwable, "Failed to checkpoint the database");
+            }
+        });
     }
 
     /** A tree which logs important information for crash reporting. */
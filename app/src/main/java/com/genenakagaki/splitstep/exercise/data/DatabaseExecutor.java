@@ -0,0 +1,117 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed size pool of database threads that keeps track of how busy it is.
+ *
+ * Each task is timed from the moment it is queued to the moment it starts (wait time) and from
+ * then to the moment it ends (execution time). Long waits with short executions mean the pool is
+ * too small or something holds it up, long executions mean the queries themselves are slow.
+ */
+public class DatabaseExecutor extends ThreadPoolExecutor {
+
+    private long completedCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long totalExecutionNanos;
+    private long maxExecutionNanos;
+    private int maxQueueDepth;
+
+    public DatabaseExecutor(final String name, int threadCount) {
+        super(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        final long queuedAt = System.nanoTime();
+        super.execute(new Runnable() {
+            @Override
+            public void run() {
+                long startedAt = System.nanoTime();
+                try {
+                    command.run();
+                } finally {
+                    onCompleted(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            }
+        });
+        onQueued(getQueue().size());
+    }
+
+    private synchronized void onQueued(int queueDepth) {
+        maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+    }
+
+    private synchronized void onCompleted(long waitNanos, long executionNanos) {
+        completedCount++;
+        totalWaitNanos += waitNanos;
+        maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        totalExecutionNanos += executionNanos;
+        maxExecutionNanos = Math.max(maxExecutionNanos, executionNanos);
+    }
+
+    /**
+     * @return the number of tasks waiting for a thread
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Not to be confused with {@link #getCompletedTaskCount()}, which is only an approximation.
+     */
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    public synchronized long getAverageWaitNanos() {
+        return completedCount == 0 ? 0 : totalWaitNanos / completedCount;
+    }
+
+    public synchronized long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public synchronized long getAverageExecutionNanos() {
+        return completedCount == 0 ? 0 : totalExecutionNanos / completedCount;
+    }
+
+    public synchronized long getMaxExecutionNanos() {
+        return maxExecutionNanos;
+    }
+
+    public synchronized void resetMetrics() {
+        completedCount = 0;
+        totalWaitNanos = 0;
+        maxWaitNanos = 0;
+        totalExecutionNanos = 0;
+        maxExecutionNanos = 0;
+        maxQueueDepth = getQueue().size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return completedCount + " tasks, queue " + getQueue().size() + " (max " + maxQueueDepth + ")"
+                + ", wait avg " + getAverageWaitNanos() / 1000 + "us max " + maxWaitNanos / 1000 + "us"
+                + ", execution avg " + getAverageExecutionNanos() / 1000 + "us max " + maxExecutionNanos / 1000 + "us";
+    }
+}
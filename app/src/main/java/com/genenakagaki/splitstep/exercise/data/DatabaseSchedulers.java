@@ -0,0 +1,43 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Where DAO work runs.
+ *
+ * Writes run one at a time on a single thread, in the order they were subscribed to, so writes
+ * from different screens never interleave or contend for the database lock. Reads run on a small
+ * pool of their own, off the computation pool, which is sized for work that doesn't block.
+ *
+ * Subscribe to DAO results on {@link #write()} if they change anything, otherwise on
+ * {@link #read()}.
+ */
+public class DatabaseSchedulers {
+
+    private static final int READ_THREAD_COUNT = 2;
+
+    private static final DatabaseExecutor writeExecutor = new DatabaseExecutor("db-write", 1);
+    private static final DatabaseExecutor readExecutor = new DatabaseExecutor("db-read", READ_THREAD_COUNT);
+
+    private static final Scheduler write = Schedulers.from(writeExecutor);
+    private static final Scheduler read = Schedulers.from(readExecutor);
+
+    private DatabaseSchedulers() {}
+
+    public static Scheduler write() {
+        return write;
+    }
+
+    public static Scheduler read() {
+        return read;
+    }
+
+    public static DatabaseExecutor getWriteExecutor() {
+        return writeExecutor;
+    }
+
+    public static DatabaseExecutor getReadExecutor() {
+        return readExecutor;
+    }
+}
@@ -0,0 +1,42 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How connections to the exercise database are set up, on top of write-ahead logging.
+ *
+ * Plain SQL, so the benchmarks open their databases the same way.
+ */
+public class DatabaseTuning {
+
+    /**
+     * WAL pages a commit may leave before it checkpoints them into the database, about 2MB. Half
+     * of SQLite's default, reads get slower the longer the WAL they have to look through.
+     */
+    public static final int AUTO_CHECKPOINT_PAGES = 500;
+
+    /**
+     * Settings of the connection that writes, none of them returns a row.
+     */
+    public static final List<String> PRAGMAS = Collections.unmodifiableList(Arrays.asList(
+            // with WAL a crash can lose the last commits but not corrupt the database
+            "PRAGMA synchronous = NORMAL",
+            // negative is in KiB
+            "PRAGMA cache_size = -4096",
+            "PRAGMA temp_store = MEMORY"));
+
+    /**
+     * Only commits checkpoint, so only the connection that writes needs it. Returns the new value.
+     */
+    public static final String AUTO_CHECKPOINT = "PRAGMA wal_autocheckpoint = " + AUTO_CHECKPOINT_PAGES;
+
+    /**
+     * Checkpoints the whole WAL and truncates it. SQLite older than 3.8.8 doesn't know TRUNCATE and
+     * only checkpoints what no reader is using. Returns a row of page counts.
+     */
+    public static final String CHECKPOINT = "PRAGMA wal_checkpoint(TRUNCATE)";
+
+    private DatabaseTuning() {}
+}
@@ -0,0 +1,28 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+
+/**
+ * An exercise row with the settings row of its type, found together by
+ * {@link ExerciseDao#findWithSettings}. The settings are only ever read from and written to
+ * the settings row.
+ */
+public class ExerciseAggregate {
+
+    private final Exercise exercise;
+    private final ExerciseSettings settings;
+
+    public ExerciseAggregate(Exercise exercise, ExerciseSettings settings) {
+        this.exercise = exercise;
+        this.settings = settings;
+    }
+
+    public Exercise getExercise() {
+        return exercise;
+    }
+
+    public ExerciseSettings getSettings() {
+        return settings;
+    }
+}
@@ -0,0 +1,43 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A change to the exercises of one type, emitted by {@link ExerciseDao#getChanges}.
+ *
+ * Row changes carry the ids of the changed rows. A table change has no ids and means any row of
+ * the type may have changed, e.g. after a bulk delete that didn't go through a model.
+ */
+public class ExerciseChange {
+
+    private final BaseModel.Action action;
+    private final List<Long> ids;
+
+    public static ExerciseChange forTable(BaseModel.Action action) {
+        return new ExerciseChange(action, Collections.<Long>emptyList());
+    }
+
+    public static ExerciseChange forRow(BaseModel.Action action, long id) {
+        return new ExerciseChange(action, Collections.singletonList(id));
+    }
+
+    private ExerciseChange(BaseModel.Action action, List<Long> ids) {
+        this.action = action;
+        this.ids = ids;
+    }
+
+    public BaseModel.Action getAction() {
+        return action;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public boolean isTableChange() {
+        return ids.isEmpty();
+    }
+}
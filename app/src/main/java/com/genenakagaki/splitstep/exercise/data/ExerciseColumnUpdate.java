@@ -0,0 +1,264 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise_Table;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise_Table;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise_Table;
+import com.raizlabs.android.dbflow.sql.language.SQLOperator;
+import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.sql.language.property.Property;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columns of one exercise to write, without rewriting the rest of the row.
+ *
+ * Each setter checks its value and keeps it. A value that isn't valid is left out and the update
+ * is marked invalid. The models are only changed by {@link #apply()}, once the update is
+ * committed, so a rejected or failed write never leaves a value on them that isn't stored.
+ *
+ * Settings are written to the table of the exercise's type and set on its settings row, the other
+ * columns are written to and set on the exercise row.
+ */
+public class ExerciseColumnUpdate {
+
+    private final Exercise exercise;
+    private final ExerciseSettings settings;
+    private final Map<String, SQLOperator> changes = new LinkedHashMap<>();
+    private final Map<String, SQLOperator> settingChanges = new LinkedHashMap<>();
+    private boolean isValid = true;
+
+    // the values to set on the models once written, null if not set
+    private Boolean favorite;
+    private Integer sets;
+    private Integer reps;
+    private Integer setDuration;
+    private Integer restDuration;
+    private boolean isNotesSet;
+    private String notes;
+    /** Updates merged into this one with models of their own, one per pair of models. */
+    private final List<ExerciseColumnUpdate> mergedUpdates = new ArrayList<>();
+
+    /**
+     * An update of the exercise row only, settings set on it are written but not set on a model.
+     */
+    public ExerciseColumnUpdate(Exercise exercise) {
+        this(exercise, null);
+    }
+
+    public ExerciseColumnUpdate(Exercise exercise, ExerciseSettings settings) {
+        this.exercise = exercise;
+        this.settings = settings;
+    }
+
+    public Exercise getExercise() {
+        return exercise;
+    }
+
+    public ExerciseColumnUpdate favorite(boolean favorite) {
+        this.favorite = favorite;
+        changes.put("favorite", Exercise_Table.favorite.eq(favorite));
+        return this;
+    }
+
+    public ExerciseColumnUpdate sets(int sets) {
+        if (sets < 1) {
+            return invalid();
+        }
+        this.sets = sets;
+        return setting("sets", RegularExercise_Table.sets, ReactionExercise_Table.sets, sets);
+    }
+
+    public ExerciseColumnUpdate reps(int reps) {
+        if (reps < 1) {
+            return invalid();
+        }
+        this.reps = reps;
+        return setting("reps", RegularExercise_Table.reps, ReactionExercise_Table.reps, reps);
+    }
+
+    public ExerciseColumnUpdate setDuration(int setDuration) {
+        if (setDuration < 1) {
+            return invalid();
+        }
+        this.setDuration = setDuration;
+        return setting("setDuration", RegularExercise_Table.setDuration, ReactionExercise_Table.setDuration,
+                setDuration);
+    }
+
+    public ExerciseColumnUpdate restDuration(int restDuration) {
+        if (restDuration < 1) {
+            return invalid();
+        }
+        this.restDuration = restDuration;
+        return setting("restDuration", RegularExercise_Table.restDuration, ReactionExercise_Table.restDuration,
+                restDuration);
+    }
+
+    public ExerciseColumnUpdate notes(String notes) {
+        this.notes = notes;
+        isNotesSet = true;
+        return setting("notes", RegularExercise_Table.notes, ReactionExercise_Table.notes, notes);
+    }
+
+    /**
+     * @return false if any value was left out
+     */
+    public boolean isValid() {
+        return isValid;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty() && settingChanges.isEmpty();
+    }
+
+    /**
+     * @return true if any settings are set
+     */
+    boolean hasSettings() {
+        return !settingChanges.isEmpty();
+    }
+
+    boolean isReaction() {
+        return exercise.type == ExerciseType.REACTION_VALUE;
+    }
+
+    /**
+     * Adds the columns of a later update of the same exercise, its values win. Only valid updates
+     * are merged, see {@link ExerciseWriteBehind}.
+     */
+    void merge(ExerciseColumnUpdate update) {
+        changes.putAll(update.changes);
+        settingChanges.putAll(update.settingChanges);
+
+        if (update.favorite != null) {
+            favorite = update.favorite;
+        }
+        if (update.sets != null) {
+            sets = update.sets;
+        }
+        if (update.reps != null) {
+            reps = update.reps;
+        }
+        if (update.setDuration != null) {
+            setDuration = update.setDuration;
+        }
+        if (update.restDuration != null) {
+            restDuration = update.restDuration;
+        }
+        if (update.isNotesSet) {
+            notes = update.notes;
+            isNotesSet = true;
+        }
+
+        addMergedModels(update);
+        for (ExerciseColumnUpdate merged: update.mergedUpdates) {
+            addMergedModels(merged);
+        }
+    }
+
+    private void addMergedModels(ExerciseColumnUpdate update) {
+        if (update.hasSameModels(this)) {
+            return;
+        }
+        for (ExerciseColumnUpdate merged: mergedUpdates) {
+            if (update.hasSameModels(merged)) {
+                return;
+            }
+        }
+        mergedUpdates.add(update);
+    }
+
+    private boolean hasSameModels(ExerciseColumnUpdate update) {
+        return update.exercise == exercise && update.settings == settings;
+    }
+
+    /**
+     * Sets the values of the update on its models, and on the models of the updates merged into
+     * it. Called by the DAO once the update is committed.
+     */
+    void apply() {
+        applyTo(exercise, settings);
+        for (ExerciseColumnUpdate merged: mergedUpdates) {
+            applyTo(merged.exercise, merged.settings);
+        }
+    }
+
+    private void applyTo(Exercise exercise, ExerciseSettings settings) {
+        if (favorite != null) {
+            exercise.favorite = favorite;
+        }
+        if (settings == null) {
+            return;
+        }
+        if (sets != null) {
+            settings.sets = sets;
+        }
+        if (reps != null) {
+            settings.reps = reps;
+        }
+        if (setDuration != null) {
+            settings.setDuration = setDuration;
+        }
+        if (restDuration != null) {
+            settings.restDuration = restDuration;
+        }
+        if (isNotesSet) {
+            settings.notes = notes;
+        }
+    }
+
+    /**
+     * @return the update of the exercise row, or null if none of its columns are set
+     */
+    String getQuery() {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        return SQLite.update(Exercise.class)
+                .set(toArray(changes))
+                .where(Exercise_Table.id.eq(exercise.id))
+                .getQuery();
+    }
+
+    /**
+     * @return the update of the row of the exercise's type, or null if no settings are set
+     */
+    String getSettingsQuery() {
+        if (settingChanges.isEmpty()) {
+            return null;
+        }
+        if (isReaction()) {
+            return SQLite.update(ReactionExercise.class)
+                    .set(toArray(settingChanges))
+                    .where(ReactionExercise_Table.id.eq(exercise.id))
+                    .getQuery();
+        }
+        return SQLite.update(RegularExercise.class)
+                .set(toArray(settingChanges))
+                .where(RegularExercise_Table.id.eq(exercise.id))
+                .getQuery();
+    }
+
+    private <T> ExerciseColumnUpdate setting(String column, Property<T> regularColumn,
+                                             Property<T> reactionColumn, T value) {
+        settingChanges.put(column, isReaction() ? reactionColumn.eq(value) : regularColumn.eq(value));
+        return this;
+    }
+
+    private static SQLOperator[] toArray(Map<String, SQLOperator> changes) {
+        return changes.values().toArray(new SQLOperator[changes.size()]);
+    }
+
+    private ExerciseColumnUpdate invalid() {
+        isValid = false;
+        return this;
+    }
+}
@@ -1,26 +1,45 @@
 package com.genenakagaki.splitstep.exercise.data;
 
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
-import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise_Table;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise_Table;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise_Table;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseAlreadyExistsException;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseNotFoundException;
 import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseColumnsException;
 import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseNameException;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
+import com.raizlabs.android.dbflow.runtime.NotifyDistributor;
 import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.sql.queriable.StringQuery;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+import com.raizlabs.android.dbflow.structure.ModelAdapter;
+import com.raizlabs.android.dbflow.structure.database.DatabaseStatement;
+import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
+import com.raizlabs.android.dbflow.structure.database.FlowCursor;
+import com.raizlabs.android.dbflow.structure.database.transaction.ITransaction;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 import io.reactivex.Completable;
 import io.reactivex.CompletableEmitter;
 import io.reactivex.CompletableOnSubscribe;
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.Single;
 import io.reactivex.SingleEmitter;
 import io.reactivex.SingleOnSubscribe;
 import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Cancellable;
 import timber.log.Timber;
 
 /**
@@ -29,6 +48,11 @@ import timber.log.Timber;
 
 public class ExerciseDao {
 
+    /** Key to pass to {@link #findPage} for the first page, ids start at 1. */
+    public static final long FIRST_PAGE = 0;
+
+    private static final int CACHE_SIZE = 32;
+
     private static ExerciseDao instance;
 
     public static ExerciseDao getInstance() {
@@ -38,31 +62,83 @@ public class ExerciseDao {
         return instance;
     }
 
-    private ExerciseDao() {
-    }
+    private final Map<ExerciseType, Observable<ExerciseChange>> changes = new EnumMap<>(ExerciseType.class);
+
+    private final ModelCache<Exercise> cache = new ModelCache<Exercise>(Exercise.class, CACHE_SIZE) {
+        @Override
+        long getId(Exercise exercise) {
+            return exercise.id;
+        }
+
+        @Override
+        Exercise copy(Exercise exercise) {
+            return exercise.copy();
+        }
+    };
+
+    private final ModelCache<RegularExercise> settingsCache =
+            new ModelCache<RegularExercise>(RegularExercise.class, CACHE_SIZE) {
+        @Override
+        long getId(RegularExercise regularExercise) {
+            return regularExercise.id;
+        }
+
+        @Override
+        RegularExercise copy(RegularExercise regularExercise) {
+            return regularExercise.copy();
+        }
+    };
+
+    private ExerciseDao() {}
 
     public Completable insert(final String name, final ExerciseType exerciseType) {
         return insert(new Exercise(exerciseType.getValue(), name));
     }
 
+    /**
+     * Inserts the exercise and the row of its type with the default settings, in one transaction.
+     *
+     * The unique (type, normalizedName) index makes the insert itself the duplicate check, so there
+     * is no separate lookup and no window for two inserts of the same name to both succeed. The
+     * insert is notified once the transaction is committed, so a listener reading the exercise
+     * back from another connection finds it.
+     */
     public Completable insert(final Exercise exercise) {
         return Completable.create(new CompletableOnSubscribe() {
             @Override
-            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                if (exercise.name.length() < 1) {
+            public void subscribe(@NonNull final CompletableEmitter e) throws Exception {
+                exercise.normalizedName = ExerciseName.normalize(exercise.name);
+                if (exercise.normalizedName.isEmpty()) {
                     Timber.d("InvalidExerciseNameException");
                     e.onError(new InvalidExerciseNameException());
-                } else if (!isNameAndTypeValid(exercise.name, exercise.type)) {
-                    Timber.d("ExerciseAlreadyExistsException");
-                    e.onError(new ExerciseAlreadyExistsException());
-                } else {
-                    long exerciseId = exercise.insert();
+                    return;
+                }
 
-                    if (exercise.type == ExerciseType.REACTION.getValue()) {
-                        new ReactionExercise(exerciseId).insert();
+                final boolean[] isInserted = new boolean[1];
+                FlowManager.getDatabase(ExerciseDatabase.class).executeTransaction(new ITransaction() {
+                    @Override
+                    public void execute(DatabaseWrapper databaseWrapper) {
+                        isInserted[0] = insertWithoutNotifying(Exercise.class, exercise, databaseWrapper) != -1;
+                        if (!isInserted[0]) {
+                            return;
+                        }
+
+                        if (exercise.type == ExerciseType.REACTION.getValue()) {
+                            insertWithoutNotifying(ReactionExercise.class, new ReactionExercise(exercise.id),
+                                    databaseWrapper);
+                        } else {
+                            insertWithoutNotifying(RegularExercise.class, new RegularExercise(exercise.id),
+                                    databaseWrapper);
+                        }
                     }
+                });
 
+                if (isInserted[0]) {
+                    notifyChanged(exercise, BaseModel.Action.INSERT);
                     e.onComplete();
+                } else {
+                    Timber.d("ExerciseAlreadyExistsException");
+                    e.onError(new ExerciseAlreadyExistsException());
                 }
             }
         });
@@ -71,33 +147,127 @@ public class ExerciseDao {
     public boolean isNameAndTypeValid(final String name, final int exerciseType) {
         Exercise exercise = SQLite.select()
                 .from(Exercise.class)
-                .where(Exercise_Table.name.eq(name))
+                .where(Exercise_Table.normalizedName.eq(ExerciseName.normalize(name)))
                 .and(Exercise_Table.type.eq(exerciseType))
                 .querySingle();
 
         return exercise == null;
     }
 
-    public Single<Exercise> findById(final long exerciseId) {
-        return Single.create(new SingleOnSubscribe<Exercise>() {
+    /**
+     * Finds the names of all the exercises of the type, for an {@link ExerciseNameTrie}.
+     */
+    public Single<List<String>> findNames(final ExerciseType exerciseType) {
+        return Single.create(new SingleOnSubscribe<List<String>>() {
             @Override
-            public void subscribe(@NonNull SingleEmitter<Exercise> e) throws Exception {
-                Exercise exercise = SQLite.select()
+            public void subscribe(@NonNull SingleEmitter<List<String>> e) throws Exception {
+                List<String> names = new ArrayList<>();
+                FlowCursor cursor = SQLite.select(Exercise_Table.name)
                         .from(Exercise.class)
-                        .where(Exercise_Table.id.eq(exerciseId))
-                        .querySingle();
+                        .where(Exercise_Table.type.eq(exerciseType.getValue()))
+                        .query();
+                try {
+                    while (cursor != null && cursor.moveToNext()) {
+                        names.add(cursor.getString(0));
+                    }
+                } finally {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                }
 
+                e.onSuccess(names);
+            }
+        });
+    }
+
+    /**
+     * Finds the exercise with the settings row of its type, a {@link ReactionExerciseAggregate}
+     * for a reaction exercise. Each row comes from its cache if it is there.
+     */
+    public Single<ExerciseAggregate> findWithSettings(final long exerciseId) {
+        return Single.create(new SingleOnSubscribe<ExerciseAggregate>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<ExerciseAggregate> e) throws Exception {
+                Exercise exercise = cache.get(exerciseId);
                 if (exercise == null) {
+                    long generation = cache.getGeneration();
+                    exercise = SQLite.select()
+                            .from(Exercise.class)
+                            .where(Exercise_Table.id.eq(exerciseId))
+                            .querySingle();
+                    if (exercise != null) {
+                        cache.put(exercise, generation);
+                    }
+                }
+
+                ExerciseAggregate aggregate = exercise != null ? findSettings(exercise) : null;
+                if (aggregate == null) {
                     Timber.d("ExerciseNotFoundException");
                     e.onError(new ExerciseNotFoundException());
                 } else {
                     Timber.d("Exercise found");
-                    e.onSuccess(exercise);
+                    e.onSuccess(aggregate);
                 }
             }
         });
     }
 
+    /**
+     * @return the exercise with the settings row of its type, or null if there is no row
+     */
+    private ExerciseAggregate findSettings(Exercise exercise) {
+        if (exercise.type == ExerciseType.REACTION.getValue()) {
+            ReactionExercise reactionExercise = ReactionExerciseDao.getInstance().find(exercise.id);
+            return reactionExercise != null ? new ReactionExerciseAggregate(exercise, reactionExercise) : null;
+        }
+
+        RegularExercise regularExercise = settingsCache.get(exercise.id);
+        if (regularExercise == null) {
+            long generation = settingsCache.getGeneration();
+            regularExercise = SQLite.select()
+                    .from(RegularExercise.class)
+                    .where(RegularExercise_Table.id.eq(exercise.id))
+                    .querySingle();
+            if (regularExercise == null) {
+                return null;
+            }
+            settingsCache.put(regularExercise, generation);
+        }
+        return new ExerciseAggregate(exercise, regularExercise);
+    }
+
+    public int getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public int getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public void clearCache() {
+        cache.clear();
+        settingsCache.clear();
+    }
+
+    /**
+     * For DAOs that read exercises joined with their own table.
+     */
+    Exercise getCached(long exerciseId) {
+        return cache.get(exerciseId);
+    }
+
+    long getCacheGeneration() {
+        return cache.getGeneration();
+    }
+
+    /**
+     * Caches the exercise read on a miss, see {@link ModelCache#put(Object, long)}.
+     */
+    void putCached(Exercise exercise, long generation) {
+        cache.put(exercise, generation);
+    }
+
     public Single<List<Exercise>> findByType(final ExerciseType exerciseType) {
         return Single.create(new SingleOnSubscribe<List<Exercise>>() {
             @Override
@@ -112,12 +282,140 @@ public class ExerciseDao {
         });
     }
 
-    public Completable update(final Exercise exercise) {
+    /**
+     * Finds the next page of exercises of the type, in id order, without their settings.
+     *
+     * Pages are keyed on the last id of the previous page rather than an offset, so a page is an
+     * index range scan that costs the same however deep into the list it is, and rows inserted or
+     * deleted before it don't shift it.
+     *
+     * @param afterId id of the last exercise of the previous page, or {@link #FIRST_PAGE}
+     */
+    public Single<List<Exercise>> findPage(final ExerciseType exerciseType, final long afterId,
+                                           final int pageSize) {
+        return Single.create(new SingleOnSubscribe<List<Exercise>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<Exercise>> e) throws Exception {
+                List<Exercise> exercises = SQLite.select()
+                        .from(Exercise.class)
+                        .where(Exercise_Table.type.eq(exerciseType.getValue()))
+                        .and(Exercise_Table.id.greaterThan(afterId))
+                        .orderBy(Exercise_Table.id, true)
+                        .limit(pageSize)
+                        .queryList();
+
+                e.onSuccess(exercises);
+            }
+        });
+    }
+
+    /**
+     * Finds the exercises of the type among the ids, without their settings. Ids that were deleted
+     * or are of another type are left out.
+     */
+    public Single<List<Exercise>> findByIds(final ExerciseType exerciseType, final List<Long> exerciseIds) {
+        return Single.create(new SingleOnSubscribe<List<Exercise>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<Exercise>> e) throws Exception {
+                List<Exercise> exercises = SQLite.select()
+                        .from(Exercise.class)
+                        .where(Exercise_Table.type.eq(exerciseType.getValue()))
+                        .and(Exercise_Table.id.in(exerciseIds))
+                        .queryList();
+
+                e.onSuccess(exercises);
+            }
+        });
+    }
+
+    /**
+     * Finds up to limit exercises of the type matching the query, best matches first, without
+     * their settings. A query without words finds nothing. See {@link ExerciseSearch}.
+     */
+    public Single<List<Exercise>> search(final ExerciseType exerciseType, final String query, final int limit) {
+        return Single.create(new SingleOnSubscribe<List<Exercise>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<Exercise>> e) throws Exception {
+                ExerciseSearch search = new ExerciseSearch(query);
+                if (search.isEmpty()) {
+                    e.onSuccess(new ArrayList<Exercise>());
+                    return;
+                }
+
+                // a select like the other finders, so it is read on a read connection
+                List<Exercise> exercises = new StringQuery<>(Exercise.class,
+                        search.getQuery(exerciseType.getValue(), limit))
+                        .setSelectionArgs(search.getArgs())
+                        .queryList();
+
+                e.onSuccess(exercises);
+            }
+        });
+    }
+
+    /**
+     * Emits a change every time exercises of the type are inserted, updated or deleted, until
+     * disposed.
+     *
+     * Changes come from DBFlow's {@link DirectModelNotifier}, on the thread that made the write.
+     * Writes made through a model carry its id, any other write to the table is a table change.
+     * All subscribers of a type share one listener.
+     */
+    public synchronized Observable<ExerciseChange> getChanges(final ExerciseType exerciseType) {
+        Observable<ExerciseChange> observable = changes.get(exerciseType);
+        if (observable == null) {
+            observable = Observable.create(new ObservableOnSubscribe<ExerciseChange>() {
+                @Override
+                public void subscribe(@NonNull final ObservableEmitter<ExerciseChange> e) throws Exception {
+                    final DirectModelNotifier.ModelChangedListener<Exercise> listener =
+                            new DirectModelNotifier.ModelChangedListener<Exercise>() {
+                        @Override
+                        public void onModelChanged(Exercise model, BaseModel.Action action) {
+                            if (model.type == exerciseType.getValue()) {
+                                e.onNext(ExerciseChange.forRow(action, model.id));
+                            }
+                        }
+
+                        @Override
+                        public void onTableChanged(Class<?> tableChanged, BaseModel.Action action) {
+                            e.onNext(ExerciseChange.forTable(action));
+                        }
+                    };
+
+                    DirectModelNotifier.get().registerForModelChanges(Exercise.class, listener);
+                    e.setCancellable(new Cancellable() {
+                        @Override
+                        public void cancel() throws Exception {
+                            DirectModelNotifier.get().unregisterForModelChanges(Exercise.class, listener);
+                        }
+                    });
+                }
+            }).share();
+            changes.put(exerciseType, observable);
+        }
+        return observable;
+    }
+
+    /**
+     * Writes only the columns set on the update, in one transaction, then sets them on the
+     * update's models. Nothing is written if any value was invalid.
+     */
+    public Completable update(final ExerciseColumnUpdate update) {
         return Completable.create(new CompletableOnSubscribe() {
             @Override
             public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                if (isColumnsValid(exercise)) {
-                    exercise.update();
+                if (update.isValid()) {
+                    final boolean[] isUpdated = new boolean[1];
+                    FlowManager.getDatabase(ExerciseDatabase.class).executeTransaction(new ITransaction() {
+                        @Override
+                        public void execute(DatabaseWrapper databaseWrapper) {
+                            isUpdated[0] = write(databaseWrapper, update);
+                        }
+                    });
+                    if (isUpdated[0]) {
+                        update.apply();
+                        notifyUpdated(update);
+                    }
                     e.onComplete();
                 } else {
                     e.onError(new InvalidExerciseColumnsException());
@@ -126,38 +424,126 @@ public class ExerciseDao {
         });
     }
 
-    public boolean isColumnsValid(Exercise exercise) {
-        if (exercise.sets < 1 || exercise.restDuration < 1) {
+    /**
+     * Writes the columns of the update with the database, which may be in a transaction.
+     *
+     * The statements are run directly because DBFlow's update query would notify a change to the
+     * whole table. Nothing is notified, the caller passes the update to {@link #notifyUpdated}
+     * once the write is committed.
+     *
+     * @return true if a row was updated
+     */
+    boolean write(DatabaseWrapper databaseWrapper, ExerciseColumnUpdate update) {
+        if (update.isEmpty()) {
             return false;
         }
-        switch (ExerciseSubType.fromValue(exercise.subType)) {
-            case REPS:
-                if (exercise.reps < 1) {
-                    return false;
-                }
-                break;
-            case TIMED_SETS:
-                if (exercise.setDuration < 1) {
-                    return false;
-                }
-                break;
+
+        long updatedCount = executeUpdate(databaseWrapper, update.getQuery())
+                + executeUpdate(databaseWrapper, update.getSettingsQuery());
+        return updatedCount > 0;
+    }
+
+    /**
+     * Notifies the exercise of a committed update as updated, so listeners get its id even if only
+     * its settings changed.
+     */
+    void notifyUpdated(ExerciseColumnUpdate update) {
+        if (update.hasSettings()) {
+            // the settings row was written without a model, so its cache isn't notified
+            long exerciseId = update.getExercise().id;
+            if (update.isReaction()) {
+                ReactionExerciseDao.getInstance().removeFromCache(exerciseId);
+            } else {
+                settingsCache.remove(exerciseId);
+            }
         }
-        return true;
+        notifyChanged(update.getExercise(), BaseModel.Action.UPDATE);
     }
 
-    public Completable delete(final long exerciseId, final ExerciseType exerciseType) {
+    private static void notifyChanged(Exercise exercise, BaseModel.Action action) {
+        NotifyDistributor.get().notifyModelChanged(exercise,
+                FlowManager.getModelAdapter(Exercise.class), action);
+    }
+
+    /**
+     * Inserts the model like {@link BaseModel#insert(DatabaseWrapper)} but without notifying, for
+     * a transaction that notifies once it is committed.
+     *
+     * @return the row id, or -1 if the insert was ignored
+     */
+    private static <T> long insertWithoutNotifying(Class<T> table, T model, DatabaseWrapper databaseWrapper) {
+        ModelAdapter<T> adapter = FlowManager.getModelAdapter(table);
+        DatabaseStatement statement = adapter.getInsertStatement(databaseWrapper);
+        try {
+            adapter.bindToInsertStatement(statement, model);
+            long id = statement.executeInsert();
+            if (id != -1) {
+                adapter.updateAutoIncrement(model, id);
+            }
+            return id;
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static long executeUpdate(DatabaseWrapper databaseWrapper, String query) {
+        if (query == null) {
+            return 0;
+        }
+
+        DatabaseStatement statement = databaseWrapper.compileStatement(query);
+        try {
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public Completable delete(long exerciseId) {
+        return delete(Collections.singletonList(exerciseId));
+    }
+
+    /**
+     * Deletes the exercises with the ids in one transaction. Their ReactionExercise and
+     * RegularExercise rows are deleted with them by the foreign keys.
+     */
+    public Completable delete(final List<Long> exerciseIds) {
         return Completable.create(new CompletableOnSubscribe() {
             @Override
             public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                SQLite.delete(Exercise.class)
-                        .where(Exercise_Table.id.eq(exerciseId))
-                        .execute();
-
-                if (exerciseType == ExerciseType.REACTION) {
-                    SQLite.delete(ReactionExercise.class)
-                            .where(ReactionExercise_Table.id.eq(exerciseId))
-                            .execute();
+                final List<Exercise> deleted = new ArrayList<>();
+
+                FlowManager.getDatabase(ExerciseDatabase.class).executeTransaction(new ITransaction() {
+                    @Override
+                    public void execute(DatabaseWrapper databaseWrapper) {
+                        // the types tell which list each deleted exercise has to be removed from
+                        deleted.addAll(SQLite.select(Exercise_Table.id, Exercise_Table.type)
+                                .from(Exercise.class)
+                                .where(Exercise_Table.id.in(exerciseIds))
+                                .queryList(databaseWrapper));
+
+                        // run directly so the delete isn't notified as a change to the whole table
+                        DatabaseStatement statement = databaseWrapper.compileStatement(
+                                SQLite.delete(Exercise.class)
+                                        .where(Exercise_Table.id.in(exerciseIds))
+                                        .getQuery());
+                        try {
+                            statement.executeUpdateDelete();
+                        } finally {
+                            statement.close();
+                        }
+                    }
+                });
+
+                ReactionExerciseDao reactionExerciseDao = ReactionExerciseDao.getInstance();
+                for (Exercise exercise: deleted) {
+                    cache.remove(exercise.id);
+                    settingsCache.remove(exercise.id);
+                    reactionExerciseDao.removeFromCache(exercise.id);
+                    NotifyDistributor.get().notifyModelChanged(exercise,
+                            FlowManager.getModelAdapter(Exercise.class), BaseModel.Action.DELETE);
                 }
+                Timber.d("Deleted " + deleted.size() + " exercises");
 
                 e.onComplete();
             }
@@ -6,10 +6,10 @@ import com.raizlabs.android.dbflow.annotation.Database;
  * Created by gene on 7/30/17.
  */
 
-@Database(version = ExerciseDatabase.VERSION)
+@Database(version = ExerciseDatabase.VERSION, foreignKeyConstraintsEnforced = true)
 public class ExerciseDatabase {
 
     public static final String NAME = "ExerciseDatabase";
 
-    public static final int VERSION = 1;
+    public static final int VERSION = 11;
 }
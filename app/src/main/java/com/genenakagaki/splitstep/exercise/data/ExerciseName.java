@@ -0,0 +1,66 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exercise names as they are compared, so "Lateral Shuffle" and "lateral  shuffle " are the same
+ * exercise.
+ *
+ * A name is normalized by turning tabs and line breaks into spaces, collapsing runs of spaces,
+ * trimming and lower casing. Only ASCII letters are lower cased, so that
+ * {@link #toSql(String, String)} computes the same in SQLite, whose lower() may or may not know Unicode.
+ */
+public class ExerciseName {
+
+    /** Collapsing halves a run of spaces each pass, this many passes collapse runs of 64. */
+    private static final int COLLAPSE_PASSES = 6;
+
+    private ExerciseName() {}
+
+    public static String normalize(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean isSpace = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                isSpace = true;
+                continue;
+            }
+
+            if (isSpace && normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            isSpace = false;
+            normalized.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Expressions to set the normalized column to in turn, the first normalizes the spacing of the
+     * name column, the others the case of the normalized column. Split up as SQLite's parser only
+     * takes about 30 nested calls. For names without runs of more than 64 spaces.
+     */
+    public static List<String> toSql(String column, String normalizedColumn) {
+        String spacing = column;
+        for (char c: new char[] { '\t', '\n', '\r' }) {
+            spacing = "replace(" + spacing + ", char(" + (int) c + "), ' ')";
+        }
+        for (int i = 0; i < COLLAPSE_PASSES; i++) {
+            spacing = "replace(" + spacing + ", '  ', ' ')";
+        }
+        return Arrays.asList(
+                "trim(" + spacing + ")",
+                toLowerCaseSql(normalizedColumn, 'A', 'M'),
+                toLowerCaseSql(normalizedColumn, 'N', 'Z'));
+    }
+
+    private static String toLowerCaseSql(String column, char from, char to) {
+        String sql = column;
+        for (char c = from; c <= to; c++) {
+            sql = "replace(" + sql + ", '" + c + "', '" + Character.toLowerCase(c) + "')";
+        }
+        return sql;
+    }
+}
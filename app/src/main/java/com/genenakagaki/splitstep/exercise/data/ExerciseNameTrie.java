@@ -0,0 +1,179 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The names of the exercises of a type by their {@link ExerciseName normalized} name, to check a
+ * name while it is typed without going to the database.
+ *
+ * Each node keeps its children in arrays sorted by character, found by binary search, which takes
+ * a fraction of the memory of a map per node. Names come out in the order of their normalized
+ * names. Not thread safe, build it on one thread before handing it to another.
+ */
+public class ExerciseNameTrie {
+
+    private static final char[] NO_KEYS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static class Node {
+        char[] keys = NO_KEYS;
+        Node[] children = NO_CHILDREN;
+        /** Name of the exercise the path to the node normalizes to, null if none. */
+        String name;
+
+        Node get(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            return i < 0 ? null : children[i];
+        }
+
+        Node getOrAdd(char key) {
+            int i = Arrays.binarySearch(keys, key);
+            if (i >= 0) {
+                return children[i];
+            }
+
+            i = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            newKeys[i] = key;
+            newChildren[i] = new Node();
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[i];
+        }
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    public ExerciseNameTrie(List<String> names) {
+        for (String name: names) {
+            add(name);
+        }
+    }
+
+    /**
+     * Adds the name, unless a name that normalizes the same was added before.
+     */
+    public void add(String name) {
+        Node node = root;
+        String normalized = ExerciseName.normalize(name);
+        for (int i = 0; i < normalized.length(); i++) {
+            node = node.getOrAdd(normalized.charAt(i));
+        }
+        if (node.name == null && node != root) {
+            node.name = name;
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the name that normalizes the same as the name, null if there is none
+     */
+    public String find(String name) {
+        Node node = findNode(ExerciseName.normalize(name));
+        return node == null ? null : node.name;
+    }
+
+    /**
+     * @return up to limit names other than the name itself that start with it once normalized
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> names = new ArrayList<>();
+        String normalized = ExerciseName.normalize(prefix);
+        Node node = findNode(normalized);
+        if (node != null && !normalized.isEmpty()) {
+            for (Node child: node.children) {
+                collect(child, names, limit);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Finds names other than the name itself within maxDistance edits of it once normalized, a
+     * character added, removed or replaced being an edit.
+     *
+     * Walks the trie keeping a row of the edit distance table per node, so names sharing a prefix
+     * share its rows, and leaves a branch once every distance in its row is over maxDistance.
+     *
+     * @return up to limit names, nearest first
+     */
+    public List<String> findSimilar(String name, int maxDistance, int limit) {
+        String normalized = ExerciseName.normalize(name);
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int i = 0; i <= maxDistance; i++) {
+            byDistance.add(new ArrayList<String>());
+        }
+
+        if (!normalized.isEmpty()) {
+            int[] row = new int[normalized.length() + 1];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = i;
+            }
+            for (int i = 0; i < root.keys.length; i++) {
+                findSimilar(root.children[i], root.keys[i], normalized, row, maxDistance, byDistance);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        // distance 0 is the name itself
+        for (int distance = 1; distance <= maxDistance && names.size() < limit; distance++) {
+            List<String> found = byDistance.get(distance);
+            names.addAll(found.subList(0, Math.min(found.size(), limit - names.size())));
+        }
+        return names;
+    }
+
+    private static void findSimilar(Node node, char key, String normalized, int[] previousRow,
+                                    int maxDistance, List<List<String>> byDistance) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        int minDistance = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int replace = previousRow[i - 1] + (normalized.charAt(i - 1) == key ? 0 : 1);
+            row[i] = Math.min(replace, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+            minDistance = Math.min(minDistance, row[i]);
+        }
+
+        int distance = row[row.length - 1];
+        if (node.name != null && distance <= maxDistance) {
+            byDistance.get(distance).add(node.name);
+        }
+        if (minDistance <= maxDistance) {
+            for (int i = 0; i < node.keys.length; i++) {
+                findSimilar(node.children[i], node.keys[i], normalized, row, maxDistance, byDistance);
+            }
+        }
+    }
+
+    private Node findNode(String normalized) {
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.get(normalized.charAt(i));
+        }
+        return node;
+    }
+
+    private static void collect(Node node, List<String> names, int limit) {
+        if (names.size() >= limit) {
+            return;
+        }
+        if (node.name != null) {
+            names.add(node.name);
+        }
+        for (Node child: node.children) {
+            collect(child, names, limit);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.raizlabs.android.dbflow.config.DatabaseDefinition;
+import com.raizlabs.android.dbflow.structure.database.DatabaseHelperListener;
+import com.raizlabs.android.dbflow.structure.database.FlowSQLiteOpenHelper;
+
+/**
+ * Opens the exercise database with write-ahead logging and the pragmas of {@link DatabaseTuning}.
+ *
+ * With WAL, reads get connections of their own and see the last commit while a write is going on,
+ * instead of waiting for it. Android opens those connections itself and below API 30 has no way to
+ * run a pragma on each of them. SQLite applies a setting pragma when the statement is compiled, and
+ * Android compiles anything but a SELECT on the primary connection, the one writes go through. So
+ * the pragmas set up the writes, reads keep SQLite's page cache size. Android's SQLite keeps
+ * temporary tables in memory anyway. The statement cache is set on every connection.
+ */
+public class ExerciseOpenHelper extends FlowSQLiteOpenHelper {
+
+    public ExerciseOpenHelper(DatabaseDefinition databaseDefinition, DatabaseHelperListener listener) {
+        super(databaseDefinition, listener);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // the list pages, the search and the finds each keep a compiled statement per connection
+        db.setMaxSqlCacheSize(SQLiteDatabase.MAX_SQL_CACHE_SIZE);
+
+        for (String pragma: DatabaseTuning.PRAGMAS) {
+            db.execSQL(pragma);
+        }
+        query(db, DatabaseTuning.AUTO_CHECKPOINT);
+    }
+
+    /**
+     * Runs a statement that returns a row, which {@link SQLiteDatabase#execSQL} doesn't allow.
+     */
+    private static void query(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            // the statement only runs once the cursor is read
+            cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
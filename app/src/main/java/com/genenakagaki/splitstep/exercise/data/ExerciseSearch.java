@@ -0,0 +1,79 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-text search over exercise names and notes.
+ *
+ * The ExerciseSearch FTS4 table has a row per exercise, with the exercise's id as its docid, and
+ * is kept in step with Exercise and the tables of the types by triggers, see
+ * {@link com.genenakagaki.splitstep.exercise.data.migration.ExerciseSearchMigration}. It keeps
+ * prefix indexes, so a word being typed is looked up as a range of the index.
+ *
+ * Every word of a query has to start a word of the name or the notes. Exercises whose name has
+ * all of them come first, then those whose name starts with the query, then by name.
+ */
+public class ExerciseSearch {
+
+    public static final String TABLE = "ExerciseSearch";
+
+    /**
+     * Splits text where SQLite's simple tokenizer does, on ASCII characters other than letters and
+     * digits. This also drops the characters of FTS query syntax.
+     */
+    private static final String SEPARATORS = "[\\x00-\\x7F&&[^a-zA-Z0-9]]+";
+
+    private final List<String> words = new ArrayList<>();
+
+    public ExerciseSearch(String query) {
+        for (String word: query.split(SEPARATORS)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+    }
+
+    /**
+     * @return true if the query has no words, which matches nothing
+     */
+    public boolean isEmpty() {
+        return words.isEmpty();
+    }
+
+    /**
+     * @return the query to run for exercises of the type, taking {@link #getArgs()}
+     */
+    public String getQuery(int exerciseType, int limit) {
+        return "SELECT `e`.`id`, `e`.`type`, `e`.`name`, `e`.`subType`, `e`.`favorite`"
+                + " FROM `" + TABLE + "` JOIN `Exercise` `e` ON `e`.`id` = `" + TABLE + "`.`docid`"
+                + " WHERE `" + TABLE + "` MATCH ? AND `e`.`type` = " + exerciseType
+                + " ORDER BY `e`.`id` NOT IN (SELECT `docid` FROM `" + TABLE + "` WHERE `name` MATCH ?),"
+                + " `e`.`name` NOT LIKE ?, `e`.`name` COLLATE NOCASE"
+                + " LIMIT " + limit;
+    }
+
+    public String[] getArgs() {
+        String match = getMatch();
+        // the words only have letters and digits, nothing LIKE would take as a wildcard
+        return new String[] { match, match, join(" ") + "%" };
+    }
+
+    /**
+     * @return each word as a prefix, all of which have to match
+     */
+    String getMatch() {
+        return join("* ") + "*";
+    }
+
+    private String join(String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (String word: words) {
+            if (joined.length() > 0) {
+                joined.append(separator);
+            }
+            joined.append(word);
+        }
+        return joined.toString();
+    }
+}
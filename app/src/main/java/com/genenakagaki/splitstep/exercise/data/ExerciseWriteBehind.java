@@ -0,0 +1,163 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseColumnsException;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
+import com.raizlabs.android.dbflow.structure.database.transaction.ITransaction;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.CompletableOnSubscribe;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import timber.log.Timber;
+
+/**
+ * Write-behind queue for edits made on the detail screen.
+ *
+ * Column updates are merged per exercise id, so an exercise edited many times in a row is written
+ * once, with the latest value of each column edited. Everything pending is written in one
+ * transaction once no edit came in for {@link #QUIET_PERIOD_MILLIS}, or when {@link #flush()} is
+ * called on leaving the screen. An update with an invalid value isn't queued, so as with
+ * {@link ExerciseDao#update} none of it is written, while the edits queued around it still are.
+ * The values are set on the models and notified once the transaction is committed.
+ */
+public class ExerciseWriteBehind {
+
+    public static final long QUIET_PERIOD_MILLIS = 500;
+
+    private static ExerciseWriteBehind instance;
+
+    public static ExerciseWriteBehind getInstance() {
+        if (instance == null) {
+            instance = new ExerciseWriteBehind(DatabaseSchedulers.write());
+        }
+        return instance;
+    }
+
+    private final Scheduler scheduler;
+
+    private final Map<Long, ExerciseColumnUpdate> pendingExercises = new LinkedHashMap<>();
+    private final Map<Long, ReactionExerciseColumnUpdate> pendingReactionExercises = new LinkedHashMap<>();
+    private Disposable flushTimer;
+
+    ExerciseWriteBehind(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public synchronized void update(ExerciseColumnUpdate update) {
+        if (!update.isValid()) {
+            Timber.w(new InvalidExerciseColumnsException(), "Update of exercise "
+                    + update.getExercise().id + " not queued");
+            return;
+        }
+        long exerciseId = update.getExercise().id;
+        ExerciseColumnUpdate pending = pendingExercises.get(exerciseId);
+        if (pending == null) {
+            pendingExercises.put(exerciseId, update);
+        } else {
+            pending.merge(update);
+        }
+        restartFlushTimer();
+    }
+
+    public synchronized void update(ReactionExerciseColumnUpdate update) {
+        if (!update.isValid()) {
+            Timber.w(new InvalidExerciseColumnsException(), "Update of reaction exercise "
+                    + update.getReactionExercise().id + " not queued");
+            return;
+        }
+        long exerciseId = update.getReactionExercise().id;
+        ReactionExerciseColumnUpdate pending = pendingReactionExercises.get(exerciseId);
+        if (pending == null) {
+            pendingReactionExercises.put(exerciseId, update);
+        } else {
+            pending.merge(update);
+        }
+        restartFlushTimer();
+    }
+
+    /**
+     * Writes everything pending now.
+     */
+    public Completable flush() {
+        return Completable.create(new CompletableOnSubscribe() {
+            @Override
+            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
+                writePending();
+                e.onComplete();
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    private void restartFlushTimer() {
+        if (flushTimer != null) {
+            flushTimer.dispose();
+        }
+        flushTimer = scheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                writePending();
+            }
+        }, QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void writePending() {
+        final List<ExerciseColumnUpdate> exercises;
+        final List<ReactionExerciseColumnUpdate> reactionExercises;
+        synchronized (this) {
+            if (flushTimer != null) {
+                flushTimer.dispose();
+                flushTimer = null;
+            }
+            if (pendingExercises.isEmpty() && pendingReactionExercises.isEmpty()) {
+                return;
+            }
+
+            exercises = new ArrayList<>(pendingExercises.values());
+            reactionExercises = new ArrayList<>(pendingReactionExercises.values());
+            pendingExercises.clear();
+            pendingReactionExercises.clear();
+        }
+
+        final ExerciseDao exerciseDao = ExerciseDao.getInstance();
+        final ReactionExerciseDao reactionExerciseDao = ReactionExerciseDao.getInstance();
+        final List<ExerciseColumnUpdate> updatedExercises = new ArrayList<>();
+        final List<ReactionExerciseColumnUpdate> updatedReactionExercises = new ArrayList<>();
+
+        FlowManager.getDatabase(ExerciseDatabase.class).executeTransaction(new ITransaction() {
+            @Override
+            public void execute(DatabaseWrapper databaseWrapper) {
+                for (ExerciseColumnUpdate update: exercises) {
+                    if (exerciseDao.write(databaseWrapper, update)) {
+                        updatedExercises.add(update);
+                    }
+                }
+
+                for (ReactionExerciseColumnUpdate update: reactionExercises) {
+                    if (reactionExerciseDao.write(databaseWrapper, update)) {
+                        updatedReactionExercises.add(update);
+                    }
+                }
+            }
+        });
+
+        for (ExerciseColumnUpdate update: updatedExercises) {
+            update.apply();
+            exerciseDao.notifyUpdated(update);
+        }
+        for (ReactionExerciseColumnUpdate update: updatedReactionExercises) {
+            update.apply();
+            reactionExerciseDao.notifyUpdated(update);
+        }
+        Timber.d("Wrote " + exercises.size() + " exercises and "
+                + reactionExercises.size() + " reaction exercises");
+    }
+}
@@ -0,0 +1,88 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import android.util.LruCache;
+
+import com.raizlabs.android.dbflow.runtime.DirectModelNotifier;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+/**
+ * Size bounded, id keyed cache of the rows a DAO found by id.
+ *
+ * The DAO puts what it reads and removes what it writes. Any other write to the table through a
+ * model removes that row, and a write that didn't go through a model clears the cache. The cache
+ * keeps its own copy of what is put and hands out a new copy on every get, so a caller changing
+ * the model it found, whether or not the change is ever written, changes neither the cache nor
+ * another caller's model.
+ *
+ * A row read on a miss is only put if nothing was removed from the cache since before the read,
+ * see {@link #getGeneration()}. Otherwise a write committed between the read and the put would
+ * leave the old row cached.
+ */
+abstract class ModelCache<T> {
+
+    private final LruCache<Long, T> cache;
+    /** Counts the removes and clears, guarded by this. */
+    private long generation;
+
+    ModelCache(Class<T> table, int maxSize) {
+        cache = new LruCache<>(maxSize);
+
+        DirectModelNotifier.get().registerForModelChanges(table, new DirectModelNotifier.ModelChangedListener<T>() {
+            @Override
+            public void onModelChanged(T model, BaseModel.Action action) {
+                remove(getId(model));
+            }
+
+            @Override
+            public void onTableChanged(Class<?> tableChanged, BaseModel.Action action) {
+                clear();
+            }
+        });
+    }
+
+    abstract long getId(T model);
+
+    abstract T copy(T model);
+
+    /**
+     * @return a copy of the cached model, or null. Counts as a hit or a miss.
+     */
+    T get(long id) {
+        T model = cache.get(id);
+        return model != null ? copy(model) : null;
+    }
+
+    /**
+     * @return the generation to put a row with, read before the row is queried
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Puts the row unless something was removed since the generation was read.
+     */
+    synchronized void put(T model, long generation) {
+        if (generation == this.generation) {
+            cache.put(getId(model), copy(model));
+        }
+    }
+
+    synchronized void remove(long id) {
+        generation++;
+        cache.remove(id);
+    }
+
+    synchronized void clear() {
+        generation++;
+        cache.evictAll();
+    }
+
+    int getHitCount() {
+        return cache.hitCount();
+    }
+
+    int getMissCount() {
+        return cache.missCount();
+    }
+}
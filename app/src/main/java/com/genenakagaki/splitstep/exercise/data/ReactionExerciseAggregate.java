@@ -0,0 +1,20 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+
+/**
+ * A reaction exercise with the exercise row it belongs to, found together by
+ * {@link ReactionExerciseDao#findWithExercise}, so a screen never has one without the other.
+ * The reaction exercise is the settings row of the exercise.
+ */
+public class ReactionExerciseAggregate extends ExerciseAggregate {
+
+    public ReactionExerciseAggregate(Exercise exercise, ReactionExercise reactionExercise) {
+        super(exercise, reactionExercise);
+    }
+
+    public ReactionExercise getReactionExercise() {
+        return (ReactionExercise) getSettings();
+    }
+}
@@ -0,0 +1,113 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise_Table;
+import com.raizlabs.android.dbflow.sql.language.SQLOperator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columns of one reaction exercise to write, see {@link ExerciseColumnUpdate}.
+ */
+public class ReactionExerciseColumnUpdate {
+
+    private final ReactionExercise reactionExercise;
+    private final Map<String, SQLOperator> changes = new LinkedHashMap<>();
+    private boolean isValid = true;
+
+    // the values to set on the reaction exercise once written, null if not set
+    private Integer cones;
+    private Integer repDuration;
+    private final List<ReactionExercise> mergedReactionExercises = new ArrayList<>();
+
+    public ReactionExerciseColumnUpdate(ReactionExercise reactionExercise) {
+        this.reactionExercise = reactionExercise;
+    }
+
+    public ReactionExercise getReactionExercise() {
+        return reactionExercise;
+    }
+
+    public ReactionExerciseColumnUpdate cones(int cones) {
+        if (cones < 2) {
+            return invalid();
+        }
+        this.cones = cones;
+        changes.put("cones", ReactionExercise_Table.cones.eq(cones));
+        return this;
+    }
+
+    public ReactionExerciseColumnUpdate repDuration(int repDuration) {
+        if (repDuration < 1) {
+            return invalid();
+        }
+        this.repDuration = repDuration;
+        changes.put("repDuration", ReactionExercise_Table.repDuration.eq(repDuration));
+        return this;
+    }
+
+    public boolean isValid() {
+        return isValid;
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Adds the columns of a later update of the same reaction exercise, its values win. Only valid
+     * updates are merged, see {@link ExerciseWriteBehind}.
+     */
+    void merge(ReactionExerciseColumnUpdate update) {
+        changes.putAll(update.changes);
+
+        if (update.cones != null) {
+            cones = update.cones;
+        }
+        if (update.repDuration != null) {
+            repDuration = update.repDuration;
+        }
+
+        if (update.reactionExercise != reactionExercise
+                && !mergedReactionExercises.contains(update.reactionExercise)) {
+            mergedReactionExercises.add(update.reactionExercise);
+        }
+        for (ReactionExercise merged: update.mergedReactionExercises) {
+            if (merged != reactionExercise && !mergedReactionExercises.contains(merged)) {
+                mergedReactionExercises.add(merged);
+            }
+        }
+    }
+
+    /**
+     * Sets the values of the update on the reaction exercise, and on the reaction exercises of the
+     * updates merged into it. Called by the DAO once the update is committed.
+     */
+    void apply() {
+        applyTo(reactionExercise);
+        for (ReactionExercise merged: mergedReactionExercises) {
+            applyTo(merged);
+        }
+    }
+
+    private void applyTo(ReactionExercise reactionExercise) {
+        if (cones != null) {
+            reactionExercise.cones = cones;
+        }
+        if (repDuration != null) {
+            reactionExercise.repDuration = repDuration;
+        }
+    }
+
+    SQLOperator[] getChanges() {
+        return changes.values().toArray(new SQLOperator[changes.size()]);
+    }
+
+    private ReactionExerciseColumnUpdate invalid() {
+        isValid = false;
+        return this;
+    }
+}
@@ -1,10 +1,18 @@
 package com.genenakagaki.splitstep.exercise.data;
 
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise_Table;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise_Table;
 import com.genenakagaki.splitstep.exercise.data.exception.ExerciseNotFoundException;
 import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseColumnsException;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.runtime.NotifyDistributor;
 import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+import com.raizlabs.android.dbflow.structure.database.DatabaseStatement;
+import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
+import com.raizlabs.android.dbflow.structure.database.FlowCursor;
 
 import io.reactivex.Completable;
 import io.reactivex.CompletableEmitter;
@@ -20,6 +28,8 @@ import io.reactivex.annotations.NonNull;
 
 public class ReactionExerciseDao {
 
+    private static final int CACHE_SIZE = 32;
+
     private static ReactionExerciseDao instance;
 
     public static ReactionExerciseDao getInstance() {
@@ -29,17 +39,25 @@ public class ReactionExerciseDao {
         return instance;
     }
 
+    private final ModelCache<ReactionExercise> cache = new ModelCache<ReactionExercise>(ReactionExercise.class, CACHE_SIZE) {
+        @Override
+        long getId(ReactionExercise reactionExercise) {
+            return reactionExercise.id;
+        }
+
+        @Override
+        ReactionExercise copy(ReactionExercise reactionExercise) {
+            return reactionExercise.copy();
+        }
+    };
+
     private ReactionExerciseDao() {}
 
     public Single<ReactionExercise> findById(final long exerciseId) {
         return Single.create(new SingleOnSubscribe<ReactionExercise>() {
             @Override
             public void subscribe(@NonNull SingleEmitter<ReactionExercise> e) throws Exception {
-                ReactionExercise reactionExercise = SQLite.select()
-                        .from(ReactionExercise.class)
-                        .where(ReactionExercise_Table.id.eq(exerciseId))
-                        .querySingle();
-
+                ReactionExercise reactionExercise = find(exerciseId);
                 if (reactionExercise == null) {
                     e.onError(new ExerciseNotFoundException());
                 } else {
@@ -49,12 +67,109 @@ public class ReactionExerciseDao {
         });
     }
 
-    public Completable update(final ReactionExercise reactionExercise) {
+    /**
+     * Finds the reaction exercise in the cache, or else reads and caches it.
+     *
+     * @return null if there is no row
+     */
+    ReactionExercise find(long exerciseId) {
+        ReactionExercise reactionExercise = cache.get(exerciseId);
+        if (reactionExercise != null) {
+            return reactionExercise;
+        }
+
+        long generation = cache.getGeneration();
+        reactionExercise = SQLite.select()
+                .from(ReactionExercise.class)
+                .where(ReactionExercise_Table.id.eq(exerciseId))
+                .querySingle();
+        if (reactionExercise != null) {
+            cache.put(reactionExercise, generation);
+        }
+        return reactionExercise;
+    }
+
+    /**
+     * Finds the reaction exercise together with its exercise row.
+     *
+     * Both come from the caches if they are there, otherwise from one query joining the two tables,
+     * so they are read in the same snapshot and a missing row on either side is not found.
+     */
+    public Single<ReactionExerciseAggregate> findWithExercise(final long exerciseId) {
+        return Single.create(new SingleOnSubscribe<ReactionExerciseAggregate>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<ReactionExerciseAggregate> e) throws Exception {
+                ExerciseDao exerciseDao = ExerciseDao.getInstance();
+
+                Exercise exercise = exerciseDao.getCached(exerciseId);
+                ReactionExercise reactionExercise = cache.get(exerciseId);
+                if (exercise != null && reactionExercise != null) {
+                    e.onSuccess(new ReactionExerciseAggregate(exercise, reactionExercise));
+                    return;
+                }
+
+                long exerciseGeneration = exerciseDao.getCacheGeneration();
+                long generation = cache.getGeneration();
+                FlowCursor cursor = SQLite.select()
+                        .from(Exercise.class)
+                        .innerJoin(ReactionExercise.class)
+                        .on(Exercise_Table.id.withTable().eq(ReactionExercise_Table.id.withTable()))
+                        .where(Exercise_Table.id.withTable().eq(exerciseId))
+                        .query();
+
+                try {
+                    if (cursor == null || !cursor.moveToFirst()) {
+                        e.onError(new ExerciseNotFoundException());
+                        return;
+                    }
+
+                    // the row has the columns of both tables, the shared id has the same value
+                    exercise = new Exercise();
+                    FlowManager.getModelAdapter(Exercise.class).loadFromCursor(cursor, exercise);
+                    reactionExercise = new ReactionExercise();
+                    FlowManager.getModelAdapter(ReactionExercise.class).loadFromCursor(cursor, reactionExercise);
+                } finally {
+                    if (cursor != null) {
+                        cursor.close();
+                    }
+                }
+
+                exerciseDao.putCached(exercise, exerciseGeneration);
+                cache.put(reactionExercise, generation);
+                e.onSuccess(new ReactionExerciseAggregate(exercise, reactionExercise));
+            }
+        });
+    }
+
+    public int getCacheHitCount() {
+        return cache.getHitCount();
+    }
+
+    public int getCacheMissCount() {
+        return cache.getMissCount();
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+
+    void removeFromCache(long exerciseId) {
+        cache.remove(exerciseId);
+    }
+
+    /**
+     * Writes only the columns set on the update, then sets them on the update's reaction exercise.
+     * Nothing is written if any value was invalid.
+     */
+    public Completable update(final ReactionExerciseColumnUpdate update) {
         return Completable.create(new CompletableOnSubscribe() {
             @Override
             public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                if (isColumnsValid(reactionExercise)) {
-                    reactionExercise.update();
+                if (update.isValid()) {
+                    if (write(FlowManager.getWritableDatabase(ExerciseDatabase.class), update)) {
+                        update.apply();
+                        notifyUpdated(update);
+                    }
                     e.onComplete();
                 } else {
                     e.onError(new InvalidExerciseColumnsException());
@@ -63,7 +178,39 @@ public class ReactionExerciseDao {
         });
     }
 
-    public boolean isColumnsValid(ReactionExercise reactionExercise) {
-        return reactionExercise.cones >= 2;
+    /**
+     * Writes the columns of the update with the database, which may be in a transaction.
+     *
+     * The statement is run directly because DBFlow's update query would notify a change to the
+     * whole table. Nothing is notified, the caller passes the update to {@link #notifyUpdated}
+     * once the write is committed.
+     *
+     * @return true if the row was updated
+     */
+    boolean write(DatabaseWrapper databaseWrapper, ReactionExerciseColumnUpdate update) {
+        if (update.isEmpty()) {
+            return false;
+        }
+
+        ReactionExercise reactionExercise = update.getReactionExercise();
+        String query = SQLite.update(ReactionExercise.class)
+                .set(update.getChanges())
+                .where(ReactionExercise_Table.id.eq(reactionExercise.id))
+                .getQuery();
+
+        DatabaseStatement statement = databaseWrapper.compileStatement(query);
+        try {
+            return statement.executeUpdateDelete() > 0;
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Notifies the reaction exercise of a committed update as updated, so listeners get its id.
+     */
+    void notifyUpdated(ReactionExerciseColumnUpdate update) {
+        NotifyDistributor.get().notifyModelChanged(update.getReactionExercise(),
+                FlowManager.getModelAdapter(ReactionExercise.class), BaseModel.Action.UPDATE);
     }
 }
@@ -0,0 +1,70 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime_Table;
+import com.raizlabs.android.dbflow.config.FlowManager;
+import com.raizlabs.android.dbflow.sql.language.SQLite;
+import com.raizlabs.android.dbflow.structure.database.transaction.FastStoreModelTransaction;
+
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.CompletableOnSubscribe;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.reactivex.SingleOnSubscribe;
+import io.reactivex.annotations.NonNull;
+
+/**
+ * Stores the reaction times captured on the coach screen.
+ */
+
+public class ReactionTimeDao {
+
+    private static ReactionTimeDao instance;
+
+    public static ReactionTimeDao getInstance() {
+        if (instance == null) {
+            instance = new ReactionTimeDao();
+        }
+        return instance;
+    }
+
+    private ReactionTimeDao() {}
+
+    /**
+     * Inserts every reaction time of a set in one transaction.
+     */
+    public Completable insertAll(final List<ReactionTime> reactionTimes) {
+        return Completable.create(new CompletableOnSubscribe() {
+            @Override
+            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
+                if (!reactionTimes.isEmpty()) {
+                    FlowManager.getDatabase(ExerciseDatabase.class).executeTransaction(
+                            FastStoreModelTransaction
+                                    .insertBuilder(FlowManager.getModelAdapter(ReactionTime.class))
+                                    .addAll(reactionTimes)
+                                    .build());
+                }
+                e.onComplete();
+            }
+        });
+    }
+
+    public Single<List<ReactionTime>> findBySession(final long exerciseId, final long sessionStart) {
+        return Single.create(new SingleOnSubscribe<List<ReactionTime>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<ReactionTime>> e) throws Exception {
+                List<ReactionTime> reactionTimes = SQLite.select()
+                        .from(ReactionTime.class)
+                        .where(ReactionTime_Table.exerciseId.eq(exerciseId))
+                        .and(ReactionTime_Table.sessionStart.eq(sessionStart))
+                        .orderBy(ReactionTime_Table.id, true)
+                        .queryList();
+
+                e.onSuccess(reactionTimes);
+            }
+        });
+    }
+}
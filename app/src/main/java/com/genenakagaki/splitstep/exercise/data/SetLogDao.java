@@ -0,0 +1,111 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.DailySetTotal;
+import com.genenakagaki.splitstep.exercise.data.entity.DailySetTotal_Table;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog_Table;
+import com.genenakagaki.splitstep.exercise.data.entity.WeeklySetTotal;
+import com.genenakagaki.splitstep.exercise.data.entity.WeeklySetTotal_Table;
+import com.raizlabs.android.dbflow.sql.language.SQLite;
+
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.CompletableOnSubscribe;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.reactivex.SingleOnSubscribe;
+import io.reactivex.annotations.NonNull;
+
+/**
+ * Stores the sets finished on the coach screen and reads the history they add up to.
+ *
+ * The history of an exercise is read from its daily and weekly totals, one row per day or week
+ * trained however many sets were logged.
+ */
+
+public class SetLogDao {
+
+    private static SetLogDao instance;
+
+    public static SetLogDao getInstance() {
+        if (instance == null) {
+            instance = new SetLogDao();
+        }
+        return instance;
+    }
+
+    private SetLogDao() {}
+
+    /**
+     * Inserts the set, its totals are added to in the same statement.
+     */
+    public Completable insert(final SetLog setLog) {
+        return Completable.create(new CompletableOnSubscribe() {
+            @Override
+            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
+                setLog.insert();
+                e.onComplete();
+            }
+        });
+    }
+
+    public Single<List<SetLog>> findBySession(final long exerciseId, final long sessionStart) {
+        return Single.create(new SingleOnSubscribe<List<SetLog>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<SetLog>> e) throws Exception {
+                List<SetLog> setLogs = SQLite.select()
+                        .from(SetLog.class)
+                        .where(SetLog_Table.exerciseId.eq(exerciseId))
+                        .and(SetLog_Table.sessionStart.eq(sessionStart))
+                        .orderBy(SetLog_Table.id, true)
+                        .queryList();
+
+                e.onSuccess(setLogs);
+            }
+        });
+    }
+
+    /**
+     * @return the totals of the days trained from the first day to the last one included, oldest
+     * first
+     */
+    public Single<List<DailySetTotal>> findDailyTotals(final long exerciseId, final long fromDay, final long toDay) {
+        return Single.create(new SingleOnSubscribe<List<DailySetTotal>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<DailySetTotal>> e) throws Exception {
+                List<DailySetTotal> totals = SQLite.select()
+                        .from(DailySetTotal.class)
+                        .where(DailySetTotal_Table.exerciseId.eq(exerciseId))
+                        .and(DailySetTotal_Table.day.greaterThanOrEq(fromDay))
+                        .and(DailySetTotal_Table.day.lessThanOrEq(toDay))
+                        .orderBy(DailySetTotal_Table.day, true)
+                        .queryList();
+
+                e.onSuccess(totals);
+            }
+        });
+    }
+
+    /**
+     * @return the totals of the weeks trained starting from the first week to the last one
+     * included, oldest first
+     */
+    public Single<List<WeeklySetTotal>> findWeeklyTotals(final long exerciseId, final long fromWeek, final long toWeek) {
+        return Single.create(new SingleOnSubscribe<List<WeeklySetTotal>>() {
+            @Override
+            public void subscribe(@NonNull SingleEmitter<List<WeeklySetTotal>> e) throws Exception {
+                List<WeeklySetTotal> totals = SQLite.select()
+                        .from(WeeklySetTotal.class)
+                        .where(WeeklySetTotal_Table.exerciseId.eq(exerciseId))
+                        .and(WeeklySetTotal_Table.week.greaterThanOrEq(fromWeek))
+                        .and(WeeklySetTotal_Table.week.lessThanOrEq(toWeek))
+                        .orderBy(WeeklySetTotal_Table.week, true)
+                        .queryList();
+
+                e.onSuccess(totals);
+            }
+        });
+    }
+}
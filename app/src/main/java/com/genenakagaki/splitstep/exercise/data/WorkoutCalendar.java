@@ -0,0 +1,45 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import java.util.TimeZone;
+
+/**
+ * The days and weeks workout history is totalled by.
+ *
+ * A day is the number of days since 1970-01-01 in the time zone the set was finished in, so a
+ * set late in the evening counts for that evening wherever the athlete travels to later. A week
+ * is the day of the Monday starting it. {@link #toWeekSql(String)} computes the week the same way
+ * in SQLite, for the triggers totalling sets by week.
+ */
+public class WorkoutCalendar {
+
+    public static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    /** 1970-01-01 was a Thursday, 3 days after the Monday starting its week. */
+    private static final int EPOCH_WEEK_OFFSET = 3;
+
+    private WorkoutCalendar() {}
+
+    /**
+     * @param time wall clock time in milliseconds
+     */
+    public static long getDay(long time, TimeZone zone) {
+        long local = time + zone.getOffset(time);
+        // rounds down for times before 1970 too
+        return local >= 0 ? local / DAY_MILLIS : (local + 1) / DAY_MILLIS - 1;
+    }
+
+    /**
+     * @param day a day since 1970, as the history is only kept for those
+     * @return the Monday of the week the day is in
+     */
+    public static long getWeek(long day) {
+        return day - (day + EPOCH_WEEK_OFFSET) % 7;
+    }
+
+    /**
+     * @return an expression computing {@link #getWeek(long)} of the day column
+     */
+    public static String toWeekSql(String dayColumn) {
+        return "(" + dayColumn + " - (" + dayColumn + " + " + EPOCH_WEEK_OFFSET + ") % 7)";
+    }
+}
@@ -0,0 +1,31 @@
+package com.genenakagaki.splitstep.exercise.data.entity;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.WorkoutCalendar;
+import com.raizlabs.android.dbflow.annotation.Column;
+import com.raizlabs.android.dbflow.annotation.ForeignKey;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyAction;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyReference;
+import com.raizlabs.android.dbflow.annotation.PrimaryKey;
+import com.raizlabs.android.dbflow.annotation.Table;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+/**
+ * The sets of an exercise finished in one day, added up as each {@link SetLog} is inserted.
+ */
+
+@Table(database = ExerciseDatabase.class)
+public class DailySetTotal extends BaseModel {
+
+    @PrimaryKey
+    @ForeignKey(tableClass = Exercise.class, onDelete = ForeignKeyAction.CASCADE,
+            references = {@ForeignKeyReference(columnName = "exerciseId", foreignKeyColumnName = "id")})
+    public long exerciseId;
+
+    /** {@link WorkoutCalendar#getDay(long, java.util.TimeZone) Day} the sets were finished on. */
+    @PrimaryKey public long day;
+
+    @Column public int sets;
+    @Column public long workMillis;
+    @Column public long restMillis;
+}
@@ -1,16 +1,25 @@
 package com.genenakagaki.splitstep.exercise.data.entity;
 
 import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.ExerciseName;
 import com.raizlabs.android.dbflow.annotation.Column;
+import com.raizlabs.android.dbflow.annotation.ConflictAction;
 import com.raizlabs.android.dbflow.annotation.PrimaryKey;
 import com.raizlabs.android.dbflow.annotation.Table;
 import com.raizlabs.android.dbflow.structure.BaseModel;
 
 /**
+ * (type, normalizedName) is unique, see
+ * {@link com.genenakagaki.splitstep.exercise.data.migration.NormalizedNameMigration}. An insert
+ * that would duplicate it is ignored and returns -1. The constructors normalize the name, set
+ * normalizedName again when changing it.
+ *
+ * The table only has what the exercise list shows. The settings are only stored in the table of
+ * the exercise's type, see {@link ExerciseSettings}.
+ *
  * Created by gene on 7/25/17.
  */
-
-@Table(database = ExerciseDatabase.class)
+@Table(database = ExerciseDatabase.class, insertConflict = ConflictAction.IGNORE)
 public class Exercise extends BaseModel {
 
     @PrimaryKey(autoincrement = true)
@@ -19,23 +28,16 @@ public class Exercise extends BaseModel {
     @Column public int type;
     @Column public String name;
     @Column public int subType;
-    @Column public int sets;
-    @Column public int reps;
-    @Column public int setDuration;
-    @Column public int restDuration;
     @Column public boolean favorite;
-    @Column public String notes;
+    @Column public String normalizedName;
 
     public Exercise() {}
 
     public Exercise(int type, String name) {
         this.type = type;
         this.name = name;
+        normalizedName = ExerciseName.normalize(name);
         subType = 1;
-        sets = 3;
-        reps = 10;
-        setDuration = 30;
-        restDuration = 60;
         favorite = false;
     }
 
@@ -43,10 +45,18 @@ public class Exercise extends BaseModel {
         this.type = type;
         this.subType = subType;
         this.name = name;
-        sets = 3;
-        reps = 10;
-        setDuration = 30;
-        restDuration = 60;
+        normalizedName = ExerciseName.normalize(name);
         favorite = false;
     }
+
+    public Exercise copy() {
+        Exercise copy = new Exercise();
+        copy.id = id;
+        copy.type = type;
+        copy.name = name;
+        copy.subType = subType;
+        copy.favorite = favorite;
+        copy.normalizedName = normalizedName;
+        return copy;
+    }
 }
@@ -0,0 +1,36 @@
+package com.genenakagaki.splitstep.exercise.data.entity;
+
+import com.raizlabs.android.dbflow.annotation.Column;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+/**
+ * The settings every exercise has. They are only stored in the table of the exercise's type,
+ * {@link RegularExercise} or {@link ReactionExercise}, which extend this, never on the
+ * {@link Exercise} row.
+ */
+public abstract class ExerciseSettings extends BaseModel {
+
+    @Column public int sets;
+    @Column public int reps;
+    @Column public int setDuration;
+    @Column public int restDuration;
+    @Column public String notes;
+
+    /**
+     * Sets the settings a new exercise starts with.
+     */
+    protected void setDefaultSettings() {
+        sets = 3;
+        reps = 10;
+        setDuration = 30;
+        restDuration = 60;
+    }
+
+    protected void copySettingsTo(ExerciseSettings settings) {
+        settings.sets = sets;
+        settings.reps = reps;
+        settings.setDuration = setDuration;
+        settings.restDuration = restDuration;
+        settings.notes = notes;
+    }
+}
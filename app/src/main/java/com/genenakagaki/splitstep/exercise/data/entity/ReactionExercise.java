@@ -3,10 +3,10 @@ package com.genenakagaki.splitstep.exercise.data.entity;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
 import com.raizlabs.android.dbflow.annotation.Column;
 import com.raizlabs.android.dbflow.annotation.ForeignKey;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyAction;
 import com.raizlabs.android.dbflow.annotation.ForeignKeyReference;
 import com.raizlabs.android.dbflow.annotation.PrimaryKey;
 import com.raizlabs.android.dbflow.annotation.Table;
-import com.raizlabs.android.dbflow.structure.BaseModel;
 
 /**
  * Created by gene on 4/18/17.
@@ -14,10 +14,10 @@ import com.raizlabs.android.dbflow.structure.BaseModel;
 
 
 @Table(database = ExerciseDatabase.class)
-public class ReactionExercise extends BaseModel {
+public class ReactionExercise extends ExerciseSettings {
 
     @PrimaryKey
-    @ForeignKey(tableClass = Exercise.class,
+    @ForeignKey(tableClass = Exercise.class, onDelete = ForeignKeyAction.CASCADE,
             references = {@ForeignKeyReference(columnName = "id", foreignKeyColumnName = "id")})
     public long id;
 
@@ -30,12 +30,19 @@ public class ReactionExercise extends BaseModel {
         this.id = id;
         this.cones = 2;
         this.repDuration = 10;
+        setDefaultSettings();
     }
 
     public ReactionExercise(long id, int cones, int repDuration) {
         this.id = id;
         this.cones = cones;
         this.repDuration = repDuration;
+        setDefaultSettings();
     }
-}
 
+    public ReactionExercise copy() {
+        ReactionExercise copy = new ReactionExercise(id, cones, repDuration);
+        copySettingsTo(copy);
+        return copy;
+    }
+}
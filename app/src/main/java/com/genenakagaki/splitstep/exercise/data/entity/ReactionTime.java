@@ -0,0 +1,57 @@
+package com.genenakagaki.splitstep.exercise.data.entity;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Column;
+import com.raizlabs.android.dbflow.annotation.ForeignKey;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyAction;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyReference;
+import com.raizlabs.android.dbflow.annotation.PrimaryKey;
+import com.raizlabs.android.dbflow.annotation.Table;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+/**
+ * One cone of a reaction drill and how fast the athlete got to it.
+ *
+ * Times are milliseconds on the coach clock less the time the workout was paused, only meaningful
+ * relative to each other.
+ */
+
+@Table(database = ExerciseDatabase.class)
+public class ReactionTime extends BaseModel {
+
+    public static final long NO_RESPONSE = -1;
+
+    @PrimaryKey(autoincrement = true)
+    public long id;
+
+    @ForeignKey(tableClass = Exercise.class, onDelete = ForeignKeyAction.CASCADE,
+            references = {@ForeignKeyReference(columnName = "exerciseId", foreignKeyColumnName = "id")})
+    public long exerciseId;
+
+    /** Wall clock time the session started at, shared by every row of the session. */
+    @Column public long sessionStart;
+    @Column public int setNumber;
+    @Column public int cone;
+    @Column public long stimulusTime;
+    @Column public long responseTime;
+
+    public ReactionTime() {}
+
+    public ReactionTime(long exerciseId, long sessionStart, int setNumber, int cone,
+                        long stimulusTime, long responseTime) {
+        this.exerciseId = exerciseId;
+        this.sessionStart = sessionStart;
+        this.setNumber = setNumber;
+        this.cone = cone;
+        this.stimulusTime = stimulusTime;
+        this.responseTime = responseTime;
+    }
+
+    public boolean hasResponse() {
+        return responseTime != NO_RESPONSE;
+    }
+
+    public long getReactionMillis() {
+        return hasResponse() ? responseTime - stimulusTime : NO_RESPONSE;
+    }
+}
@@ -0,0 +1,56 @@
+package com.genenakagaki.splitstep.exercise.data.entity;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.WorkoutCalendar;
+import com.raizlabs.android.dbflow.annotation.Column;
+import com.raizlabs.android.dbflow.annotation.ForeignKey;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyAction;
+import com.raizlabs.android.dbflow.annotation.ForeignKeyReference;
+import com.raizlabs.android.dbflow.annotation.PrimaryKey;
+import com.raizlabs.android.dbflow.annotation.Table;
+import com.raizlabs.android.dbflow.structure.BaseModel;
+
+/**
+ * One finished set of a workout, inserted when the set ends and never changed.
+ *
+ * Inserting a set adds it to the {@link DailySetTotal} and {@link WeeklySetTotal} of its exercise,
+ * through the triggers of
+ * {@link com.genenakagaki.splitstep.exercise.data.migration.WorkoutHistoryMigration}. History is
+ * read from the totals, the log is only read a session at a time.
+ */
+
+@Table(database = ExerciseDatabase.class)
+public class SetLog extends BaseModel {
+
+    @PrimaryKey(autoincrement = true)
+    public long id;
+
+    @ForeignKey(tableClass = Exercise.class, onDelete = ForeignKeyAction.CASCADE,
+            references = {@ForeignKeyReference(columnName = "exerciseId", foreignKeyColumnName = "id")})
+    public long exerciseId;
+
+    /** Wall clock time the session started at, shared by every set of the session. */
+    @Column public long sessionStart;
+    @Column public int setNumber;
+    /** Time spent in the set, pauses left out. */
+    @Column public long workMillis;
+    /** Time spent resting before the set, 0 for the first set of a session. */
+    @Column public long restMillis;
+    /** Wall clock time the set was finished at. */
+    @Column public long completedAt;
+    /** {@link WorkoutCalendar#getDay(long, java.util.TimeZone) Day} the set was finished on. */
+    @Column public long day;
+
+    public SetLog() {}
+
+    public SetLog(long exerciseId, long sessionStart, int setNumber, long workMillis, long restMillis,
+                  long completedAt, long day) {
+        this.exerciseId = exerciseId;
+        this.sessionStart = sessionStart;
+        this.setNumber = setNumber;
+        this.workMillis = workMillis;
+        this.restMillis = restMillis;
+        this.completedAt = completedAt;
+        this.day = day;
+    }
+}
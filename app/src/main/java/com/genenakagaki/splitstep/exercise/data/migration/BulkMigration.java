@@ -0,0 +1,45 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.raizlabs.android.dbflow.sql.migration.BaseMigration;
+import com.raizlabs.android.dbflow.structure.database.DatabaseWrapper;
+
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * A migration made of plain SQL statements, run in order in the one transaction DBFlow opens for
+ * all pending migrations.
+ *
+ * Statements work on whole tables (UPDATE ... WHERE, INSERT ... SELECT) rather than rewriting rows
+ * through models, so an upgrade is a few statements however many exercises there are. Being plain
+ * SQL, the same statements are run on the JVM by the migration tests and benchmarks.
+ *
+ * When the database is created its tables already have the latest schema, so only migrations that
+ * {@link #isRunOnCreate() run on create} are run then, the others are for upgrades.
+ */
+public abstract class BulkMigration extends BaseMigration {
+
+    public abstract List<String> getStatements();
+
+    /**
+     * @return true to also run when the database is created, for what the tables can't declare
+     */
+    public boolean isRunOnCreate() {
+        return false;
+    }
+
+    @Override
+    public void migrate(DatabaseWrapper database) {
+        // the version is only set once the database is created or upgraded
+        if (database.getVersion() == 0 && !isRunOnCreate()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (String statement: getStatements()) {
+            database.execSQL(statement);
+        }
+        Timber.d(getClass().getSimpleName() + " took " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+}
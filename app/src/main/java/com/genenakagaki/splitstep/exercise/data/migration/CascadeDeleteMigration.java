@@ -0,0 +1,45 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes deleting an exercise delete its ReactionExercise and RegularExercise rows.
+ *
+ * SQLite can't alter a foreign key, so both tables are created again with ON DELETE CASCADE and
+ * their rows copied over. Rows left behind by deletes before this migration are not copied.
+ */
+
+@Migration(version = CascadeDeleteMigration.VERSION, database = ExerciseDatabase.class)
+public class CascadeDeleteMigration extends BulkMigration {
+
+    public static final int VERSION = 5;
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        rebuild(statements, "ReactionExercise",
+                "`id` INTEGER, `cones` INTEGER, `repDuration` INTEGER",
+                "`id`, `cones`, `repDuration`");
+
+        rebuild(statements, "RegularExercise",
+                "`id` INTEGER, `subType` INTEGER DEFAULT 1, `reps` INTEGER DEFAULT 1,"
+                        + " `sets` INTEGER DEFAULT 1, `restDuration` INTEGER DEFAULT 1",
+                "`id`, `subType`, `reps`, `sets`, `restDuration`");
+        return statements;
+    }
+
+    private static void rebuild(List<String> statements, String table, String columnDefinitions, String columns) {
+        String newTable = table + "_new";
+
+        statements.add("CREATE TABLE `" + newTable + "`(" + columnDefinitions + ", PRIMARY KEY(`id`),"
+                + " FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        statements.add("INSERT INTO `" + newTable + "`(" + columns + ") SELECT " + columns
+                + " FROM `" + table + "` WHERE `id` IN (SELECT `id` FROM `Exercise`)");
+        statements.add("DROP TABLE `" + table + "`");
+        statements.add("ALTER TABLE `" + newTable + "` RENAME TO `" + table + "`");
+    }
+}
@@ -0,0 +1,35 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates the indexes upgrades add, the search table with its triggers and the triggers totalling
+ * the workout history, when the database is created. DBFlow runs the migrations of version 0 on
+ * create.
+ */
+
+@Migration(version = CreateIndexesMigration.VERSION, database = ExerciseDatabase.class)
+public class CreateIndexesMigration extends BulkMigration {
+
+    public static final int VERSION = 0;
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add(NormalizedNameMigration.CREATE_INDEX);
+        statements.add(ExerciseTypeIndexMigration.CREATE_INDEX);
+        statements.add(ReactionTimeCascadeMigration.CREATE_INDEX);
+        statements.addAll(ExerciseSearchMigration.createStatements());
+        statements.addAll(WorkoutHistoryMigration.createStatements());
+        return statements;
+    }
+
+    @Override
+    public boolean isRunOnCreate() {
+        return true;
+    }
+}
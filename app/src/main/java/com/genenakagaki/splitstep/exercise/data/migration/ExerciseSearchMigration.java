@@ -0,0 +1,69 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.ExerciseSearch;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the {@link ExerciseSearch} table, filled with the name and notes of every exercise, and
+ * the triggers that keep it in step.
+ *
+ * An exercise is added to the search when inserted and removed when deleted. The notes are set
+ * when the row of its type is inserted, the ones of the types are deleted with the exercise.
+ * Dropping a table drops its triggers, a migration that rebuilds Exercise, RegularExercise or
+ * ReactionExercise has to create them again.
+ */
+
+@Migration(version = ExerciseSearchMigration.VERSION, database = ExerciseDatabase.class)
+public class ExerciseSearchMigration extends BulkMigration {
+
+    public static final int VERSION = 7;
+
+    private static final String TABLE = "`" + ExerciseSearch.TABLE + "`";
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.addAll(createStatements());
+        statements.add("INSERT INTO " + TABLE + "(`docid`, `name`, `notes`)"
+                + " SELECT `e`.`id`, `e`.`name`, COALESCE(`r`.`notes`, `x`.`notes`) FROM `Exercise` `e`"
+                + " LEFT JOIN `RegularExercise` `r` ON `r`.`id` = `e`.`id`"
+                + " LEFT JOIN `ReactionExercise` `x` ON `x`.`id` = `e`.`id`");
+        return statements;
+    }
+
+    /**
+     * @return the statements creating the empty table and its triggers
+     */
+    static List<String> createStatements() {
+        List<String> statements = new ArrayList<>();
+        // prefix indexes for words being typed, longer prefixes are narrow enough without
+        statements.add("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE
+                + " USING fts4(`name`, `notes`, prefix=\"2,3\")");
+
+        statements.add("CREATE TRIGGER IF NOT EXISTS `ExerciseSearch_insert` AFTER INSERT ON `Exercise`"
+                + " BEGIN INSERT INTO " + TABLE + "(`docid`, `name`) VALUES (NEW.`id`, NEW.`name`); END");
+        statements.add("CREATE TRIGGER IF NOT EXISTS `ExerciseSearch_update` AFTER UPDATE OF `name` ON `Exercise`"
+                + " WHEN OLD.`name` IS NOT NEW.`name`"
+                + " BEGIN UPDATE " + TABLE + " SET `name` = NEW.`name` WHERE `docid` = NEW.`id`; END");
+        statements.add("CREATE TRIGGER IF NOT EXISTS `ExerciseSearch_delete` AFTER DELETE ON `Exercise`"
+                + " BEGIN DELETE FROM " + TABLE + " WHERE `docid` = OLD.`id`; END");
+
+        addNotesTriggers(statements, "RegularExercise");
+        addNotesTriggers(statements, "ReactionExercise");
+        return statements;
+    }
+
+    private static void addNotesTriggers(List<String> statements, String table) {
+        String setNotes = " BEGIN UPDATE " + TABLE + " SET `notes` = NEW.`notes` WHERE `docid` = NEW.`id`; END";
+
+        statements.add("CREATE TRIGGER IF NOT EXISTS `ExerciseSearch_" + table + "_insert`"
+                + " AFTER INSERT ON `" + table + "` WHEN NEW.`notes` IS NOT NULL" + setNotes);
+        // updates write every column, only notes that changed are indexed again
+        statements.add("CREATE TRIGGER IF NOT EXISTS `ExerciseSearch_" + table + "_update`"
+                + " AFTER UPDATE OF `notes` ON `" + table + "` WHEN OLD.`notes` IS NOT NEW.`notes`" + setNotes);
+    }
+}
@@ -0,0 +1,81 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the settings of each exercise from the Exercise table to the table of its type, so the
+ * Exercise table only has what the list shows.
+ *
+ * The settings are first copied aside, without foreign keys, so the old tables can be dropped
+ * without dropping an exercise cascading to them. Exercise is created again with only its own
+ * columns, then RegularExercise and ReactionExercise with the settings. A reaction exercise
+ * missing its ReactionExercise row gets the default cones and rep duration.
+ */
+
+@Migration(version = ExerciseSettingsMigration.VERSION, database = ExerciseDatabase.class)
+public class ExerciseSettingsMigration extends BulkMigration {
+
+    public static final int VERSION = 6;
+
+    private static final String SETTINGS = "`sets`, `reps`, `setDuration`, `restDuration`, `notes`";
+
+    private static final String SETTING_DEFINITIONS =
+            "`sets` INTEGER, `reps` INTEGER, `setDuration` INTEGER, `restDuration` INTEGER, `notes` TEXT";
+
+    private static final String EXERCISE_COLUMNS = "`id`, `type`, `name`, `subType`, `favorite`";
+
+    private static final String REACTION_COLUMNS = "`id`, `cones`, `repDuration`, " + SETTINGS;
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+
+        statements.add("CREATE TABLE `RegularExercise_settings`(`id` INTEGER, " + SETTING_DEFINITIONS + ")");
+        statements.add("INSERT INTO `RegularExercise_settings`(`id`, " + SETTINGS + ")"
+                + " SELECT `id`, " + SETTINGS + " FROM `Exercise`"
+                + " WHERE `type` = " + ExerciseType.REGULAR_VALUE);
+
+        statements.add("CREATE TABLE `ReactionExercise_settings`(`id` INTEGER, `cones` INTEGER,"
+                + " `repDuration` INTEGER, " + SETTING_DEFINITIONS + ")");
+        statements.add("INSERT INTO `ReactionExercise_settings`(" + REACTION_COLUMNS + ")"
+                + " SELECT `e`.`id`, COALESCE(`r`.`cones`, 2), COALESCE(`r`.`repDuration`, 10),"
+                + " `e`.`sets`, `e`.`reps`, `e`.`setDuration`, `e`.`restDuration`, `e`.`notes`"
+                + " FROM `Exercise` `e` LEFT JOIN `ReactionExercise` `r` ON `r`.`id` = `e`.`id`"
+                + " WHERE `e`.`type` = " + ExerciseType.REACTION_VALUE);
+
+        statements.add("DROP TABLE `RegularExercise`");
+        statements.add("DROP TABLE `ReactionExercise`");
+
+        statements.add("CREATE TABLE `Exercise_new`(`id` INTEGER PRIMARY KEY AUTOINCREMENT, `type` INTEGER,"
+                + " `name` TEXT, `subType` INTEGER, `favorite` INTEGER)");
+        statements.add("INSERT INTO `Exercise_new`(" + EXERCISE_COLUMNS + ")"
+                + " SELECT " + EXERCISE_COLUMNS + " FROM `Exercise`");
+        // keep ids of deleted exercises from being used again
+        statements.add("DELETE FROM sqlite_sequence WHERE `name` = 'Exercise_new'");
+        statements.add("INSERT INTO sqlite_sequence(`name`, `seq`)"
+                + " SELECT 'Exercise_new', `seq` FROM sqlite_sequence WHERE `name` = 'Exercise'");
+        statements.add("DROP TABLE `Exercise`");
+        statements.add("ALTER TABLE `Exercise_new` RENAME TO `Exercise`");
+        statements.add(UniqueExerciseNameMigration.CREATE_INDEX);
+        statements.add(ExerciseTypeIndexMigration.CREATE_INDEX);
+
+        copyBack(statements, "RegularExercise", "`id` INTEGER, " + SETTING_DEFINITIONS, "`id`, " + SETTINGS);
+        copyBack(statements, "ReactionExercise",
+                "`id` INTEGER, `cones` INTEGER, `repDuration` INTEGER, " + SETTING_DEFINITIONS, REACTION_COLUMNS);
+        return statements;
+    }
+
+    private static void copyBack(List<String> statements, String table, String columnDefinitions, String columns) {
+        String settingsTable = table + "_settings";
+
+        statements.add("CREATE TABLE `" + table + "`(" + columnDefinitions + ", PRIMARY KEY(`id`),"
+                + " FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        statements.add("INSERT INTO `" + table + "`(" + columns + ") SELECT " + columns + " FROM `" + settingsTable + "`");
+        statements.add("DROP TABLE `" + settingsTable + "`");
+    }
+}
@@ -0,0 +1,29 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adds an index on type for the paged list query.
+ *
+ * An index entry ends with the row's id, so the index keeps each type's exercises in id order and
+ * a page is a range scan starting right after the previous page's last id.
+ */
+
+@Migration(version = ExerciseTypeIndexMigration.VERSION, database = ExerciseDatabase.class)
+public class ExerciseTypeIndexMigration extends BulkMigration {
+
+    public static final int VERSION = 4;
+
+    public static final String INDEX_NAME = "index_exercise_type";
+
+    static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS `" + INDEX_NAME + "` ON `Exercise` (`type`)";
+
+    @Override
+    public List<String> getStatements() {
+        return Collections.singletonList(CREATE_INDEX);
+    }
+}
@@ -0,0 +1,40 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.ExerciseName;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the normalizedName column and makes (type, normalizedName) unique in place of
+ * (type, name), so names differing only in case or spacing are duplicates too.
+ */
+
+@Migration(version = NormalizedNameMigration.VERSION, database = ExerciseDatabase.class)
+public class NormalizedNameMigration extends BulkMigration {
+
+    public static final int VERSION = 8;
+
+    public static final String INDEX_NAME = "index_exercise_type_normalized_name";
+
+    static final String CREATE_INDEX = "CREATE UNIQUE INDEX IF NOT EXISTS `" + INDEX_NAME + "`"
+            + " ON `Exercise` (`type`, `normalizedName`)";
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("ALTER TABLE `Exercise` ADD COLUMN `normalizedName` TEXT");
+        for (String normalize: ExerciseName.toSql("`name`", "`normalizedName`")) {
+            statements.add("UPDATE `Exercise` SET `normalizedName` = " + normalize);
+        }
+        // keep the oldest exercise and rename the others, the suffix is normalized already
+        statements.add("UPDATE `Exercise` SET `name` = `name` || ' (' || `id` || ')',"
+                + " `normalizedName` = `normalizedName` || ' (' || `id` || ')'"
+                + " WHERE `id` NOT IN (SELECT MIN(`id`) FROM `Exercise` GROUP BY `type`, `normalizedName`)");
+        statements.add("DROP INDEX IF EXISTS `" + UniqueExerciseNameMigration.INDEX_NAME + "`");
+        statements.add(CREATE_INDEX);
+        return statements;
+    }
+}
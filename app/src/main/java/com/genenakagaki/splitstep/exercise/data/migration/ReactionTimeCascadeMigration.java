@@ -0,0 +1,47 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes deleting an exercise delete its reaction times, and indexes them by session.
+ *
+ * SQLite can't add a foreign key, so the table is created again with ON DELETE CASCADE and its
+ * rows copied over. Rows left behind by exercises deleted before this migration are not copied.
+ */
+
+@Migration(version = ReactionTimeCascadeMigration.VERSION, database = ExerciseDatabase.class)
+public class ReactionTimeCascadeMigration extends BulkMigration {
+
+    public static final int VERSION = 10;
+
+    public static final String INDEX_NAME = "index_reactiontime_exercise_session";
+
+    static final String CREATE_INDEX = "CREATE INDEX IF NOT EXISTS `" + INDEX_NAME + "`"
+            + " ON `ReactionTime`(`exerciseId`, `sessionStart`)";
+
+    private static final String COLUMNS =
+            "`id`, `exerciseId`, `sessionStart`, `setNumber`, `cone`, `stimulusTime`, `responseTime`";
+
+    @Override
+    public List<String> getStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE TABLE `ReactionTime_new`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `exerciseId` INTEGER, `sessionStart` INTEGER, `setNumber` INTEGER, `cone` INTEGER,"
+                + " `stimulusTime` INTEGER, `responseTime` INTEGER,"
+                + " FOREIGN KEY(`exerciseId`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        statements.add("INSERT INTO `ReactionTime_new`(" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM `ReactionTime` WHERE `exerciseId` IN (SELECT `id` FROM `Exercise`)");
+        // keep ids of deleted rows from being used again
+        statements.add("DELETE FROM sqlite_sequence WHERE `name` = 'ReactionTime_new'");
+        statements.add("INSERT INTO sqlite_sequence(`name`, `seq`)"
+                + " SELECT 'ReactionTime_new', `seq` FROM sqlite_sequence WHERE `name` = 'ReactionTime'");
+        statements.add("DROP TABLE `ReactionTime`");
+        statements.add("ALTER TABLE `ReactionTime_new` RENAME TO `ReactionTime`");
+        statements.add(CREATE_INDEX);
+        return statements;
+    }
+}
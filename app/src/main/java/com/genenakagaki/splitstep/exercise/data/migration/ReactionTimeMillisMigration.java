@@ -0,0 +1,29 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converts reaction times stored as nanoseconds to milliseconds, the unit of the coach clock they
+ * are recorded on now. Only the difference between the two times of a row means anything, so
+ * dividing both keeps the reaction time.
+ */
+
+@Migration(version = ReactionTimeMillisMigration.VERSION, database = ExerciseDatabase.class)
+public class ReactionTimeMillisMigration extends BulkMigration {
+
+    public static final int VERSION = 11;
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    @Override
+    public List<String> getStatements() {
+        return Collections.singletonList("UPDATE `ReactionTime`"
+                + " SET `stimulusTime` = `stimulusTime` / " + NANOS_PER_MILLI + ","
+                + " `responseTime` = CASE WHEN `responseTime` = -1 THEN -1"
+                + " ELSE `responseTime` / " + NANOS_PER_MILLI + " END");
+    }
+}
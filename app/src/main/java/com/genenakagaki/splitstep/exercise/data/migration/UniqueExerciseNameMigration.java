@@ -0,0 +1,31 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Adds the unique index on (type, name) that inserts rely on to reject duplicates.
+ */
+
+@Migration(version = UniqueExerciseNameMigration.VERSION, database = ExerciseDatabase.class)
+public class UniqueExerciseNameMigration extends BulkMigration {
+
+    public static final int VERSION = 3;
+
+    public static final String INDEX_NAME = "index_exercise_type_name";
+
+    static final String CREATE_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS `" + INDEX_NAME + "` ON `Exercise` (`type`, `name`)";
+
+    @Override
+    public List<String> getStatements() {
+        return Arrays.asList(
+                // the old check-then-insert could race, keep the oldest exercise and rename the others
+                "UPDATE `Exercise` SET `name` = `name` || ' (' || `id` || ')'"
+                        + " WHERE `id` NOT IN (SELECT MIN(`id`) FROM `Exercise` GROUP BY `type`, `name`)",
+                CREATE_INDEX);
+    }
+}
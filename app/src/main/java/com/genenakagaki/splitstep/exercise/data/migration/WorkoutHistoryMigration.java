@@ -0,0 +1,56 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.WorkoutCalendar;
+import com.genenakagaki.splitstep.exercise.data.entity.DailySetTotal;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+import com.genenakagaki.splitstep.exercise.data.entity.WeeklySetTotal;
+import com.raizlabs.android.dbflow.annotation.Migration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adds the triggers adding each {@link SetLog} to the {@link DailySetTotal} and
+ * {@link WeeklySetTotal} of its exercise, and the index the log of a session is read by. DBFlow
+ * creates the tables, there is no history to fill them with yet.
+ *
+ * A total is inserted empty by the first set of its day or week and then added to, as old
+ * versions of SQLite have no upsert. Sets are never deleted on their own, the totals are deleted
+ * with the exercise like the log.
+ */
+
+@Migration(version = WorkoutHistoryMigration.VERSION, database = ExerciseDatabase.class)
+public class WorkoutHistoryMigration extends BulkMigration {
+
+    public static final int VERSION = 9;
+
+    public static final String INDEX_NAME = "index_setlog_exercise_session";
+
+    @Override
+    public List<String> getStatements() {
+        return createStatements();
+    }
+
+    /**
+     * @return the statements creating the index and the triggers
+     */
+    static List<String> createStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add("CREATE INDEX IF NOT EXISTS `" + INDEX_NAME + "`"
+                + " ON `SetLog`(`exerciseId`, `sessionStart`)");
+        addTotalTrigger(statements, "DailySetTotal", "day", "NEW.`day`");
+        addTotalTrigger(statements, "WeeklySetTotal", "week", WorkoutCalendar.toWeekSql("NEW.`day`"));
+        return statements;
+    }
+
+    private static void addTotalTrigger(List<String> statements, String table, String keyColumn, String key) {
+        statements.add("CREATE TRIGGER IF NOT EXISTS `" + table + "_insert` AFTER INSERT ON `SetLog` BEGIN"
+                + " INSERT OR IGNORE INTO `" + table + "`(`exerciseId`, `" + keyColumn + "`, `sets`,"
+                + " `workMillis`, `restMillis`) VALUES (NEW.`exerciseId`, " + key + ", 0, 0, 0);"
+                + " UPDATE `" + table + "` SET `sets` = `sets` + 1,"
+                + " `workMillis` = `workMillis` + NEW.`workMillis`, `restMillis` = `restMillis` + NEW.`restMillis`"
+                + " WHERE `exerciseId` = NEW.`exerciseId` AND `" + keyColumn + "` = " + key + ";"
+                + " END");
+    }
+}
@@ -0,0 +1,74 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Single tick source for every timer on the coach screen.
+ *
+ * Timers are expressed as deadlines on the {@link TimeSource} and the remaining time is computed
+ * from the deadline on every tick, so a late tick (thread hop, GC pause) never accumulates into
+ * drift. Both the time source and the scheduler running ticks and deadlines can be injected, so a
+ * whole workout can be fast-forwarded with a {@code TestScheduler}.
+ */
+public class CoachClock {
+
+    public static final long TICK_PERIOD_MILLIS = 100;
+
+    private static final long SECOND_MILLIS = 1000;
+
+    private final TimeSource timeSource;
+    private final Scheduler scheduler;
+    private final Observable<Long> ticks;
+
+    public CoachClock() {
+        this(TimeSource.ELAPSED_REALTIME, Schedulers.computation());
+    }
+
+    public CoachClock(TimeSource timeSource, Scheduler scheduler) {
+        this.timeSource = timeSource;
+        this.scheduler = scheduler;
+
+        ticks = Observable.interval(0, TICK_PERIOD_MILLIS, TimeUnit.MILLISECONDS, scheduler)
+                .map(new Function<Long, Long>() {
+                    @Override
+                    public Long apply(@NonNull Long aLong) throws Exception {
+                        return now();
+                    }
+                })
+                .share();
+    }
+
+    public long now() {
+        return timeSource.now();
+    }
+
+    /**
+     * Emits the current time on every tick while at least one subscriber is attached.
+     */
+    public Observable<Long> getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Runs the task once the clock reaches the deadline.
+     */
+    public Disposable schedule(Runnable task, long deadline) {
+        return scheduler.scheduleDirect(
+                task, Math.max(deadline - now(), 0), TimeUnit.MILLISECONDS);
+    }
+
+    public static int getRemainingSeconds(long deadline, long now) {
+        long remainingMillis = deadline - now;
+        if (remainingMillis <= 0) {
+            return 0;
+        }
+        return (int) ((remainingMillis + SECOND_MILLIS - 1) / SECOND_MILLIS);
+    }
+}
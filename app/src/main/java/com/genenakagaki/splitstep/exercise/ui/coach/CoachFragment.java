@@ -1,23 +1,19 @@
 package com.genenakagaki.splitstep.exercise.ui.coach;
 
-import android.animation.ObjectAnimator;
-import android.media.Ringtone;
-import android.media.RingtoneManager;
-import android.net.Uri;
-import android.os.Build;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ServiceConnection;
 import android.os.Bundle;
+import android.os.IBinder;
 import android.support.annotation.Nullable;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentManager;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
-import android.view.animation.LinearInterpolator;
 import android.widget.Button;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
-import android.widget.ProgressBar;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
@@ -25,13 +21,16 @@ import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
+import com.genenakagaki.splitstep.exercise.ui.view.CoachDialView;
 
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import butterknife.Unbinder;
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 
 /**
@@ -44,18 +43,10 @@ public abstract class CoachFragment extends Fragment {
     RelativeLayout mContentLayout;
     @BindView(R.id.exercise_name_textview)
     TextView mExerciseNameTextView;
-    @BindView(R.id.sets_progressbar)
-    ProgressBar mSetsProgressBar;
-    @BindView(R.id.rest_progressbar)
-    ProgressBar mRestProgressBar;
-    @BindView(R.id.timed_set_progressbar)
-    ProgressBar mTimedSetProgressBar;
-    @BindView(R.id.main_progressbar_container)
-    LinearLayout mMainProgressBarContainer;
+    @BindView(R.id.coach_dial)
+    CoachDialView mDialView;
     @BindView(R.id.sets_progress_text)
     TextView mSetsProgressText;
-    @BindView(R.id.main_progress_text)
-    TextView mMainProgressText;
     @BindView(R.id.main_progress_top_text)
     TextView mMainProgressTopText;
     @BindView(R.id.done_button)
@@ -72,8 +63,24 @@ public abstract class CoachFragment extends Fragment {
     private CoachViewModel mViewModel;
     private ReversedProgressViewModel mSetsProgressViewModel;
     private TimerViewModel mRestTimerViewModel;
+    private WorkoutService mService;
+    private boolean mIsBound;
+    private int mRenderedIndex = -1;
+    private boolean mRenderedPaused;
+    private CoachFrameLoop mFrameLoop;
+
+    private final ServiceConnection mServiceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            mService = ((WorkoutService.LocalBinder) binder).getService();
+            CoachFragment.this.onServiceConnected();
+        }
 
-    private Ringtone mAlarm;
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            mService = null;
+        }
+    };
 
     public CoachFragment() {
     }
@@ -83,9 +90,6 @@ public abstract class CoachFragment extends Fragment {
         super.onCreate(savedInstanceState);
 
         mViewModel = new CoachViewModel(getActivity(), ExerciseSharedPref.getExerciseId(getActivity()));
-
-        Uri notification = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-        mAlarm = RingtoneManager.getRingtone(getActivity(), notification);
     }
 
     @Nullable
@@ -94,31 +98,12 @@ public abstract class CoachFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_coach, container, false);
         mUnbinder = ButterKnife.bind(this, view);
 
-        mOverlayTextView.setText(Integer.toString(3));
+        mOverlayTextView.setText(DurationFormat.getNumber(WorkoutTimelineCompiler.COUNT_DOWN_SECONDS));
 
-        mContentLayout.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+        mFrameLoop = new CoachFrameLoop(new CoachFrameLoop.Listener() {
             @Override
-            public void onGlobalLayout() {
-                // Adjust views
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-                    mContentLayout.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-                } else {
-                    mContentLayout.getViewTreeObserver().removeGlobalOnLayoutListener(this);
-                }
-
-                int size = mTimedSetProgressBar.getWidth();
-                mTimedSetProgressBar.setLayoutParams(new RelativeLayout.LayoutParams(size, size));
-                mRestProgressBar.setLayoutParams(new RelativeLayout.LayoutParams(size, size));
-
-                RelativeLayout.LayoutParams layoutParams = new RelativeLayout.LayoutParams(
-                        (int) (size / 1.1f), (int) (size / 1.1f));
-                layoutParams.addRule(RelativeLayout.CENTER_IN_PARENT, RelativeLayout.TRUE);
-                mDoneButton.setLayoutParams(layoutParams);
-                mCompleteLayout.setLayoutParams(layoutParams);
-
-                size = mSetsProgressBar.getWidth();
-                FrameLayout.LayoutParams frameLayoutParams = new FrameLayout.LayoutParams(size, size);
-                mSetsProgressBar.setLayoutParams(frameLayoutParams);
+            public void onFrame(int index, int remaining) {
+                CoachFragment.this.onFrame(index, remaining);
             }
         });
 
@@ -129,55 +114,30 @@ public abstract class CoachFragment extends Fragment {
     public void onResume() {
         super.onResume();
         mDisposable = new CompositeDisposable();
+        mRenderedIndex = -1;
+        mRenderedPaused = false;
 
-        mDisposable.add(mViewModel.getStartCountDown()
-                .subscribe(new Consumer<Long>() {
-                    @Override
-                    public void accept(Long aLong) throws Exception {
-                        mOverlayTextView.setText(Long.toString(aLong));
-                    }
-                }, new Consumer<Throwable>() {
-                    @Override
-                    public void accept(Throwable throwable) throws Exception {
-                    }
-                }, new Action() {
-                    @Override
-                    public void run() throws Exception {
-                        mOverlay.setVisibility(View.GONE);
-                        startExerciseSet();
-                    }
-                }));
-
-        mDisposable.add(mViewModel.loadExercise().subscribe(new Consumer<Exercise>() {
-            @Override
-            public void accept(Exercise exercise) throws Exception {
-                mExerciseNameTextView.setText(exercise.name);
-
-                mSetsProgressViewModel = new ReversedProgressViewModel(exercise.sets, 0);
-                mSetsProgressBar.setMax(mSetsProgressViewModel.getMax());
-                mDisposable.add(mSetsProgressViewModel.getProgress().subscribe(new Consumer<Integer>() {
-                    @Override
-                    public void accept(Integer integer) throws Exception {
-                        mSetsProgressText.setText(mSetsProgressViewModel.getDisplayProgress());
-                        animateProgress(mSetsProgressBar, integer, mSetsProgressViewModel.getAnimateDuration());
-                    }
-                }));
-
-                mRestTimerViewModel = new TimerViewModel(
-                        new DurationDisplayable(DurationDisplayable.TYPE_REST_DURATION, exercise.restDuration));
-                mRestProgressBar.setMax(mRestTimerViewModel.getMax());
-
-                setupExerciseSet();
-            }
-        }));
+        mIsBound = getActivity().bindService(WorkoutService.createIntent(getActivity()),
+                mServiceConnection, Context.BIND_AUTO_CREATE);
     }
 
     @Override
     public void onPause() {
         super.onPause();
+        mFrameLoop.stop();
         if (mDisposable != null && !mDisposable.isDisposed()) {
             mDisposable.dispose();
         }
+
+        // the workout only ends when the screen is left, not when it is hidden
+        if (mService != null && (isRemoving() || getActivity().isFinishing())) {
+            mService.stopWorkout();
+        }
+        if (mIsBound) {
+            getActivity().unbindService(mServiceConnection);
+            mIsBound = false;
+        }
+        mService = null;
     }
 
     @Override
@@ -194,52 +154,174 @@ public abstract class CoachFragment extends Fragment {
 
     @OnClick(R.id.complete_layout)
     public void onClickComplete() {
+        // every set was logged by the service as it finished
         FragmentManager fm = getFragmentManager();
         FragmentManager.BackStackEntry stack = fm.getBackStackEntryAt(0);
         fm.popBackStack(stack.getId(), FragmentManager.POP_BACK_STACK_INCLUSIVE);
     }
 
-    public void onFinishExerciseSet() {
-        mSetsProgressViewModel.incrementProgressBy(1);
+    @OnClick(R.id.done_button)
+    public void onClickDone() {
+        mDoneButton.setVisibility(View.INVISIBLE);
+        WorkoutScheduler scheduler = getScheduler();
+        if (scheduler != null) {
+            scheduler.skip();
+        }
+    }
+
+    protected Single<WorkoutTimeline> loadTimeline() {
+        return mViewModel.loadTimeline();
+    }
 
-        if (mSetsProgressViewModel.isFinished()) {
-            mCompleteLayout.setVisibility(View.VISIBLE);
-        } else {
-            mRestProgressBar.setProgress(mRestTimerViewModel.getMax());
-            animateProgress(mRestProgressBar, 0, mRestTimerViewModel.getAnimateDuration());
-            mMainProgressText.setText(mRestTimerViewModel.getTimerDisplay());
+    /**
+     * @return the cones called by the rep cues, once the timeline is loaded.
+     */
+    protected int getConeCount() {
+        return 0;
+    }
 
-            mDisposable.add(mRestTimerViewModel.startTimer().subscribe(new Consumer<String>() {
-                @Override
-                public void accept(String s) throws Exception {
-                    mMainProgressText.setText(s);
+    private void onServiceConnected() {
+        mDisposable.add(loadTimeline().subscribe(new Consumer<WorkoutTimeline>() {
+            @Override
+            public void accept(WorkoutTimeline timeline) throws Exception {
+                if (mService == null) {
+                    return;
                 }
-            }, new Consumer<Throwable>() {
-                @Override
-                public void accept(Throwable throwable) throws Exception {
+
+                Exercise exercise = mViewModel.getExercise();
+                if (!mService.isRunning(exercise.id)) {
+                    mService.startWorkout(exercise.id, exercise.name, timeline, getConeCount());
                 }
-            }, new Action() {
-                @Override
-                public void run() throws Exception {
-                    startExerciseSet();
+                attach(mService.getScheduler().getTimeline());
+            }
+        }));
+    }
+
+    /**
+     * Sets up the views for the running workout and renders its snapshots until paused.
+     */
+    private void attach(WorkoutTimeline timeline) {
+        Exercise exercise = mViewModel.getExercise();
+        mExerciseNameTextView.setText(exercise.name);
+
+        mSetsProgressViewModel = new ReversedProgressViewModel(timeline.getSetCount(), 0);
+        mDialView.setSetsMax(mSetsProgressViewModel.getMax());
+        mDisposable.add(mSetsProgressViewModel.getProgress().subscribe(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer integer) throws Exception {
+                mSetsProgressText.setText(mSetsProgressViewModel.getDisplayProgress());
+                mDialView.setSetsProgress(integer);
+            }
+        }));
+
+        mRestTimerViewModel = new TimerViewModel(
+                new DurationDisplayable(DurationDisplayable.TYPE_REST_DURATION,
+                        mViewModel.getSettings().restDuration));
+        mDialView.setRestMax(mRestTimerViewModel.getMax());
+
+        setupExerciseSet(timeline);
+
+        mDisposable.add(mService.getSnapshots()
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<WorkoutSnapshot>() {
+                    @Override
+                    public void accept(WorkoutSnapshot snapshot) throws Exception {
+                        render(snapshot);
+                    }
+                }));
+        mFrameLoop.start(mService.getClock(), mService.getScheduler());
+    }
+
+    private void render(WorkoutSnapshot snapshot) {
+        if (snapshot.index != mRenderedIndex) {
+            onPhaseStarted(snapshot.index);
+            mRenderedIndex = snapshot.index;
+            mFrameLoop.invalidate();
+        }
+        if (snapshot.isPaused != mRenderedPaused) {
+            mRenderedPaused = snapshot.isPaused;
+            mFrameLoop.invalidate();
+        }
+        onRemainingSecondsChanged(snapshot.index, snapshot.remainingSeconds);
+    }
+
+    private void onPhaseStarted(int index) {
+        WorkoutTimeline timeline = getScheduler().getTimeline();
+        mSetsProgressViewModel.setProgress(timeline.getFinishedSets(index));
+
+        switch (timeline.getPhase(index)) {
+            case WorkoutTimeline.PHASE_COUNT_DOWN:
+                mOverlay.setVisibility(View.VISIBLE);
+                break;
+            case WorkoutTimeline.PHASE_SET:
+            case WorkoutTimeline.PHASE_REP_CUE:
+                mOverlay.setVisibility(View.GONE);
+                mDialView.setRestVisible(false);
+                if (!isSetRendered(timeline, index)) {
+                    startExerciseSet(index);
+                }
+                if (timeline.getPhase(index) == WorkoutTimeline.PHASE_REP_CUE) {
+                    onRepCue(index);
                 }
-            }));
+                break;
+            case WorkoutTimeline.PHASE_REST:
+                mOverlay.setVisibility(View.GONE);
+                finishExerciseSet();
+                mDialView.setRestVisible(true);
+                mRestTimerViewModel.reset();
+                mDialView.setText(mRestTimerViewModel.getTimerDisplay());
+                break;
+            case WorkoutTimeline.PHASE_DONE:
+                mOverlay.setVisibility(View.GONE);
+                finishExerciseSet();
+                mDialView.setRestVisible(false);
+                mCompleteLayout.setVisibility(View.VISIBLE);
+                break;
         }
     }
 
-    public void animateProgress(ProgressBar progressBar, int progress, long duration) {
-        if (android.os.Build.VERSION.SDK_INT < 11) {
-            progressBar.setProgress(progress);
-        } else {
-            ObjectAnimator animation = ObjectAnimator.ofInt(progressBar, "progress", progress);
-            animation.setDuration(duration);
-            animation.setInterpolator(new LinearInterpolator());
-            animation.start();
+    /**
+     * @return true if the set the phase belongs to is already on screen, false when the set
+     * starts or when the screen attaches in the middle of it.
+     */
+    private boolean isSetRendered(WorkoutTimeline timeline, int index) {
+        if (mRenderedIndex < 0 || timeline.isSetStart(index)
+                || timeline.getSet(mRenderedIndex) != timeline.getSet(index)) {
+            return false;
         }
+        int phase = timeline.getPhase(mRenderedIndex);
+        return phase == WorkoutTimeline.PHASE_SET || phase == WorkoutTimeline.PHASE_REP_CUE;
     }
 
-    public void playAlarm() {
-        mAlarm.play();
+    private void onRemainingSecondsChanged(int index, int remainingSeconds) {
+        switch (getScheduler().getTimeline().getPhase(index)) {
+            case WorkoutTimeline.PHASE_COUNT_DOWN:
+                if (remainingSeconds > 0) {
+                    mOverlayTextView.setText(DurationFormat.getNumber(remainingSeconds));
+                }
+                break;
+            case WorkoutTimeline.PHASE_REST:
+                if (remainingSeconds > 0) {
+                    mRestTimerViewModel.setRemainingSeconds(remainingSeconds);
+                    mDialView.setText(mRestTimerViewModel.getTimerDisplay());
+                }
+                break;
+            case WorkoutTimeline.PHASE_SET:
+                onSetRemainingSecondsChanged(remainingSeconds);
+                break;
+        }
+    }
+
+    private void onFrame(int index, int remaining) {
+        switch (getScheduler().getTimeline().getPhase(index)) {
+            case WorkoutTimeline.PHASE_REST:
+                mDialView.setRestProgress(remaining);
+                break;
+            case WorkoutTimeline.PHASE_SET:
+            case WorkoutTimeline.PHASE_REP_CUE:
+                mDialView.setTimedSetProgress(remaining);
+                break;
+        }
     }
 
     public CoachViewModel getViewModel() {
@@ -250,6 +332,24 @@ public abstract class CoachFragment extends Fragment {
         return mDisposable;
     }
 
-    public abstract void setupExerciseSet();
-    public abstract void startExerciseSet();
+    public WorkoutScheduler getScheduler() {
+        return mService != null ? mService.getScheduler() : null;
+    }
+
+    /**
+     * @return the service running the workout, or null while not bound.
+     */
+    protected WorkoutService getService() {
+        return mService;
+    }
+
+    public abstract void setupExerciseSet(WorkoutTimeline timeline);
+    public abstract void startExerciseSet(int index);
+    public abstract void finishExerciseSet();
+
+    public void onRepCue(int index) {
+    }
+
+    public void onSetRemainingSecondsChanged(int remainingSeconds) {
+    }
 }
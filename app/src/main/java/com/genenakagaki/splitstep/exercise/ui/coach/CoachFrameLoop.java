@@ -0,0 +1,106 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import android.view.Choreographer;
+
+/**
+ * Renders the progress of the current rest or timed set once per vsync, straight from the
+ * {@link CoachClock}, so the progress always agrees with the numbers on screen.
+ *
+ * Nothing is allocated per frame and the scheduler's lock is never taken, each frame reads the
+ * {@link WorkoutSpan} it publishes. The listener is only called when the value shown actually
+ * changes, and the loop stops posting frames while the workout is paused or the phase has no end,
+ * e.g. a set of reps, until {@link #invalidate()} is called.
+ */
+public class CoachFrameLoop implements Choreographer.FrameCallback {
+
+    public interface Listener {
+        /**
+         * @param index the index of the current phase
+         * @param remaining the hundredths of a second left in the rest or timed set, matching
+         *                  {@link TimerViewModel#getMax()}
+         */
+        void onFrame(int index, int remaining);
+    }
+
+    private static final long RESOLUTION_MILLIS = 10;
+
+    private final Choreographer choreographer;
+    private final Listener listener;
+
+    private CoachClock clock;
+    private WorkoutScheduler scheduler;
+    private boolean isRunning;
+    private boolean isPosted;
+    private int lastIndex;
+    private int lastRemaining;
+
+    /**
+     * Must be created on the main thread.
+     */
+    public CoachFrameLoop(Listener listener) {
+        this.listener = listener;
+        choreographer = Choreographer.getInstance();
+    }
+
+    public void start(CoachClock clock, WorkoutScheduler scheduler) {
+        this.clock = clock;
+        this.scheduler = scheduler;
+        isRunning = true;
+        lastIndex = -1;
+        lastRemaining = -1;
+        post();
+    }
+
+    public void stop() {
+        isRunning = false;
+        if (isPosted) {
+            choreographer.removeFrameCallback(this);
+            isPosted = false;
+        }
+        clock = null;
+        scheduler = null;
+    }
+
+    /**
+     * Resumes the loop after the phase changed or the workout was paused or resumed.
+     */
+    public void invalidate() {
+        if (isRunning) {
+            post();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        isPosted = false;
+        if (!isRunning) {
+            return;
+        }
+
+        WorkoutSpan span = scheduler.getSpan();
+        long remainingMillis = span.getRemainingMillis(clock.now());
+        if (remainingMillis == WorkoutTimeline.UNBOUNDED) {
+            // nothing moves until the next phase
+            return;
+        }
+
+        int remaining = (int) ((remainingMillis + RESOLUTION_MILLIS - 1) / RESOLUTION_MILLIS);
+        if (span.index != lastIndex || remaining != lastRemaining) {
+            lastIndex = span.index;
+            lastRemaining = remaining;
+            listener.onFrame(span.index, remaining);
+        }
+
+        // a paused span was drawn once where it stopped
+        if (span.isCountingDown()) {
+            post();
+        }
+    }
+
+    private void post() {
+        if (!isPosted) {
+            choreographer.postFrameCallback(this);
+            isPosted = true;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import java.util.Random;
+
+/**
+ * Generates the whole cone sequence of a reaction drill up front.
+ *
+ * Cones are drawn from a bag holding every cone once, so each cone comes up the same number of
+ * times give or take one. A cone is never drawn more than {@code maxRunLength} times in a row. The
+ * same seed always gives the same sequence.
+ */
+public class ConeSequenceGenerator {
+
+    /** Max run length that forbids the same cone twice in a row. */
+    public static final int NO_IMMEDIATE_REPEAT = 1;
+
+    private final int coneCount;
+    private final long seed;
+    private final int maxRunLength;
+
+    /**
+     * @param coneCount number of cones, cones are numbered from 1
+     * @param seed seed of the random sequence
+     * @param maxRunLength max number of times the same cone can come up in a row
+     */
+    public ConeSequenceGenerator(int coneCount, long seed, int maxRunLength) {
+        if (coneCount < 1) {
+            throw new IllegalArgumentException("coneCount must be at least 1");
+        }
+        if (maxRunLength < 1) {
+            throw new IllegalArgumentException("maxRunLength must be at least 1");
+        }
+        this.coneCount = coneCount;
+        this.seed = seed;
+        this.maxRunLength = maxRunLength;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int[] generate(int length) {
+        int[] sequence = new int[length];
+        if (length == 0) {
+            return sequence;
+        }
+
+        Random random = new Random(seed);
+        int[] bag = new int[coneCount];
+        int bagSize = 0;
+
+        int lastCone = 0;
+        int runLength = 0;
+
+        for (int i = 0; i < length; i++) {
+            if (bagSize == 0) {
+                bagSize = refill(bag);
+            }
+
+            // a single cone can't avoid repeating itself
+            int blockedCone = runLength >= maxRunLength && coneCount > 1 ? lastCone : 0;
+            int allowed = bagSize - (blockedCone > 0 ? bag[blockedCone - 1] : 0);
+            if (allowed == 0) {
+                bagSize += refill(bag);
+                allowed = bagSize - bag[blockedCone - 1];
+            }
+
+            int pick = random.nextInt(allowed);
+            int cone = 0;
+            for (int c = 0; c < coneCount; c++) {
+                if (c + 1 == blockedCone) {
+                    continue;
+                }
+                if (pick < bag[c]) {
+                    cone = c + 1;
+                    break;
+                }
+                pick -= bag[c];
+            }
+
+            bag[cone - 1]--;
+            bagSize--;
+
+            runLength = cone == lastCone ? runLength + 1 : 1;
+            lastCone = cone;
+            sequence[i] = cone;
+        }
+
+        return sequence;
+    }
+
+    private int refill(int[] bag) {
+        for (int c = 0; c < coneCount; c++) {
+            bag[c]++;
+        }
+        return coneCount;
+    }
+}
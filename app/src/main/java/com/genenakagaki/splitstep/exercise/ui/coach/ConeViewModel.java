@@ -1,32 +1,39 @@
 package com.genenakagaki.splitstep.exercise.ui.coach;
 
-import io.reactivex.Single;
-import io.reactivex.SingleEmitter;
-import io.reactivex.SingleOnSubscribe;
-import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.annotations.NonNull;
-import io.reactivex.schedulers.Schedulers;
-
 /**
  * Created by Gene on 10/3/2017.
  */
 
 public class ConeViewModel {
 
-    private int coneCount;
+    private final long seed;
+    private final int[] cones;
+
+    public ConeViewModel(int coneCount, int cueCount) {
+        this(coneCount, cueCount, System.currentTimeMillis());
+    }
+
+    /**
+     * @param seed the session start of the workout, which is stored with every reaction time of
+     *             the session, so its cones can be generated again
+     */
+    public ConeViewModel(int coneCount, int cueCount, long seed) {
+        this.seed = seed;
+
+        // with only 2 cones, never repeating would just alternate
+        int maxRunLength = coneCount > 2 ? ConeSequenceGenerator.NO_IMMEDIATE_REPEAT : 2;
+        cones = new ConeSequenceGenerator(coneCount, seed, maxRunLength).generate(cueCount);
+    }
 
-    public ConeViewModel(int coneCount) {
-        this.coneCount = coneCount;
+    public long getSeed() {
+        return seed;
     }
 
-    public Single<Integer> getNextCone() {
-        return Single.create(new SingleOnSubscribe<Integer>() {
-            @Override
-            public void subscribe(@NonNull SingleEmitter<Integer> e) throws Exception {
-                int nextCone = (int) (Math.random() * coneCount + 1);
-                e.onSuccess(nextCone);
-            }
-        }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+    /**
+     * @param cue the cue ordinal from {@link WorkoutTimeline#getCue(int)}
+     * @return the cone to run to, from 1 to the cone count
+     */
+    public int getCone(int cue) {
+        return cones[cue];
     }
 }
@@ -0,0 +1,299 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import android.annotation.TargetApi;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTimestamp;
+import android.media.AudioTrack;
+import android.os.Build;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Scheduler;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+import timber.log.Timber;
+
+/**
+ * Plays the audio cues of a workout against the deadlines of the {@link WorkoutScheduler}.
+ *
+ * Every cue is a short PCM beep synthesized once and preloaded into a static {@link AudioTrack},
+ * so firing a cue is only a restart of an already loaded buffer. Cues are fired from the clock's
+ * deadline callbacks, not from UI callbacks, and played on a thread of their own so starting the
+ * audio never holds up the scheduler. The beeps of a count down follow the scheduler's own
+ * deadlines, so pausing or leaving the count down stops them.
+ *
+ * Two delays are recorded per cue: how late the play call was after the scheduled time, and the
+ * output latency from the play call to the first frame coming out, read from the track's
+ * timestamp, or from its playback head before KitKat. Their sum is how late the cue was heard.
+ * The latency is read by short delayed tasks, so a cue due meanwhile is played first.
+ */
+public class CueEngine {
+
+    public static final int CUE_COUNT_DOWN = 0;
+    /** Start of a set, which is also the end of a rest. */
+    public static final int CUE_SET_START = 1;
+    public static final int CUE_SET_END = 2;
+    public static final int CUE_NEXT_CONE = 3;
+    public static final int CUE_DONE = 4;
+
+    private static final int CUE_COUNT = 5;
+    private static final int[] CUE_FREQUENCIES = {440, 880, 660, 1320, 990};
+    private static final int[] CUE_DURATIONS_MILLIS = {80, 300, 300, 60, 600};
+    private static final int FADE_MILLIS = 5;
+
+    private static final long MILLI_NANOS = 1000000;
+    private static final long SECOND_NANOS = 1000000000;
+
+    /** How long to wait for the first frame of a cue to be played before giving up measuring it. */
+    private static final long MEASURE_TIMEOUT_MILLIS = 100;
+    private static final long MEASURE_POLL_MILLIS = 5;
+    private static final long NOT_MEASURED = -1;
+
+    private final CoachClock clock;
+    private final int sampleRate;
+    // only touched on the audio thread
+    private final AudioTrack[] tracks = new AudioTrack[CUE_COUNT];
+    /** {@link System#nanoTime()} each track was last played at, for the measure of that play. */
+    private final long[] playTimes = new long[CUE_COUNT];
+    private AudioTimestamp timestamp;
+    private final ExecutorService audioExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final Scheduler audioScheduler = Schedulers.from(audioExecutor);
+
+    private int cueCount;
+    private long totalDelayMillis;
+    private long maxDelayMillis;
+    private int measuredCount;
+    private long totalOutputLatencyMillis;
+    private long maxOutputLatencyMillis;
+
+    public CueEngine(CoachClock clock) {
+        this.clock = clock;
+
+        sampleRate = AudioTrack.getNativeOutputSampleRate(AudioManager.STREAM_MUSIC);
+        for (int i = 0; i < CUE_COUNT; i++) {
+            tracks[i] = createTrack(sampleRate, CUE_FREQUENCIES[i], CUE_DURATIONS_MILLIS[i]);
+        }
+    }
+
+    /**
+     * Fires the cues of every phase the scheduler enters until the returned disposable is
+     * disposed.
+     */
+    public Disposable attach(final WorkoutScheduler scheduler) {
+        CompositeDisposable disposable = new CompositeDisposable();
+        disposable.add(scheduler.getPhaseSubject().subscribe(new Consumer<Integer>() {
+            @Override
+            public void accept(@NonNull Integer index) throws Exception {
+                onPhaseStarted(scheduler, index);
+            }
+        }));
+        disposable.add(scheduler.getCountDownSubject().subscribe(new Consumer<Long>() {
+            @Override
+            public void accept(@NonNull Long beepTime) throws Exception {
+                playOnAudioThread(CUE_COUNT_DOWN, beepTime);
+            }
+        }));
+        return disposable;
+    }
+
+    public void play(int cue) {
+        playOnAudioThread(cue, clock.now());
+    }
+
+    public synchronized int getCueCount() {
+        return cueCount;
+    }
+
+    /**
+     * @return how late the play call was after the scheduled time, on average
+     */
+    public synchronized long getAverageDelayMillis() {
+        return cueCount == 0 ? 0 : totalDelayMillis / cueCount;
+    }
+
+    public synchronized long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * @return time from the play call to the first frame coming out, on average over the cues
+     * it could be measured for
+     */
+    public synchronized long getAverageOutputLatencyMillis() {
+        return measuredCount == 0 ? 0 : totalOutputLatencyMillis / measuredCount;
+    }
+
+    public synchronized long getMaxOutputLatencyMillis() {
+        return maxOutputLatencyMillis;
+    }
+
+    public void release() {
+        audioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Timber.d("Cues: count " + getCueCount()
+                        + ", delay average " + getAverageDelayMillis() + "ms"
+                        + ", max " + getMaxDelayMillis() + "ms"
+                        + ", output latency average " + getAverageOutputLatencyMillis() + "ms"
+                        + ", max " + getMaxOutputLatencyMillis() + "ms");
+
+                for (int i = 0; i < CUE_COUNT; i++) {
+                    if (tracks[i] != null) {
+                        tracks[i].release();
+                        tracks[i] = null;
+                    }
+                }
+            }
+        });
+        audioExecutor.shutdown();
+    }
+
+    private void onPhaseStarted(WorkoutScheduler scheduler, int index) {
+        WorkoutTimeline timeline = scheduler.getTimeline();
+        long phaseStart = scheduler.getPhaseStartTime();
+
+        // the count down's beeps come from the scheduler's count down subject
+        switch (timeline.getPhase(index)) {
+            case WorkoutTimeline.PHASE_SET:
+                playOnAudioThread(CUE_SET_START, phaseStart);
+                break;
+            case WorkoutTimeline.PHASE_REP_CUE:
+                playOnAudioThread(timeline.isSetStart(index) ? CUE_SET_START : CUE_NEXT_CONE, phaseStart);
+                break;
+            case WorkoutTimeline.PHASE_REST:
+                playOnAudioThread(CUE_SET_END, phaseStart);
+                break;
+            case WorkoutTimeline.PHASE_DONE:
+                playOnAudioThread(CUE_DONE, phaseStart);
+                break;
+        }
+    }
+
+    /**
+     * Plays the cue on the audio thread, phases start inside the scheduler's lock.
+     */
+    private void playOnAudioThread(final int cue, final long scheduledTime) {
+        audioScheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                play(cue, scheduledTime);
+            }
+        });
+    }
+
+    private void play(int cue, long scheduledTime) {
+        AudioTrack track = tracks[cue];
+        if (track == null) {
+            return;
+        }
+
+        long delay = clock.now() - scheduledTime;
+        if (track.getPlayState() != AudioTrack.PLAYSTATE_STOPPED) {
+            track.stop();
+        }
+        track.reloadStaticData();
+        long playTime = System.nanoTime();
+        track.play();
+        playTimes[cue] = playTime;
+
+        synchronized (this) {
+            cueCount++;
+            totalDelayMillis += delay;
+            maxDelayMillis = Math.max(maxDelayMillis, delay);
+        }
+        measureLater(cue, playTime);
+    }
+
+    /**
+     * Checks on the audio thread in a moment whether the first frame of the play came out yet.
+     */
+    private void measureLater(final int cue, final long playTime) {
+        audioScheduler.scheduleDirect(new Runnable() {
+            @Override
+            public void run() {
+                measure(cue, playTime);
+            }
+        }, MEASURE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void measure(int cue, long playTime) {
+        AudioTrack track = tracks[cue];
+        // released, or played again since
+        if (track == null || playTimes[cue] != playTime) {
+            return;
+        }
+
+        long outputTime = Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT
+                ? getTimestampOutputTime(track)
+                : getHeadOutputTime(track);
+        if (outputTime == NOT_MEASURED) {
+            if (System.nanoTime() - playTime < MEASURE_TIMEOUT_MILLIS * MILLI_NANOS
+                    && !audioExecutor.isShutdown()) {
+                measureLater(cue, playTime);
+            }
+            return;
+        }
+
+        long outputLatency = Math.max(outputTime - playTime, 0) / MILLI_NANOS;
+        synchronized (this) {
+            measuredCount++;
+            totalOutputLatencyMillis += outputLatency;
+            maxOutputLatencyMillis = Math.max(maxOutputLatencyMillis, outputLatency);
+        }
+    }
+
+    /**
+     * @return the time the first frame was presented at, going back from the frame the track's
+     * timestamp was taken at
+     */
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private long getTimestampOutputTime(AudioTrack track) {
+        if (timestamp == null) {
+            timestamp = new AudioTimestamp();
+        }
+        if (!track.getTimestamp(timestamp) || timestamp.framePosition <= 0) {
+            return NOT_MEASURED;
+        }
+        return timestamp.nanoTime - timestamp.framePosition * SECOND_NANOS / sampleRate;
+    }
+
+    /**
+     * @return the time the first frame was read by the mixer at, going back from the playback
+     * head, which leaves out the latency after the mixer
+     */
+    private long getHeadOutputTime(AudioTrack track) {
+        int frames = track.getPlaybackHeadPosition();
+        if (frames <= 0) {
+            return NOT_MEASURED;
+        }
+        return System.nanoTime() - frames * SECOND_NANOS / sampleRate;
+    }
+
+    private static AudioTrack createTrack(int sampleRate, int frequency, int durationMillis) {
+        short[] samples = new short[sampleRate * durationMillis / 1000];
+        int fadeSamples = sampleRate * FADE_MILLIS / 1000;
+
+        for (int i = 0; i < samples.length; i++) {
+            double amplitude = 0.8;
+            if (i < fadeSamples) {
+                amplitude *= (double) i / fadeSamples;
+            } else if (i > samples.length - fadeSamples) {
+                amplitude *= (double) (samples.length - i) / fadeSamples;
+            }
+            samples[i] = (short) (amplitude * Short.MAX_VALUE
+                    * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+        }
+
+        AudioTrack track = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate,
+                AudioFormat.CHANNEL_OUT_MONO, AudioFormat.ENCODING_PCM_16BIT,
+                samples.length * 2, AudioTrack.MODE_STATIC);
+        track.write(samples, 0, samples.length);
+        return track;
+    }
+}
@@ -2,14 +2,20 @@ package com.genenakagaki.splitstep.exercise.ui.coach;
 
 import android.os.Bundle;
 import android.support.annotation.Nullable;
+import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 
+import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
-import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.ReactionExerciseAggregate;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
 
-import io.reactivex.functions.Action;
-import io.reactivex.functions.Consumer;
+import io.reactivex.Single;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Function;
 
 /**
  * Created by Gene on 9/18/2017.
@@ -19,8 +25,6 @@ public class ReactionCoachFragment extends CoachFragment {
 
     private ReactionCoachViewModel mReactionCoachViewModel;
     private TimerViewModel mTimedSetsTimerViewModel;
-    private ConeViewModel mConeViewModel;
-    private TimerViewModel mRepsTimerViewModel;
 
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
@@ -30,93 +34,90 @@ public class ReactionCoachFragment extends CoachFragment {
                 getActivity(), ExerciseSharedPref.getExerciseId(getActivity()));
     }
 
+    @Nullable
     @Override
-    public void onResume() {
-        super.onResume();
+    public View onCreateView(LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View view = super.onCreateView(inflater, container, savedInstanceState);
 
-        getDisposable().add(mReactionCoachViewModel.loadExercise().subscribe(new Consumer<ReactionExercise>() {
+        // the athlete or coach taps anywhere when the cone is touched
+        mContentLayout.setOnTouchListener(new View.OnTouchListener() {
             @Override
-            public void accept(ReactionExercise exercise) throws Exception {
+            public boolean onTouch(View v, MotionEvent event) {
+                if (event.getActionMasked() != MotionEvent.ACTION_DOWN || !isRepCue()) {
+                    return false;
+                }
+                getService().recordResponse();
+                return true;
             }
-        }));
+        });
+
+        return view;
+    }
+
+    @Override
+    protected Single<WorkoutTimeline> loadTimeline() {
+        return mReactionCoachViewModel.loadExercise().map(new Function<ReactionExerciseAggregate, WorkoutTimeline>() {
+            @Override
+            public WorkoutTimeline apply(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                getViewModel().setExercise(aggregate);
+                return WorkoutTimelineCompiler.compile(
+                        aggregate.getExercise(), aggregate.getReactionExercise());
+            }
+        });
     }
 
     @Override
-    public void setupExerciseSet() {
+    protected int getConeCount() {
+        return mReactionCoachViewModel.getExercise().cones;
+    }
+
+    @Override
+    public void setupExerciseSet(WorkoutTimeline timeline) {
         switch (getViewModel().getExerciseSubType()) {
             case REPS:
 //                mMainProgressTopText.setText(getString(R.string.reps_count, exercise.reps));
                 break;
             case TIMED_SETS:
-                int setDuration = getViewModel().getExercise().setDuration;
+                int setDuration = getViewModel().getSettings().setDuration;
 
                 mTimedSetsTimerViewModel = new TimerViewModel(
                         new DurationDisplayable(DurationDisplayable.TYPE_SET_DURATION, setDuration));
-                mTimedSetProgressBar.setMax(mTimedSetsTimerViewModel.getMax());
+                mDialView.setTimedSetMax(mTimedSetsTimerViewModel.getMax());
                 break;
         }
 
-        mConeViewModel = new ConeViewModel(mReactionCoachViewModel.getExercise().cones);
-
-        int repDuration = mReactionCoachViewModel.getExercise().repDuration;
-        mRepsTimerViewModel = new TimerViewModel(
-                new DurationDisplayable(DurationDisplayable.TYPE_REP_DURATION, repDuration));
+        if (timeline.getCueCount() > 0) {
+            mMainProgressTopText.setText(R.string.reaction_capture_hint);
+        }
     }
 
     @Override
-    public void startExerciseSet() {
+    public void startExerciseSet(int index) {
         switch (getViewModel().getExerciseSubType()) {
             case REPS:
                 mDoneButton.setVisibility(View.VISIBLE);
                 break;
             case TIMED_SETS:
-                mTimedSetProgressBar.setVisibility(View.VISIBLE);
-                mTimedSetProgressBar.setProgress(mTimedSetsTimerViewModel.getMax());
-                animateProgress(mTimedSetProgressBar, 0, mTimedSetsTimerViewModel.getAnimateDuration());
-                getDisposable().add(mConeViewModel.getNextCone().subscribe(new Consumer<Integer>() {
-                    @Override
-                    public void accept(Integer integer) throws Exception {
-                        mMainProgressText.setText(Integer.toString(integer));
-                    }
-                }));
-
-                // Timer for set
-                getDisposable().add(mTimedSetsTimerViewModel.startTimer().subscribe(new Consumer<String>() {
-                    @Override
-                    public void accept(String s) throws Exception {
-                    }
-                }, new Consumer<Throwable>() {
-                    @Override
-                    public void accept(Throwable throwable) throws Exception {
-                    }
-                }, new Action() {
-                    @Override
-                    public void run() throws Exception {
-                        mTimedSetProgressBar.setVisibility(View.INVISIBLE);
-                        onFinishExerciseSet();
-                    }
-                }));
-
-                // Timer for rep
-                getDisposable().add(mRepsTimerViewModel.startTimer().subscribe(new Consumer<String>() {
-                    @Override
-                    public void accept(String s) throws Exception {
-
-                    }
-                }, new Consumer<Throwable>() {
-                    @Override
-                    public void accept(Throwable throwable) throws Exception {
-                        getDisposable().add(mConeViewModel.getNextCone().subscribe(new Consumer<Integer>() {
-                            @Override
-                            public void accept(Integer integer) throws Exception {
-                                mMainProgressText.setText(Integer.toString(integer));
-                            }
-                        }));
-
-                        mRepsTimerViewModel.startTimer();
-                    }
-                }));
+                mDialView.setTimedSetVisible(true);
                 break;
         }
     }
+
+    @Override
+    public void finishExerciseSet() {
+        mDoneButton.setVisibility(View.INVISIBLE);
+        mDialView.setTimedSetVisible(false);
+    }
+
+    @Override
+    public void onRepCue(int index) {
+        int cone = getService().getCone(getScheduler().getTimeline().getCue(index));
+        mDialView.setText(DurationFormat.getNumber(cone));
+    }
+
+    private boolean isRepCue() {
+        WorkoutScheduler scheduler = getScheduler();
+        return scheduler != null && scheduler.getIndex() >= 0
+                && scheduler.getTimeline().getPhase(scheduler.getIndex()) == WorkoutTimeline.PHASE_REP_CUE;
+    }
 }
@@ -2,6 +2,8 @@ package com.genenakagaki.splitstep.exercise.ui.coach;
 
 import android.content.Context;
 
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ReactionExerciseAggregate;
 import com.genenakagaki.splitstep.exercise.data.ReactionExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 
@@ -9,7 +11,6 @@ import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Function;
-import io.reactivex.schedulers.Schedulers;
 
 /**
  * Created by Gene on 10/3/2017.
@@ -26,15 +27,18 @@ public class ReactionCoachViewModel {
         this.exerciseId = exerciseId;
     }
 
-    public Single<ReactionExercise> loadExercise() {
-        return ReactionExerciseDao.getInstance().findById(exerciseId).map(new Function<ReactionExercise, ReactionExercise>() {
+    /**
+     * Loads the reaction exercise with its exercise row in one go, so both are set together.
+     */
+    public Single<ReactionExerciseAggregate> loadExercise() {
+        return ReactionExerciseDao.getInstance().findWithExercise(exerciseId).map(new Function<ReactionExerciseAggregate, ReactionExerciseAggregate>() {
             @Override
-            public ReactionExercise apply(@NonNull ReactionExercise exercise) throws Exception {
-                ReactionCoachViewModel.this.exercise = exercise;
-                return exercise;
+            public ReactionExerciseAggregate apply(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                ReactionCoachViewModel.this.exercise = aggregate.getReactionExercise();
+                return aggregate;
             }
         }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+                .subscribeOn(DatabaseSchedulers.read());
     }
 
     public ReactionExercise getExercise() {
@@ -0,0 +1,102 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Captures stimulus and response times of a reaction drill into preallocated primitive arrays.
+ *
+ * Recording only writes into the arrays, so the capture path neither allocates nor touches the
+ * database. The arrays are used as a ring: if more cones are shown than the recorder can hold
+ * before it is drained, the oldest ones are overwritten and counted as dropped. Stimuli are
+ * recorded by the service as the cue deadlines fire and responses by the screen, so every call is
+ * synchronized.
+ */
+public class ReactionTimeRecorder {
+
+    private final int capacity;
+    private final int[] sets;
+    private final int[] cones;
+    private final long[] stimulusTimes;
+    private final long[] responseTimes;
+
+    private int head;
+    private int size;
+    private int droppedCount;
+
+    public ReactionTimeRecorder(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        sets = new int[capacity];
+        cones = new int[capacity];
+        stimulusTimes = new long[capacity];
+        responseTimes = new long[capacity];
+    }
+
+    /**
+     * Records a cone being shown.
+     *
+     * @param time clock time the cue was scheduled at, less the time the workout was paused
+     */
+    public synchronized void recordStimulus(int set, int cone, long time) {
+        int i = (head + size) % capacity;
+        if (size == capacity) {
+            head = (head + 1) % capacity;
+            droppedCount++;
+        } else {
+            size++;
+        }
+
+        sets[i] = set;
+        cones[i] = cone;
+        stimulusTimes[i] = time;
+        responseTimes[i] = ReactionTime.NO_RESPONSE;
+    }
+
+    /**
+     * Records the cone being touched. Only the first response to the latest cone counts.
+     *
+     * @param time clock time of the tap, less the time the workout was paused
+     * @return true if the response was recorded
+     */
+    public synchronized boolean recordResponse(long time) {
+        if (size == 0) {
+            return false;
+        }
+
+        int i = (head + size - 1) % capacity;
+        if (responseTimes[i] != ReactionTime.NO_RESPONSE || time < stimulusTimes[i]) {
+            return false;
+        }
+        responseTimes[i] = time;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Moves everything recorded so far into entities ready to be stored, oldest first.
+     */
+    public synchronized List<ReactionTime> drain(long exerciseId, long sessionStart) {
+        List<ReactionTime> reactionTimes = new ArrayList<>(size);
+        for (int n = 0; n < size; n++) {
+            int i = (head + n) % capacity;
+            reactionTimes.add(new ReactionTime(exerciseId, sessionStart,
+                    sets[i], cones[i], stimulusTimes[i], responseTimes[i]));
+        }
+
+        head = 0;
+        size = 0;
+        return reactionTimes;
+    }
+}
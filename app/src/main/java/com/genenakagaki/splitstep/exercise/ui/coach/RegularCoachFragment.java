@@ -5,10 +5,6 @@ import android.view.View;
 import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
 
-import butterknife.OnClick;
-import io.reactivex.functions.Action;
-import io.reactivex.functions.Consumer;
-
 /**
  * Created by Gene on 9/13/2017.
  */
@@ -18,57 +14,47 @@ public class RegularCoachFragment extends CoachFragment {
     private TimerViewModel mTimedSetsTimerViewModel;
 
     @Override
-    public void setupExerciseSet() {
+    public void setupExerciseSet(WorkoutTimeline timeline) {
         switch (getViewModel().getExerciseSubType()) {
             case REPS:
-                int reps = getViewModel().getExercise().reps;
+                int reps = getViewModel().getSettings().reps;
                 mMainProgressTopText.setText(getString(R.string.reps_count, reps));
                 break;
             case TIMED_SETS:
-                int setDuration = getViewModel().getExercise().setDuration;
+                int setDuration = getViewModel().getSettings().setDuration;
 
                 mTimedSetsTimerViewModel = new TimerViewModel(
                         new DurationDisplayable(DurationDisplayable.TYPE_SET_DURATION, setDuration));
-                mTimedSetProgressBar.setMax(mTimedSetsTimerViewModel.getMax());
+                mDialView.setTimedSetMax(mTimedSetsTimerViewModel.getMax());
                 break;
         }
     }
 
     @Override
-    public void startExerciseSet() {
+    public void startExerciseSet(int index) {
         switch (getViewModel().getExerciseSubType()) {
             case REPS:
                 mDoneButton.setVisibility(View.VISIBLE);
                 break;
             case TIMED_SETS:
-                mTimedSetProgressBar.setVisibility(View.VISIBLE);
-                mTimedSetProgressBar.setProgress(mTimedSetsTimerViewModel.getMax());
-                animateProgress(mTimedSetProgressBar, 0, mTimedSetsTimerViewModel.getAnimateDuration());
-                mMainProgressText.setText(mTimedSetsTimerViewModel.getTimerDisplay());
-
-                getDisposable().add(mTimedSetsTimerViewModel.startTimer().subscribe(new Consumer<String>() {
-                    @Override
-                    public void accept(String s) throws Exception {
-                        mMainProgressText.setText(s);
-                    }
-                }, new Consumer<Throwable>() {
-                    @Override
-                    public void accept(Throwable throwable) throws Exception {
-                    }
-                }, new Action() {
-                    @Override
-                    public void run() throws Exception {
-                        mTimedSetProgressBar.setVisibility(View.INVISIBLE);
-                        onFinishExerciseSet();
-                    }
-                }));
+                mTimedSetsTimerViewModel.reset();
+                mDialView.setTimedSetVisible(true);
+                mDialView.setText(mTimedSetsTimerViewModel.getTimerDisplay());
                 break;
         }
     }
 
-    @OnClick(R.id.done_button)
-    public void onClickDone() {
+    @Override
+    public void finishExerciseSet() {
         mDoneButton.setVisibility(View.INVISIBLE);
-        onFinishExerciseSet();
+        mDialView.setTimedSetVisible(false);
+    }
+
+    @Override
+    public void onSetRemainingSecondsChanged(int remainingSeconds) {
+        if (mTimedSetsTimerViewModel != null && remainingSeconds > 0) {
+            mTimedSetsTimerViewModel.setRemainingSeconds(remainingSeconds);
+            mDialView.setText(mTimedSetsTimerViewModel.getTimerDisplay());
+        }
     }
 }
@@ -1,5 +1,7 @@
 package com.genenakagaki.splitstep.exercise.ui.coach;
 
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
+
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.schedulers.Schedulers;
@@ -11,17 +13,13 @@ import io.reactivex.subjects.BehaviorSubject;
 
 public class ReversedProgressViewModel {
 
-    private static final int ANIMATE_DURATION_DEFAULT = 500;
-
     private int max;
-    private int animateDuration;
     private int progress;
     private BehaviorSubject<Integer> progressSubject = BehaviorSubject.create();
 
     public ReversedProgressViewModel(int max, int progress) {
         this.max = max;
         this.progress = progress;
-        animateDuration = ANIMATE_DURATION_DEFAULT;
         progressSubject.onNext(progress * 100);
     }
 
@@ -32,14 +30,18 @@ public class ReversedProgressViewModel {
     }
 
     public void incrementProgressBy(int diff) {
-        progress += diff;
+        setProgress(progress + diff);
+    }
+
+    public void setProgress(int progress) {
+        this.progress = progress;
         if (progress > max) {
-            progress = max;
+            this.progress = max;
         } else if (progress < 0) {
-            progress = 0;
+            this.progress = 0;
         }
 
-        progressSubject.onNext(progress * 100);
+        progressSubject.onNext(this.progress * 100);
     }
 
     public int getMax() {
@@ -47,11 +49,7 @@ public class ReversedProgressViewModel {
     }
 
     public String getDisplayProgress() {
-        return Integer.toString(max - progress);
-    }
-
-    public int getAnimateDuration() {
-        return animateDuration;
+        return DurationFormat.getNumber(max - progress);
     }
 
     public boolean isFinished() {
@@ -0,0 +1,68 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.WorkoutCalendar;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+
+import java.util.TimeZone;
+
+/**
+ * Turns the phases of a workout into a {@link SetLog} for each set finished.
+ *
+ * Times are the phase starts on the {@link CoachClock} less the time the workout was paused
+ * before, so pauses count neither as work nor as rest. A set the
+ * workout was started or stopped in the middle of is not logged. Not thread safe, phases are
+ * expected one at a time.
+ */
+public class SetLogRecorder {
+
+    private static final int NO_SET = -1;
+    private static final long NO_REST = -1;
+
+    private final long exerciseId;
+    private final long sessionStart;
+    private final TimeZone zone;
+
+    private int set = NO_SET;
+    private long setStart;
+    private long restStart = NO_REST;
+    private long restMillis;
+
+    public SetLogRecorder(long exerciseId, long sessionStart, TimeZone zone) {
+        this.exerciseId = exerciseId;
+        this.sessionStart = sessionStart;
+        this.zone = zone;
+    }
+
+    /**
+     * @param startTime clock time the phase started at, less {@link WorkoutScheduler#getPausedMillis()}
+     * @param wallTime wall clock time now, when the set is finished
+     * @return the set the phase finished, or null
+     */
+    public SetLog onPhaseStarted(WorkoutTimeline timeline, int index, long startTime, long wallTime) {
+        switch (timeline.getPhase(index)) {
+            case WorkoutTimeline.PHASE_SET:
+            case WorkoutTimeline.PHASE_REP_CUE:
+                if (timeline.isSetStart(index)) {
+                    restMillis = restStart != NO_REST ? startTime - restStart : 0;
+                    restStart = NO_REST;
+                    set = timeline.getSet(index);
+                    setStart = startTime;
+                }
+                return null;
+            case WorkoutTimeline.PHASE_REST:
+            case WorkoutTimeline.PHASE_DONE:
+                if (set == NO_SET) {
+                    return null;
+                }
+                SetLog setLog = new SetLog(exerciseId, sessionStart, set, startTime - setStart,
+                        restMillis, wallTime, WorkoutCalendar.getDay(wallTime, zone));
+                set = NO_SET;
+                if (timeline.getPhase(index) == WorkoutTimeline.PHASE_REST) {
+                    restStart = startTime;
+                }
+                return setLog;
+            default:
+                return null;
+        }
+    }
+}
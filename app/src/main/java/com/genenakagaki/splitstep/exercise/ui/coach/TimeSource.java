@@ -0,0 +1,20 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import android.os.SystemClock;
+
+/**
+ * Where the {@link CoachClock} reads the time from, so tests can run a workout on a virtual
+ * clock.
+ */
+public interface TimeSource {
+
+    /** Monotonic time in milliseconds that keeps counting while the device sleeps. */
+    TimeSource ELAPSED_REALTIME = new TimeSource() {
+        @Override
+        public long now() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    long now();
+}
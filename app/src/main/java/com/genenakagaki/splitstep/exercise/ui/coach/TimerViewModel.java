@@ -1,15 +1,7 @@
 package com.genenakagaki.splitstep.exercise.ui.coach;
 
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
-
-import java.util.concurrent.TimeUnit;
-
-import io.reactivex.Observable;
-import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.annotations.NonNull;
-import io.reactivex.functions.Function;
-import io.reactivex.functions.Predicate;
-import io.reactivex.schedulers.Schedulers;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
 
 /**
  * Created by Gene on 9/15/2017.
@@ -18,56 +10,31 @@ import io.reactivex.schedulers.Schedulers;
 public class TimerViewModel {
 
     private int max;
-    private int animateDuration;
     private DurationDisplayable duration;
 
     public TimerViewModel(DurationDisplayable duration) {
         this.duration = duration;
         max = duration.getDuration();
-        animateDuration = duration.getDuration() * 1000;
     }
 
     public int getMax() {
         return max * 100;
     }
 
-    public int getAnimateDuration() {
-        return animateDuration;
-    }
-
     public DurationDisplayable getDuration() {
         return duration;
     }
 
-    public Observable<String> startTimer() {
-        duration.setDuration(max-1);
+    public void reset() {
+        duration.setDuration(max);
+    }
 
-        return Observable.interval(1, TimeUnit.SECONDS).takeWhile(new Predicate<Long>() {
-            @Override
-            public boolean test(@NonNull Long aLong) throws Exception {
-                if (aLong < max-1) {
-                    duration.setDuration(max - aLong.intValue() -1);
-                    return true;
-                } else {
-                    duration.setDuration(max);
-                    return false;
-                }
-            }
-        }).map(new Function<Long, String>() {
-            @Override
-            public String apply(@NonNull Long aLong) throws Exception {
-                return getTimerDisplay();
-            }
-        }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.io());
+    public void setRemainingSeconds(int remainingSeconds) {
+        duration.setDuration(remainingSeconds);
     }
 
     public String getTimerDisplay() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%02d", duration.getMinutes()));
-        sb.append(" : ");
-        sb.append(String.format("%02d", duration.getSeconds()));
-        return sb.toString();
+        return DurationFormat.getTimerDisplay(duration.getDuration());
     }
 
 }
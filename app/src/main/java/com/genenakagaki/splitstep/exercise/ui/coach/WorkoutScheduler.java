@@ -0,0 +1,266 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import io.reactivex.Observable;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Walks a {@link WorkoutTimeline} on a {@link CoachClock}.
+ *
+ * Only the end of the current phase is scheduled. When it fires, the next phase starts at the
+ * previous deadline rather than at the time the callback ran, so the session never drifts.
+ * Seeking, skipping, pausing and resuming only move the phase index and the deadline.
+ *
+ * The beeps of a count down are deadlines of their own, one a second from the start of the phase.
+ * They are cancelled along with the phase's deadline and the remaining ones are scheduled again on
+ * resume.
+ */
+public class WorkoutScheduler {
+
+    private static final long SECOND_MILLIS = 1000;
+
+    private final CoachClock clock;
+    private final WorkoutTimeline timeline;
+    private final Subject<Integer> phaseSubject = BehaviorSubject.<Integer>create().toSerialized();
+    private final Subject<Long> countDownSubject = PublishSubject.<Long>create().toSerialized();
+
+    private int index = -1;
+    private long phaseStart;
+    private long pausedAt;
+    private long pausedMillis;
+    private boolean isPaused;
+    private Disposable deadlineTask;
+    private Disposable beepTask;
+    /** Beeps of the current count down already played. */
+    private int beepCount;
+    /** Changes whenever the deadline is cancelled or scheduled, so a stale deadline is ignored. */
+    private int deadlineCount;
+    private volatile WorkoutSpan span = WorkoutSpan.NONE;
+
+    public WorkoutScheduler(CoachClock clock, WorkoutTimeline timeline) {
+        this.clock = clock;
+        this.timeline = timeline;
+    }
+
+    public WorkoutTimeline getTimeline() {
+        return timeline;
+    }
+
+    /**
+     * Emits the index of the current phase each time a phase starts.
+     */
+    public Observable<Integer> getPhaseSubject() {
+        return phaseSubject;
+    }
+
+    /**
+     * Emits the whole seconds left in the current phase each time the value changes.
+     */
+    public Observable<Integer> getRemainingSeconds() {
+        return clock.getTicks().map(new Function<Long, Integer>() {
+            @Override
+            public Integer apply(@NonNull Long now) throws Exception {
+                return getRemainingSeconds(now);
+            }
+        }).distinctUntilChanged();
+    }
+
+    /**
+     * Emits the clock time each beep of a count down was scheduled at, when it is due.
+     */
+    public Observable<Long> getCountDownSubject() {
+        return countDownSubject;
+    }
+
+    public void start() {
+        seek(0);
+    }
+
+    public synchronized void seek(int index) {
+        enterPhase(index, clock.now());
+    }
+
+    /**
+     * Ends the current phase now, e.g. when the athlete finishes a set of reps.
+     */
+    public synchronized void skip() {
+        if (index < timeline.size() - 1) {
+            enterPhase(index + 1, isPaused ? pausedAt : clock.now());
+        }
+    }
+
+    public synchronized void pause() {
+        if (isPaused || index < 0) {
+            return;
+        }
+        isPaused = true;
+        pausedAt = clock.now();
+        cancelDeadline();
+        publishSpan();
+    }
+
+    public synchronized void resume() {
+        if (!isPaused) {
+            return;
+        }
+        isPaused = false;
+        pausedMillis += clock.now() - pausedAt;
+        phaseStart += clock.now() - pausedAt;
+        scheduleDeadline();
+        publishSpan();
+    }
+
+    public synchronized void stop() {
+        cancelDeadline();
+        index = -1;
+        publishSpan();
+    }
+
+    public synchronized boolean isPaused() {
+        return isPaused;
+    }
+
+    public synchronized int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the clock time the current phase was scheduled to start at.
+     */
+    public synchronized long getPhaseStartTime() {
+        return phaseStart;
+    }
+
+    /**
+     * @return milliseconds the workout spent paused before the last resume.
+     */
+    public synchronized long getPausedMillis() {
+        return pausedMillis;
+    }
+
+    public synchronized long getElapsedMillis(long now) {
+        if (index < 0) {
+            return 0;
+        }
+        return (isPaused ? pausedAt : now) - phaseStart;
+    }
+
+    public synchronized int getRemainingSeconds(long now) {
+        if (index < 0 || !timeline.isBounded(index)) {
+            return 0;
+        }
+        long deadline = phaseStart + timeline.getDuration(index);
+        return CoachClock.getRemainingSeconds(deadline, isPaused ? pausedAt : now);
+    }
+
+    /**
+     * @return the milliseconds left in the current rest, count down or timed set, a rep cue
+     * counting down the whole set it belongs to, or {@link WorkoutTimeline#UNBOUNDED} if the
+     * phase has no end.
+     */
+    public long getSpanRemainingMillis(long now) {
+        return span.getRemainingMillis(now);
+    }
+
+    /**
+     * @return the span the current phase counts down, read without taking the lock.
+     */
+    public WorkoutSpan getSpan() {
+        return span;
+    }
+
+    public synchronized WorkoutSnapshot getSnapshot(long now) {
+        return new WorkoutSnapshot(index, getRemainingSeconds(now), isPaused);
+    }
+
+    private synchronized void onDeadline(int deadline) {
+        // a task may already be waiting for the lock when the phase is skipped, sought or paused
+        if (deadline != deadlineCount || index < 0 || isPaused || !timeline.isBounded(index)) {
+            return;
+        }
+        enterPhase(index + 1, phaseStart + timeline.getDuration(index));
+    }
+
+    private synchronized void onBeep(int deadline, long beepTime) {
+        if (deadline != deadlineCount || index < 0 || isPaused) {
+            return;
+        }
+        beepCount++;
+        countDownSubject.onNext(beepTime);
+        scheduleBeep(deadline);
+    }
+
+    private void enterPhase(int index, long startTime) {
+        cancelDeadline();
+        this.index = index;
+        phaseStart = startTime;
+        beepCount = 0;
+        if (isPaused) {
+            pausedAt = startTime;
+        } else {
+            scheduleDeadline();
+        }
+        publishSpan();
+        phaseSubject.onNext(index);
+    }
+
+    private void publishSpan() {
+        if (index < 0 || !timeline.isBounded(index)) {
+            span = new WorkoutSpan(index, WorkoutTimeline.UNBOUNDED, isPaused, pausedAt);
+            return;
+        }
+
+        long endTime;
+        int phase = timeline.getPhase(index);
+        if (phase == WorkoutTimeline.PHASE_SET || phase == WorkoutTimeline.PHASE_REP_CUE) {
+            endTime = phaseStart - timeline.getSetOffset(index) + timeline.getSetDuration(index);
+        } else {
+            endTime = phaseStart + timeline.getDuration(index);
+        }
+        span = new WorkoutSpan(index, endTime, isPaused, pausedAt);
+    }
+
+    private void scheduleDeadline() {
+        if (timeline.isBounded(index)) {
+            final int deadline = ++deadlineCount;
+            deadlineTask = clock.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onDeadline(deadline);
+                }
+            }, phaseStart + timeline.getDuration(index));
+            scheduleBeep(deadline);
+        }
+    }
+
+    private void scheduleBeep(final int deadline) {
+        if (timeline.getPhase(index) != WorkoutTimeline.PHASE_COUNT_DOWN
+                || beepCount >= timeline.getDuration(index) / SECOND_MILLIS) {
+            return;
+        }
+        // moved along with the phase start by a pause
+        final long beepTime = phaseStart + beepCount * SECOND_MILLIS;
+        beepTask = clock.schedule(new Runnable() {
+            @Override
+            public void run() {
+                onBeep(deadline, beepTime);
+            }
+        }, beepTime);
+    }
+
+    private void cancelDeadline() {
+        deadlineCount++;
+        if (deadlineTask != null) {
+            deadlineTask.dispose();
+            deadlineTask = null;
+        }
+        if (beepTask != null) {
+            beepTask.dispose();
+            beepTask = null;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Binder;
+import android.os.Build;
+import android.os.IBinder;
+import android.os.PowerManager;
+import android.support.annotation.Nullable;
+import android.support.v4.app.NotificationCompat;
+
+import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ReactionTimeDao;
+import com.genenakagaki.splitstep.exercise.data.SetLogDao;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+import com.genenakagaki.splitstep.exercise.ui.ExerciseActivity;
+
+import java.util.List;
+import java.util.TimeZone;
+
+import io.reactivex.Observable;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import timber.log.Timber;
+
+/**
+ * Foreground service running the workout, so a session survives rotation and the screen turning
+ * off.
+ *
+ * The service owns the clock, the scheduler and the audio cues, logs every set as it is finished
+ * and records when every cone of a reaction drill is called. The coach screen binds to it only to
+ * render {@link WorkoutSnapshot}s. Snapshots are computed from the clock's shared ticks, so when
+ * no screen is attached the ticks stop and nothing is rendered, while the phase deadlines, cues
+ * and set logs keep firing under a partial wake lock.
+ *
+ * The scheduler, cones and reaction times are set on the main thread and read on the scheduler's,
+ * so they are volatile.
+ */
+public class WorkoutService extends Service {
+
+    private static final int NOTIFICATION_ID = 1;
+    private static final String NOTIFICATION_CHANNEL_ID = "workout";
+    private static final String WAKE_LOCK_TAG = "Splitstep:Workout";
+    /**
+     * Added to the timed phases left when holding the wake lock, for sets of reps and pauses. The
+     * lock is held again at every phase, so it only runs out if the workout is left alone.
+     */
+    private static final long WAKE_LOCK_MARGIN_MILLIS = 10 * 60 * 1000;
+
+    public class LocalBinder extends Binder {
+        public WorkoutService getService() {
+            return WorkoutService.this;
+        }
+    }
+
+    private final IBinder binder = new LocalBinder();
+
+    private CoachClock clock;
+    private CueEngine cueEngine;
+    private PowerManager.WakeLock wakeLock;
+
+    private CompositeDisposable disposable;
+    private volatile WorkoutScheduler scheduler;
+    private long exerciseId;
+    private long sessionStart;
+    private volatile ConeViewModel coneViewModel;
+    private volatile ReactionTimeRecorder reactionTimeRecorder;
+
+    public static Intent createIntent(Context context) {
+        return new Intent(context, WorkoutService.class);
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        clock = new CoachClock();
+        cueEngine = new CueEngine(clock);
+
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, WAKE_LOCK_TAG);
+        wakeLock.setReferenceCounted(false);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(NOTIFICATION_CHANNEL_ID,
+                    getString(R.string.workout_notification_channel),
+                    NotificationManager.IMPORTANCE_LOW);
+            ((NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE))
+                    .createNotificationChannel(channel);
+        }
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // the workout can't be rebuilt if the process dies
+        return START_NOT_STICKY;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return binder;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        stopWorkout();
+        cueEngine.release();
+    }
+
+    /**
+     * Starts a new workout, replacing the current one if any.
+     *
+     * @param coneCount the cones of a reaction drill, 0 if the workout has no rep cues
+     */
+    public void startWorkout(long exerciseId, String exerciseName, WorkoutTimeline timeline,
+                             int coneCount) {
+        stopWorkout();
+
+        this.exerciseId = exerciseId;
+        sessionStart = System.currentTimeMillis();
+        final WorkoutScheduler scheduler = new WorkoutScheduler(clock, timeline);
+        this.scheduler = scheduler;
+        final SetLogRecorder setLogRecorder =
+                new SetLogRecorder(exerciseId, sessionStart, TimeZone.getDefault());
+
+        if (coneCount > 0 && timeline.getCueCount() > 0) {
+            // seeded by the session so the cones of a stored session can be generated again
+            coneViewModel = new ConeViewModel(coneCount, timeline.getCueCount(), sessionStart);
+            // drained after every set
+            reactionTimeRecorder = new ReactionTimeRecorder(
+                    Math.max(timeline.getCueCount() / timeline.getSetCount(), 1));
+        } else {
+            coneViewModel = null;
+            reactionTimeRecorder = null;
+        }
+
+        disposable = new CompositeDisposable();
+        disposable.add(cueEngine.attach(scheduler));
+        disposable.add(scheduler.getPhaseSubject().subscribe(new Consumer<Integer>() {
+            @Override
+            public void accept(@NonNull Integer index) throws Exception {
+                SetLog setLog = setLogRecorder.onPhaseStarted(scheduler.getTimeline(), index,
+                        scheduler.getPhaseStartTime() - scheduler.getPausedMillis(),
+                        System.currentTimeMillis());
+                if (setLog != null) {
+                    saveSetLog(setLog);
+                }
+
+                int phase = scheduler.getTimeline().getPhase(index);
+                if (phase == WorkoutTimeline.PHASE_REP_CUE) {
+                    recordStimulus(scheduler, index);
+                } else if (phase == WorkoutTimeline.PHASE_REST
+                        || phase == WorkoutTimeline.PHASE_DONE) {
+                    saveReactionTimes();
+                }
+
+                if (phase == WorkoutTimeline.PHASE_DONE) {
+                    // nothing left to time, keep the result on screen without holding the CPU
+                    wakeLock.release();
+                    stopForeground(true);
+                } else {
+                    acquireWakeLock(scheduler.getTimeline(), index);
+                }
+            }
+        }));
+
+        startService(createIntent(this));
+        startForeground(NOTIFICATION_ID, createNotification(exerciseName));
+        acquireWakeLock(timeline, 0);
+
+        scheduler.start();
+    }
+
+    public void stopWorkout() {
+        if (scheduler == null) {
+            return;
+        }
+
+        disposable.dispose();
+        scheduler.stop();
+        scheduler = null;
+        saveReactionTimes();
+
+        wakeLock.release();
+        stopForeground(true);
+        stopSelf();
+    }
+
+    public boolean isRunning(long exerciseId) {
+        return scheduler != null && this.exerciseId == exerciseId;
+    }
+
+    public WorkoutScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public CoachClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @param cue the cue ordinal from {@link WorkoutTimeline#getCue(int)}
+     * @return the cone to run to, from 1 to the cone count
+     */
+    public int getCone(int cue) {
+        return coneViewModel.getCone(cue);
+    }
+
+    /**
+     * Records the latest cone being touched now.
+     *
+     * @return true if the response was recorded
+     */
+    public boolean recordResponse() {
+        WorkoutScheduler scheduler = this.scheduler;
+        ReactionTimeRecorder reactionTimeRecorder = this.reactionTimeRecorder;
+        if (scheduler == null || reactionTimeRecorder == null || scheduler.isPaused()) {
+            return false;
+        }
+        return reactionTimeRecorder.recordResponse(clock.now() - scheduler.getPausedMillis());
+    }
+
+    /**
+     * Emits a snapshot when a phase starts and on every tick the displayed state changes, for as
+     * long as the subscriber is attached.
+     */
+    public Observable<WorkoutSnapshot> getSnapshots() {
+        final WorkoutScheduler scheduler = this.scheduler;
+
+        Observable<Long> phaseChanges = scheduler.getPhaseSubject()
+                .map(new Function<Integer, Long>() {
+                    @Override
+                    public Long apply(@NonNull Integer index) throws Exception {
+                        return clock.now();
+                    }
+                });
+
+        return Observable.merge(phaseChanges, clock.getTicks())
+                .map(new Function<Long, WorkoutSnapshot>() {
+                    @Override
+                    public WorkoutSnapshot apply(@NonNull Long now) throws Exception {
+                        return scheduler.getSnapshot(now);
+                    }
+                })
+                .filter(new Predicate<WorkoutSnapshot>() {
+                    @Override
+                    public boolean test(@NonNull WorkoutSnapshot snapshot) throws Exception {
+                        return snapshot.index >= 0;
+                    }
+                })
+                .distinctUntilChanged();
+    }
+
+    /**
+     * Records the cone as called at the cue's deadline rather than when it is rendered, which may
+     * be later or never while the screen is off.
+     */
+    private void recordStimulus(WorkoutScheduler scheduler, int index) {
+        WorkoutTimeline timeline = scheduler.getTimeline();
+        reactionTimeRecorder.recordStimulus(timeline.getSet(index),
+                coneViewModel.getCone(timeline.getCue(index)),
+                scheduler.getPhaseStartTime() - scheduler.getPausedMillis());
+    }
+
+    /**
+     * Holds the CPU for the timed phases left from the index. Acquiring a lock that isn't
+     * reference counted again only moves its timeout.
+     */
+    private void acquireWakeLock(WorkoutTimeline timeline, int index) {
+        wakeLock.acquire(timeline.getBoundedDurationFrom(index) + WAKE_LOCK_MARGIN_MILLIS);
+    }
+
+    private void saveReactionTimes() {
+        ReactionTimeRecorder reactionTimeRecorder = this.reactionTimeRecorder;
+        if (reactionTimeRecorder == null || reactionTimeRecorder.size() == 0) {
+            return;
+        }
+
+        List<ReactionTime> reactionTimes = reactionTimeRecorder.drain(exerciseId, sessionStart);
+        // not tied to the workout's disposable so the write completes after the workout stops
+        ReactionTimeDao.getInstance().insertAll(reactionTimes)
+                .subscribeOn(DatabaseSchedulers.write())
+                .subscribe(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(@NonNull Throwable throwable) throws Exception {
+                        Timber.e(throwable, "Failed to save reaction times");
+                    }
+                });
+    }
+
+    private void saveSetLog(SetLog setLog) {
+        // not tied to the workout's disposable so the write completes after the workout stops
+        SetLogDao.getInstance().insert(setLog)
+                .subscribeOn(DatabaseSchedulers.write())
+                .subscribe(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(@NonNull Throwable throwable) throws Exception {
+                        Timber.e(throwable, "Failed to save set");
+                    }
+                });
+    }
+
+    private Notification createNotification(String exerciseName) {
+        Intent intent = new Intent(this, ExerciseActivity.class)
+                .setAction(Intent.ACTION_MAIN)
+                .addCategory(Intent.CATEGORY_LAUNCHER);
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, 0);
+
+        return new NotificationCompat.Builder(this, NOTIFICATION_CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_check)
+                .setContentTitle(exerciseName)
+                .setContentText(getString(R.string.workout_notification_text))
+                .setContentIntent(pendingIntent)
+                .setOngoing(true)
+                .build();
+    }
+}
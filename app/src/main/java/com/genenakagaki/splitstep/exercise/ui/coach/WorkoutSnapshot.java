@@ -0,0 +1,37 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+/**
+ * Everything the coach screen renders at one point in time, read from the
+ * {@link WorkoutScheduler} in one go.
+ */
+public class WorkoutSnapshot {
+
+    public final int index;
+    public final int remainingSeconds;
+    public final boolean isPaused;
+
+    public WorkoutSnapshot(int index, int remainingSeconds, boolean isPaused) {
+        this.index = index;
+        this.remainingSeconds = remainingSeconds;
+        this.isPaused = isPaused;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        WorkoutSnapshot that = (WorkoutSnapshot) o;
+        return index == that.index
+                && remainingSeconds == that.remainingSeconds
+                && isPaused == that.isPaused;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = index;
+        result = 31 * result + remainingSeconds;
+        result = 31 * result + (isPaused ? 1 : 0);
+        return result;
+    }
+}
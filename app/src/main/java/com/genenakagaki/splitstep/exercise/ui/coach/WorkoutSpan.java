@@ -0,0 +1,42 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+/**
+ * The rest, count down or timed set the current phase counts down, published by the
+ * {@link WorkoutScheduler} on every change so it can be read once per frame without the
+ * scheduler's lock.
+ */
+public class WorkoutSpan {
+
+    public static final WorkoutSpan NONE = new WorkoutSpan(-1, WorkoutTimeline.UNBOUNDED, false, 0);
+
+    public final int index;
+    /** Clock time the span ends at, or {@link WorkoutTimeline#UNBOUNDED}. */
+    public final long endTime;
+    public final boolean isPaused;
+    public final long pausedAt;
+
+    public WorkoutSpan(int index, long endTime, boolean isPaused, long pausedAt) {
+        this.index = index;
+        this.endTime = endTime;
+        this.isPaused = isPaused;
+        this.pausedAt = pausedAt;
+    }
+
+    /**
+     * @return true if the time left changes as the clock moves.
+     */
+    public boolean isCountingDown() {
+        return index >= 0 && endTime != WorkoutTimeline.UNBOUNDED && !isPaused;
+    }
+
+    /**
+     * @return the milliseconds left in the span, or {@link WorkoutTimeline#UNBOUNDED} if it has
+     * no end.
+     */
+    public long getRemainingMillis(long now) {
+        if (index < 0 || endTime == WorkoutTimeline.UNBOUNDED) {
+            return WorkoutTimeline.UNBOUNDED;
+        }
+        return Math.max(endTime - (isPaused ? pausedAt : now), 0);
+    }
+}
@@ -0,0 +1,134 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+/**
+ * Immutable, flat list of the phases of a workout, compiled once by
+ * {@link WorkoutTimelineCompiler} and walked by {@link WorkoutScheduler}.
+ *
+ * Every phase is addressed by its index, so seeking to any point of the session is O(1).
+ */
+public class WorkoutTimeline {
+
+    public static final int PHASE_COUNT_DOWN = 1;
+    public static final int PHASE_SET = 2;
+    public static final int PHASE_REST = 3;
+    public static final int PHASE_REP_CUE = 4;
+    public static final int PHASE_DONE = 5;
+
+    /** Duration of a phase that only ends when the athlete says so, e.g. a set of reps. */
+    public static final long UNBOUNDED = -1;
+
+    private final int[] phases;
+    private final int[] sets;
+    private final int[] cues;
+    private final long[] durations;
+    private final long[] setOffsets;
+    private final long[] setDurations;
+    private final int setCount;
+    private final int cueCount;
+
+    WorkoutTimeline(int[] phases, int[] sets, int[] cues, long[] durations,
+                    long[] setOffsets, long[] setDurations, int setCount, int cueCount) {
+        this.phases = phases;
+        this.sets = sets;
+        this.cues = cues;
+        this.durations = durations;
+        this.setOffsets = setOffsets;
+        this.setDurations = setDurations;
+        this.setCount = setCount;
+        this.cueCount = cueCount;
+    }
+
+    public int size() {
+        return phases.length;
+    }
+
+    public int getSetCount() {
+        return setCount;
+    }
+
+    public int getCueCount() {
+        return cueCount;
+    }
+
+    public int getPhase(int index) {
+        return phases[index];
+    }
+
+    /**
+     * @return the zero based set the phase belongs to, or the set that was just finished for a
+     * rest phase, or -1 before the first set.
+     */
+    public int getSet(int index) {
+        return sets[index];
+    }
+
+    /**
+     * @return the zero based position of a rep cue in the whole workout, or -1 if the phase is
+     * not a rep cue.
+     */
+    public int getCue(int index) {
+        return cues[index];
+    }
+
+    /**
+     * @return duration of the phase in milliseconds, or {@link #UNBOUNDED}.
+     */
+    public long getDuration(int index) {
+        return durations[index];
+    }
+
+    public boolean isBounded(int index) {
+        return durations[index] != UNBOUNDED;
+    }
+
+    /**
+     * @return milliseconds of the bounded phases from this one to the end of the workout. Phases
+     * that are {@link #UNBOUNDED} are left out.
+     */
+    public long getBoundedDurationFrom(int index) {
+        long duration = 0;
+        for (int i = index; i < durations.length; i++) {
+            if (durations[i] != UNBOUNDED) {
+                duration += durations[i];
+            }
+        }
+        return duration;
+    }
+
+    /**
+     * @return milliseconds between the start of the set and the start of this phase.
+     */
+    public long getSetOffset(int index) {
+        return setOffsets[index];
+    }
+
+    /**
+     * @return duration in milliseconds of the whole set this phase is part of, or
+     * {@link #UNBOUNDED}.
+     */
+    public long getSetDuration(int index) {
+        return setDurations[index];
+    }
+
+    /**
+     * @return true if the phase is the first phase of a set.
+     */
+    public boolean isSetStart(int index) {
+        int phase = phases[index];
+        return (phase == PHASE_SET || phase == PHASE_REP_CUE) && setOffsets[index] == 0;
+    }
+
+    /**
+     * @return number of sets finished once the phase is reached.
+     */
+    public int getFinishedSets(int index) {
+        switch (phases[index]) {
+            case PHASE_REST:
+                return sets[index] + 1;
+            case PHASE_DONE:
+                return setCount;
+            default:
+                return Math.max(sets[index], 0);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+
+/**
+ * Compiles an {@link Exercise} and its settings into the {@link WorkoutTimeline} the coach screen
+ * plays.
+ *
+ * A timeline is: count down, then every set followed by a rest except the last one, then done.
+ * A timed set of a reaction exercise is split into one rep cue phase per rep.
+ */
+public class WorkoutTimelineCompiler {
+
+    public static final int COUNT_DOWN_SECONDS = 3;
+
+    private static final long SECOND_MILLIS = 1000;
+
+    private WorkoutTimelineCompiler() {}
+
+    public static WorkoutTimeline compile(Exercise exercise, ExerciseSettings settings) {
+        int setCount = settings.sets;
+        boolean isTimedSets = ExerciseSubType.fromValue(exercise.subType) == ExerciseSubType.TIMED_SETS;
+        long setDuration = isTimedSets ? settings.setDuration * SECOND_MILLIS : WorkoutTimeline.UNBOUNDED;
+        long restDuration = settings.restDuration * SECOND_MILLIS;
+
+        long repDuration = 0;
+        int cuesPerSet = 0;
+        if (settings instanceof ReactionExercise && isTimedSets
+                && ((ReactionExercise) settings).repDuration > 0) {
+            repDuration = ((ReactionExercise) settings).repDuration * SECOND_MILLIS;
+            cuesPerSet = (int) ((setDuration + repDuration - 1) / repDuration);
+        }
+        int phasesPerSet = cuesPerSet > 0 ? cuesPerSet : 1;
+
+        // count down + sets + rests + done
+        int size = 1 + setCount * phasesPerSet + Math.max(setCount - 1, 0) + 1;
+
+        int[] phases = new int[size];
+        int[] sets = new int[size];
+        int[] cues = new int[size];
+        long[] durations = new long[size];
+        long[] setOffsets = new long[size];
+        long[] setDurations = new long[size];
+
+        int i = 0;
+        phases[i] = WorkoutTimeline.PHASE_COUNT_DOWN;
+        sets[i] = -1;
+        cues[i] = -1;
+        durations[i] = COUNT_DOWN_SECONDS * SECOND_MILLIS;
+        i++;
+
+        int cue = 0;
+        for (int set = 0; set < setCount; set++) {
+            if (cuesPerSet > 0) {
+                for (int rep = 0; rep < cuesPerSet; rep++) {
+                    long offset = rep * repDuration;
+                    phases[i] = WorkoutTimeline.PHASE_REP_CUE;
+                    sets[i] = set;
+                    cues[i] = cue++;
+                    durations[i] = Math.min(repDuration, setDuration - offset);
+                    setOffsets[i] = offset;
+                    setDurations[i] = setDuration;
+                    i++;
+                }
+            } else {
+                phases[i] = WorkoutTimeline.PHASE_SET;
+                sets[i] = set;
+                cues[i] = -1;
+                durations[i] = setDuration;
+                setDurations[i] = setDuration;
+                i++;
+            }
+
+            if (set < setCount - 1) {
+                phases[i] = WorkoutTimeline.PHASE_REST;
+                sets[i] = set;
+                cues[i] = -1;
+                durations[i] = restDuration;
+                i++;
+            }
+        }
+
+        phases[i] = WorkoutTimeline.PHASE_DONE;
+        sets[i] = setCount - 1;
+        cues[i] = -1;
+        durations[i] = WorkoutTimeline.UNBOUNDED;
+
+        return new WorkoutTimeline(phases, sets, cues, durations, setOffsets, setDurations, setCount, cue);
+    }
+}
@@ -4,6 +4,7 @@ import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
 import com.genenakagaki.splitstep.exercise.ui.model.ErrorMessage;
 
 import io.reactivex.Observable;
@@ -18,17 +19,8 @@ import io.reactivex.subjects.BehaviorSubject;
 public class DurationPickerViewModel {
 
     protected static final String[] COLON_PICKER_DISPLAY_VALUES = new String[] {":"};
-    protected static final String[] PICKER_DISPLAY_VALUE = buildPickerDisplayValues();
     protected static final int PICKER_MAX_VALUE = 59;
-
-    private static String[] buildPickerDisplayValues() {
-        String[] pickerDisplayValues = new String[60];
-        for (int i = 0; i < 60; i++) {
-            pickerDisplayValues[i] = String.format("%02d", i); //display in 2 digits
-        }
-
-        return pickerDisplayValues;
-    }
+    protected static final String[] PICKER_DISPLAY_VALUE = DurationFormat.getTwoDigitValues(PICKER_MAX_VALUE + 1);
 
     private Context context;
     private DurationDisplayable durationDisplayable;
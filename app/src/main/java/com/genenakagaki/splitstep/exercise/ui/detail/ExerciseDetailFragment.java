@@ -16,8 +16,10 @@ import android.widget.TextView;
 import android.widget.ViewSwitcher;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.ExerciseAggregate;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
 import com.genenakagaki.splitstep.exercise.ui.ExerciseActivity;
 import com.genenakagaki.splitstep.exercise.ui.coach.CoachFragment;
@@ -29,7 +31,9 @@ import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
 import butterknife.Unbinder;
+import io.reactivex.Completable;
 import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Action;
 import io.reactivex.functions.Consumer;
 import timber.log.Timber;
 
@@ -97,8 +101,7 @@ public class ExerciseDetailFragment extends Fragment
 
             @Override
             public void onTextChanged(CharSequence charSequence, int i, int i1, int i2) {
-                mDisposable.add(mViewModel.setNotes(charSequence.toString())
-                        .subscribe());
+                mViewModel.setNotes(charSequence.toString());
             }
 
             @Override
@@ -125,9 +128,11 @@ public class ExerciseDetailFragment extends Fragment
         mDisposable = new CompositeDisposable();
 
         mDisposable.add(mViewModel.getExerciseSubject()
-                .subscribe(new Consumer<Exercise>() {
+                .subscribe(new Consumer<ExerciseAggregate>() {
                     @Override
-                    public void accept(Exercise exercise) throws Exception {
+                    public void accept(ExerciseAggregate aggregate) throws Exception {
+                        Exercise exercise = aggregate.getExercise();
+                        ExerciseSettings settings = aggregate.getSettings();
                         mExerciseNameTextView.setText(exercise.name);
                         if (exercise.favorite) {
                             mFavoriteImageSwitcher.setImageResource(R.drawable.ic_star);
@@ -135,14 +140,14 @@ public class ExerciseDetailFragment extends Fragment
                             mFavoriteImageSwitcher.setImageResource(R.drawable.ic_star_border);
                         }
 
-                        mNotesInput.setText(exercise.notes);
+                        mNotesInput.setText(settings.notes);
 
-                        mSetsNumberInput.setNumber(exercise.sets);
+                        mSetsNumberInput.setNumber(settings.sets);
 
                         switch (ExerciseSubType.fromValue(exercise.subType)) {
                             case REPS:
                                 mSetDurationLayout.setVisibility(View.GONE);
-                                mRepsNumberInput.setNumber(exercise.reps);
+                                mRepsNumberInput.setNumber(settings.reps);
                                 break;
                             case TIMED_SETS:
                                 mRepsNumberInput.setVisibility(View.GONE);
@@ -167,7 +172,7 @@ public class ExerciseDetailFragment extends Fragment
                     }
                 }));
 
-        mDisposable.add(mViewModel.loadExercise().subscribe());
+        mDisposable.add(loadExercise().subscribe());
     }
 
     @Override
@@ -176,6 +181,18 @@ public class ExerciseDetailFragment extends Fragment
         if (mDisposable != null && !mDisposable.isDisposed()) {
             mDisposable.dispose();
         }
+
+        // not tied to mDisposable, the edits have to be written even though the screen is gone
+        mViewModel.flush().subscribe(new Action() {
+            @Override
+            public void run() throws Exception {
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                Timber.e(throwable, "Failed to write exercise edits");
+            }
+        });
     }
 
     @Override
@@ -190,10 +207,10 @@ public class ExerciseDetailFragment extends Fragment
         Timber.d("onInputChanged " + number);
         if (view.getId() == mRepsNumberInput.getId()) {
             Timber.d("reps");
-            mViewModel.setReps(number).subscribe();
+            mViewModel.setReps(number);
         } else if (view.getId() == mSetsNumberInput.getId()) {
             Timber.d("sets");
-            mViewModel.setSets(number).subscribe();
+            mViewModel.setSets(number);
         }
     }
 
@@ -211,6 +228,14 @@ public class ExerciseDetailFragment extends Fragment
         fragment.show(getFragmentManager(), DurationPickerDialog.class.getSimpleName());
     }
 
+    protected Completable loadExercise() {
+        return mViewModel.loadExercise();
+    }
+
+    public ExerciseDetailViewModel getViewModel() {
+        return mViewModel;
+    }
+
     public CompositeDisposable getDisposable() {
         return mDisposable;
     }
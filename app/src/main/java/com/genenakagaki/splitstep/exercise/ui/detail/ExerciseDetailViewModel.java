@@ -3,9 +3,15 @@ package com.genenakagaki.splitstep.exercise.ui.detail;
 import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ExerciseAggregate;
+import com.genenakagaki.splitstep.exercise.data.ExerciseColumnUpdate;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
+import com.genenakagaki.splitstep.exercise.data.ExerciseWriteBehind;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
 
 import io.reactivex.Completable;
 import io.reactivex.CompletableEmitter;
@@ -28,7 +34,8 @@ public class ExerciseDetailViewModel {
     private long exerciseId;
 
     private Exercise exercise;
-    private BehaviorSubject<Exercise> exerciseSubject = BehaviorSubject.create();
+    private ExerciseSettings settings;
+    private BehaviorSubject<ExerciseAggregate> exerciseSubject = BehaviorSubject.create();
 
     private DurationDisplayable restDuration;
     private BehaviorSubject<DurationDisplayable> restDurationSubject = BehaviorSubject.create();
@@ -41,56 +48,68 @@ public class ExerciseDetailViewModel {
         this.exerciseId = exerciseId;
     }
 
-    public Observable<Exercise> getExerciseSubject() {
+    public Observable<ExerciseAggregate> getExerciseSubject() {
         return exerciseSubject
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeOn(Schedulers.io());
     }
 
     public Completable loadExercise() {
-        return ExerciseDao.getInstance().findById(exerciseId).flatMapCompletable(new Function<Exercise, CompletableSource>() {
-            @Override
-            public CompletableSource apply(@NonNull final Exercise exercise) throws Exception {
-                return Completable.create(new CompletableOnSubscribe() {
+        return ExerciseDao.getInstance().findWithSettings(exerciseId)
+                .subscribeOn(DatabaseSchedulers.read())
+                .flatMapCompletable(new Function<ExerciseAggregate, CompletableSource>() {
                     @Override
-                    public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                        ExerciseDetailViewModel.this.exercise = exercise;
-                        exerciseSubject.onNext(exercise);
-
-                        restDuration = new DurationDisplayable(
-                                DurationDisplayable.TYPE_REST_DURATION, exercise.restDuration);
-                        restDuration.setTitle(context.getString(R.string.rest_duration));
-
-                        setDuration = new DurationDisplayable(
-                                DurationDisplayable.TYPE_SET_DURATION, exercise.setDuration);
-                        setDuration.setTitle(context.getString(R.string.set_duration));
-                        e.onComplete();
+                    public CompletableSource apply(@NonNull ExerciseAggregate aggregate) throws Exception {
+                        return setExercise(aggregate);
                     }
-                }).andThen(setRestDuration(restDuration)).andThen(setSetDuration(setDuration));
-            }
-        }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+                });
     }
 
-    public Completable setReps(final int reps) {
-        exercise.reps = reps;
-        return ExerciseDao.getInstance().update(exercise)
+    /**
+     * Shows an exercise that was already found, e.g. along with its reaction exercise.
+     */
+    public Completable setExercise(final ExerciseAggregate aggregate) {
+        return Completable.create(new CompletableOnSubscribe() {
+            @Override
+            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
+                exercise = aggregate.getExercise();
+                settings = aggregate.getSettings();
+                exerciseSubject.onNext(aggregate);
+
+                restDuration = new DurationDisplayable(
+                        DurationDisplayable.TYPE_REST_DURATION, settings.restDuration);
+                restDuration.setTitle(context.getString(R.string.rest_duration));
+
+                setDuration = new DurationDisplayable(
+                        DurationDisplayable.TYPE_SET_DURATION, settings.setDuration);
+                setDuration.setTitle(context.getString(R.string.set_duration));
+                e.onComplete();
+            }
+        }).andThen(setRestDuration(restDuration)).andThen(setSetDuration(setDuration))
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeOn(Schedulers.computation());
     }
 
-    public Completable setSets(final int sets) {
-        exercise.sets = sets;
-        return ExerciseDao.getInstance().update(exercise)
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+    /**
+     * Edits are written behind, see {@link ExerciseWriteBehind}.
+     */
+    public void setReps(int reps) {
+        ExerciseWriteBehind.getInstance().update(new ExerciseColumnUpdate(exercise, settings).reps(reps));
     }
 
-    public Completable setNotes(final String notes) {
-        exercise.notes = notes;
-        return ExerciseDao.getInstance().update(exercise)
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+    public void setSets(int sets) {
+        ExerciseWriteBehind.getInstance().update(new ExerciseColumnUpdate(exercise, settings).sets(sets));
+    }
+
+    public void setNotes(String notes) {
+        ExerciseWriteBehind.getInstance().update(new ExerciseColumnUpdate(exercise, settings).notes(notes));
+    }
+
+    /**
+     * Writes pending edits now, to be called when the screen is left.
+     */
+    public Completable flush() {
+        return ExerciseWriteBehind.getInstance().flush();
     }
 
     public DurationDisplayable getRestDuration() {
@@ -113,8 +132,10 @@ public class ExerciseDetailViewModel {
 
                 setDurationDisplay(restDuration);
 
-                exercise.restDuration = restDuration.getDuration();
-                exercise.update();
+                if (settings.restDuration != restDuration.getDuration()) {
+                    ExerciseWriteBehind.getInstance().update(
+                            new ExerciseColumnUpdate(exercise, settings).restDuration(restDuration.getDuration()));
+                }
 
                 restDurationSubject.onNext(restDuration);
                 e.onComplete();
@@ -143,8 +164,10 @@ public class ExerciseDetailViewModel {
 
                 setDurationDisplay(setDuration);
 
-                exercise.setDuration = setDuration.getDuration();
-                exercise.update();
+                if (settings.setDuration != setDuration.getDuration()) {
+                    ExerciseWriteBehind.getInstance().update(
+                            new ExerciseColumnUpdate(exercise, settings).setDuration(setDuration.getDuration()));
+                }
 
                 setDurationSubject.onNext(setDuration);
                 e.onComplete();
@@ -154,16 +177,8 @@ public class ExerciseDetailViewModel {
     }
 
     public void setDurationDisplay(DurationDisplayable durationDisplay) {
-        String display;
-        int minutes = durationDisplay.getMinutes();
-        int seconds = durationDisplay.getSeconds();
-
-        if (minutes == 0) {
-            display = context.getString(R.string.duration_value_seconds, seconds);
-        } else {
-            display = context.getString(R.string.duration_value, minutes, seconds);
-        }
-        durationDisplay.setDisplay(display);
+        durationDisplay.setDisplay(
+                DurationFormat.getDetailDisplay(context, durationDisplay.getDuration()));
     }
 
 }
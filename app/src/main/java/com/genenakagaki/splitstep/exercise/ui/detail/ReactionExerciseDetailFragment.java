@@ -8,6 +8,7 @@ import android.view.ViewGroup;
 
 import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
+import com.genenakagaki.splitstep.exercise.data.ReactionExerciseAggregate;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 import com.genenakagaki.splitstep.exercise.ui.ExerciseActivity;
 import com.genenakagaki.splitstep.exercise.ui.coach.CoachFragment;
@@ -15,7 +16,11 @@ import com.genenakagaki.splitstep.exercise.ui.coach.ReactionCoachFragment;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
 
 import butterknife.OnClick;
+import io.reactivex.Completable;
+import io.reactivex.CompletableSource;
+import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
 import timber.log.Timber;
 
 /**
@@ -65,8 +70,16 @@ public class ReactionExerciseDetailFragment extends ExerciseDetailFragment {
                         mRepDurationTextView.setText(durationDisplayable.getDisplay());
                     }
                 }));
+    }
 
-        getDisposable().add(mViewModel.loadReactionExercise().subscribe());
+    @Override
+    protected Completable loadExercise() {
+        return mViewModel.loadExercise().flatMapCompletable(new Function<ReactionExerciseAggregate, CompletableSource>() {
+            @Override
+            public CompletableSource apply(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                return getViewModel().setExercise(aggregate);
+            }
+        });
     }
 
     @Override
@@ -76,7 +89,7 @@ public class ReactionExerciseDetailFragment extends ExerciseDetailFragment {
         Timber.d("onInputChanged " + number);
         if (view.getId() == mConesNumberInput.getId()) {
             Timber.d("cones");
-            mViewModel.setCones(number).subscribe();
+            mViewModel.setCones(number);
         }
     }
 
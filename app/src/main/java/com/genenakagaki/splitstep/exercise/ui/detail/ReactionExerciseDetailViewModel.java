@@ -3,15 +3,21 @@ package com.genenakagaki.splitstep.exercise.ui.detail;
 import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ExerciseWriteBehind;
+import com.genenakagaki.splitstep.exercise.data.ReactionExerciseColumnUpdate;
+import com.genenakagaki.splitstep.exercise.data.ReactionExerciseAggregate;
 import com.genenakagaki.splitstep.exercise.data.ReactionExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
 import com.genenakagaki.splitstep.exercise.ui.model.DurationDisplayable;
+import com.genenakagaki.splitstep.exercise.ui.model.DurationFormat;
 
 import io.reactivex.Completable;
 import io.reactivex.CompletableEmitter;
 import io.reactivex.CompletableOnSubscribe;
-import io.reactivex.CompletableSource;
 import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.SingleSource;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Function;
@@ -44,33 +50,41 @@ public class ReactionExerciseDetailViewModel {
                 .subscribeOn(Schedulers.io());
     }
 
-    public Completable loadReactionExercise() {
-        return ReactionExerciseDao.getInstance().findById(exerciseId).flatMapCompletable(new Function<ReactionExercise, CompletableSource>() {
+    /**
+     * Loads the reaction exercise with its exercise row in one go.
+     *
+     * @return both, for {@link ExerciseDetailViewModel#setExercise}
+     */
+    public Single<ReactionExerciseAggregate> loadExercise() {
+        return ReactionExerciseDao.getInstance().findWithExercise(exerciseId).flatMap(new Function<ReactionExerciseAggregate, SingleSource<ReactionExerciseAggregate>>() {
             @Override
-            public CompletableSource apply(@NonNull final ReactionExercise exercise) throws Exception {
-                return Completable.create(new CompletableOnSubscribe() {
-                    @Override
-                    public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                        ReactionExerciseDetailViewModel.this.reactionExercise = exercise;
-                        reactionExerciseSubject.onNext(exercise);
-
-                        repDuration = new DurationDisplayable(
-                                DurationDisplayable.TYPE_REST_DURATION, exercise.repDuration);
-                        repDuration.setTitle(context.getString(R.string.rep_duration));
-
-                        e.onComplete();
-                    }
-                }).andThen(setRepDuration(repDuration));
+            public SingleSource<ReactionExerciseAggregate> apply(@NonNull ReactionExerciseAggregate aggregate) throws Exception {
+                return setReactionExercise(aggregate.getReactionExercise())
+                        .andThen(Single.just(aggregate));
             }
         }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+                .subscribeOn(DatabaseSchedulers.read());
     }
 
-    public Completable setCones(int cones) {
-        reactionExercise.cones = cones;
-        return ReactionExerciseDao.getInstance().update(reactionExercise)
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+    private Completable setReactionExercise(final ReactionExercise exercise) {
+        return Completable.create(new CompletableOnSubscribe() {
+            @Override
+            public void subscribe(@NonNull CompletableEmitter e) throws Exception {
+                ReactionExerciseDetailViewModel.this.reactionExercise = exercise;
+                reactionExerciseSubject.onNext(exercise);
+
+                repDuration = new DurationDisplayable(
+                        DurationDisplayable.TYPE_REST_DURATION, exercise.repDuration);
+                repDuration.setTitle(context.getString(R.string.rep_duration));
+
+                e.onComplete();
+            }
+        }).andThen(setRepDuration(repDuration));
+    }
+
+    public void setCones(int cones) {
+        ExerciseWriteBehind.getInstance().update(
+                new ReactionExerciseColumnUpdate(reactionExercise).cones(cones));
     }
 
     public DurationDisplayable getRepDuration() {
@@ -93,8 +107,10 @@ public class ReactionExerciseDetailViewModel {
 
                 setDurationDisplay(repDuration);
 
-                reactionExercise.repDuration = repDuration.getDuration();
-                reactionExercise.update();
+                if (reactionExercise.repDuration != repDuration.getDuration()) {
+                    ExerciseWriteBehind.getInstance().update(
+                            new ReactionExerciseColumnUpdate(reactionExercise).repDuration(repDuration.getDuration()));
+                }
 
                 repDurationSubject.onNext(repDuration);
                 e.onComplete();
@@ -104,15 +120,7 @@ public class ReactionExerciseDetailViewModel {
     }
 
     public void setDurationDisplay(DurationDisplayable durationDisplay) {
-        String display;
-        int minutes = durationDisplay.getMinutes();
-        int seconds = durationDisplay.getSeconds();
-
-        if (minutes == 0) {
-            display = context.getString(R.string.duration_value_seconds, seconds);
-        } else {
-            display = context.getString(R.string.duration_value, minutes, seconds);
-        }
-        durationDisplay.setDisplay(display);
+        durationDisplay.setDisplay(
+                DurationFormat.getDetailDisplay(context, durationDisplay.getDuration()));
     }
 }
@@ -9,10 +9,14 @@ import android.support.design.widget.TextInputEditText;
 import android.support.design.widget.TextInputLayout;
 import android.support.v4.app.DialogFragment;
 import android.support.v7.app.AlertDialog;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.Button;
 import android.widget.RadioButton;
+import android.widget.TextView;
 
 import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
@@ -21,6 +25,8 @@ import com.genenakagaki.splitstep.exercise.data.exception.ExerciseAlreadyExistsE
 import com.genenakagaki.splitstep.exercise.data.exception.InvalidExerciseNameException;
 import com.genenakagaki.splitstep.exercise.ui.model.ErrorMessage;
 
+import java.util.List;
+
 import butterknife.BindView;
 import butterknife.ButterKnife;
 import butterknife.OnClick;
@@ -38,6 +44,7 @@ public class AddExerciseDialog extends DialogFragment {
 
     @BindView(R.id.name_input) TextInputEditText mExerciseNameInput;
     @BindView(R.id.name_inputlayout) TextInputLayout mExerciseNameInputLayout;
+    @BindView(R.id.suggestions_textview) TextView mSuggestionsTextView;
     @BindView(R.id.reps_radiobutton) RadioButton mRepsRadioButton;
     @BindView(R.id.timed_sets_radiobutton) RadioButton mTimedSetsRadioButton;
 
@@ -61,6 +68,19 @@ public class AddExerciseDialog extends DialogFragment {
         View view = LayoutInflater.from(getActivity()).inflate(R.layout.dialog_add_exercise, null);
         mUnbinder = ButterKnife.bind(this, view);
 
+        mExerciseNameInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence charSequence, int i, int i1, int i2) {}
+
+            @Override
+            public void onTextChanged(CharSequence charSequence, int i, int i1, int i2) {
+                checkName();
+            }
+
+            @Override
+            public void afterTextChanged(Editable editable) {}
+        });
+
         AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
         builder.setTitle(getString(R.string.add_exercise_title))
                 .setView(view)
@@ -99,9 +119,25 @@ public class AddExerciseDialog extends DialogFragment {
                     public void accept(ErrorMessage errorMessage) throws Exception {
                         if (!errorMessage.isValid()) {
                             mExerciseNameInputLayout.setError(errorMessage.getErrorMessage());
+                        } else {
+                            mExerciseNameInputLayout.setError(null);
                         }
                     }
                 }));
+
+        mDisposable.add(mViewModel.loadNames()
+                .subscribe(new Action() {
+                    @Override
+                    public void run() throws Exception {
+                        // check what was typed while the names loaded
+                        checkName();
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable throwable) throws Exception {
+                        Timber.e(throwable, "Failed to load exercise names");
+                    }
+                }));
     }
 
     @Override
@@ -130,6 +166,21 @@ public class AddExerciseDialog extends DialogFragment {
         mViewModel.setExerciseSubType(ExerciseSubType.TIMED_SETS);
     }
 
+    /**
+     * Flags the name typed if it is taken and shows the names like it.
+     */
+    public void checkName() {
+        String name = mExerciseNameInput.getText().toString();
+        List<String> suggestions = mViewModel.checkName(name);
+
+        if (suggestions.isEmpty()) {
+            mSuggestionsTextView.setVisibility(View.GONE);
+        } else {
+            mSuggestionsTextView.setText(getString(R.string.existing_exercise_names, TextUtils.join(", ", suggestions)));
+            mSuggestionsTextView.setVisibility(View.VISIBLE);
+        }
+    }
+
     public void onSaveButtonClick() {
         final String exerciseName = mExerciseNameInput.getText().toString();
 
@@ -154,9 +205,7 @@ public class AddExerciseDialog extends DialogFragment {
     }
 
     public void onExerciseInserted() {
-        ExerciseListFragment fragment = (ExerciseListFragment) getFragmentManager()
-                .findFragmentByTag(ExerciseListFragment.class.getSimpleName());
-        fragment.getExerciseList();
+        // the list picks up the new exercise by itself
         getDialog().dismiss();
     }
 
@@ -3,15 +3,26 @@ package com.genenakagaki.splitstep.exercise.ui.list;
 import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
+import com.genenakagaki.splitstep.exercise.data.ExerciseNameTrie;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
 import com.genenakagaki.splitstep.exercise.ui.model.ErrorMessage;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import io.reactivex.Completable;
 import io.reactivex.Observable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
 import io.reactivex.schedulers.Schedulers;
 import io.reactivex.subjects.BehaviorSubject;
 
@@ -21,6 +32,12 @@ import io.reactivex.subjects.BehaviorSubject;
 
 public class AddExerciseViewModel {
 
+    /** Most names suggested for a name being typed. */
+    public static final int SUGGESTION_COUNT = 3;
+
+    /** Names this many edits from the name being typed are suggested as near duplicates. */
+    private static final int SIMILAR_DISTANCE = 1;
+
     private Context context;
     private ExerciseType exerciseType;
     private ExerciseSubType exerciseSubType;
@@ -28,6 +45,8 @@ public class AddExerciseViewModel {
     private ErrorMessage errorMessage;
     private BehaviorSubject<ErrorMessage> errorMessageSubject = BehaviorSubject.create();
 
+    private ExerciseNameTrie names;
+
     public AddExerciseViewModel(Context context, ExerciseType exerciseType) {
         this.context = context;
         this.exerciseType = exerciseType;
@@ -45,11 +64,62 @@ public class AddExerciseViewModel {
         exerciseSubType = subType;
     }
 
+    /**
+     * Reads the names of the exercises of the type and builds their trie in the background. Names
+     * are only checked once it completes.
+     */
+    public Completable loadNames() {
+        return ExerciseDao.getInstance().findNames(exerciseType)
+                .map(new Function<List<String>, ExerciseNameTrie>() {
+                    @Override
+                    public ExerciseNameTrie apply(@NonNull List<String> names) throws Exception {
+                        return new ExerciseNameTrie(names);
+                    }
+                })
+                .subscribeOn(DatabaseSchedulers.read())
+                .observeOn(AndroidSchedulers.mainThread())
+                .doOnSuccess(new Consumer<ExerciseNameTrie>() {
+                    @Override
+                    public void accept(ExerciseNameTrie trie) throws Exception {
+                        names = trie;
+                    }
+                })
+                .toCompletable();
+    }
+
+    /**
+     * Checks the name being typed against the names loaded. A name an exercise of the type already
+     * has, once normalized, is set as the error, otherwise the error is cleared.
+     *
+     * @return up to {@link #SUGGESTION_COUNT} names of the type one edit from the name, then
+     *         starting with it, empty for a duplicate
+     */
+    public List<String> checkName(String name) {
+        if (names == null) {
+            return Collections.emptyList();
+        }
+
+        if (names.find(name) != null) {
+            setExerciseAlreadyExistsError();
+            return Collections.emptyList();
+        }
+        clearError();
+
+        Set<String> suggestions = new LinkedHashSet<>(names.findSimilar(name, SIMILAR_DISTANCE, SUGGESTION_COUNT));
+        for (String completion: names.complete(name, SUGGESTION_COUNT)) {
+            if (suggestions.size() == SUGGESTION_COUNT) {
+                break;
+            }
+            suggestions.add(completion);
+        }
+        return new ArrayList<>(suggestions);
+    }
+
     public Completable insertExercise(final String name) {
         return ExerciseDao.getInstance().insert(
                 new Exercise(exerciseType.getValue(), exerciseSubType.getValue(), name))
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+                .subscribeOn(DatabaseSchedulers.write());
     }
 
     public void setExerciseAlreadyExistsError() {
@@ -58,6 +128,15 @@ public class AddExerciseViewModel {
         errorMessageSubject.onNext(errorMessage);
     }
 
+    public void clearError() {
+        if (errorMessage.isValid()) {
+            return;
+        }
+        errorMessage.setValid(true);
+        errorMessage.setErrorMessage(null);
+        errorMessageSubject.onNext(errorMessage);
+    }
+
     public void setInvalidExerciseNameError() {
         errorMessage.setValid(false);
         errorMessage.setErrorMessage(context.getString(R.string.error_empty_exercise_name));
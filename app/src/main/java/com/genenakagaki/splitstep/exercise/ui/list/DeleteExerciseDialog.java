@@ -9,10 +9,13 @@ import android.support.v4.app.DialogFragment;
 import android.support.v7.app.AlertDialog;
 
 import com.genenakagaki.splitstep.R;
-import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
 
-import io.reactivex.disposables.CompositeDisposable;
+import java.util.ArrayList;
+import java.util.List;
+
 import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import timber.log.Timber;
 
 /**
  * Created by gene on 9/7/17.
@@ -20,19 +23,23 @@ import io.reactivex.functions.Action;
 
 public class DeleteExerciseDialog extends DialogFragment {
 
-    private static final String ARG_EXERCISE_ID = "ARG_EXERCISE_ID";
+    private static final String ARG_EXERCISE_IDS = "ARG_EXERCISE_IDS";
     private static final String ARG_DELETE_MESSAGE = "ARG_DELETE_MESSAGE";
 
-    public static DeleteExerciseDialog newInstance(long exerciseId, String deleteMessage) {
+    public static DeleteExerciseDialog newInstance(List<Long> exerciseIds, String deleteMessage) {
+        long[] ids = new long[exerciseIds.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = exerciseIds.get(i);
+        }
+
         DeleteExerciseDialog dialog = new DeleteExerciseDialog();
         Bundle args = new Bundle();
-        args.putLong(ARG_EXERCISE_ID, exerciseId);
+        args.putLongArray(ARG_EXERCISE_IDS, ids);
         args.putString(ARG_DELETE_MESSAGE, deleteMessage);
         dialog.setArguments(args);
         return dialog;
     }
 
-    private CompositeDisposable mDisposable;
     private DeleteExerciseViewModel mViewModel;
 
     public DeleteExerciseDialog() {}
@@ -41,16 +48,22 @@ public class DeleteExerciseDialog extends DialogFragment {
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
-        long exerciseId = getArguments().getLong(ARG_EXERCISE_ID);
+        List<Long> exerciseIds = new ArrayList<>();
+        for (long exerciseId: getArguments().getLongArray(ARG_EXERCISE_IDS)) {
+            exerciseIds.add(exerciseId);
+        }
         String deleteMessage = getArguments().getString(ARG_DELETE_MESSAGE);
-        mViewModel = new DeleteExerciseViewModel(exerciseId, ExerciseSharedPref.getExerciseType(getActivity()), deleteMessage);
+        mViewModel = new DeleteExerciseViewModel(exerciseIds, deleteMessage);
     }
 
     @NonNull
     @Override
     public Dialog onCreateDialog(Bundle savedInstanceState) {
+        String title = getResources().getQuantityString(
+                R.plurals.delete_exercises_title, mViewModel.getExerciseCount());
+
         AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
-        builder.setTitle(getString(R.string.delete_exercise_title))
+        builder.setTitle(title)
                 .setMessage(mViewModel.getDeleteMessage())
                 .setPositiveButton(R.string.delete, new DialogInterface.OnClickListener() {
                     @Override
@@ -63,28 +76,22 @@ public class DeleteExerciseDialog extends DialogFragment {
     }
 
     private void onDeleteButtonClick() {
-        mDisposable.add(mViewModel.deleteExerciseCompletable()
-                .subscribe(new Action() {
-                    @Override
-                    public void run() throws Exception {
-                        ExerciseListFragment fragment =
-                                (ExerciseListFragment) getFragmentManager().findFragmentByTag(ExerciseListFragment.class.getSimpleName());
-                        fragment.getExerciseList();
-                    }
-                }));
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        mDisposable = new CompositeDisposable();
-    }
-
-    @Override
-    public void onPause() {
-        super.onPause();
-        if (mDisposable != null && !mDisposable.isDisposed()) {
-            mDisposable.dispose();
+        ExerciseListFragment fragment = (ExerciseListFragment) getTargetFragment();
+        if (fragment != null) {
+            fragment.finishEditMode();
         }
+
+        // the list removes the exercises by itself. Not disposed with the dialog, which is
+        // dismissed right after this
+        mViewModel.deleteExerciseCompletable().subscribe(new Action() {
+            @Override
+            public void run() throws Exception {
+            }
+        }, new Consumer<Throwable>() {
+            @Override
+            public void accept(Throwable throwable) throws Exception {
+                Timber.e(throwable, "Failed to delete exercises");
+            }
+        });
     }
 }
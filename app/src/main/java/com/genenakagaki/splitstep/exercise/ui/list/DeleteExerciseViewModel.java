@@ -1,11 +1,12 @@
 package com.genenakagaki.splitstep.exercise.ui.list;
 
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
-import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+
+import java.util.List;
 
 import io.reactivex.Completable;
 import io.reactivex.android.schedulers.AndroidSchedulers;
-import io.reactivex.schedulers.Schedulers;
 
 /**
  * Created by gene on 9/7/17.
@@ -13,13 +14,11 @@ import io.reactivex.schedulers.Schedulers;
 
 public class DeleteExerciseViewModel {
 
-    private long exerciseId;
-    private ExerciseType exerciseType;
+    private List<Long> exerciseIds;
     private String deleteMessage;
 
-    public DeleteExerciseViewModel(long exerciseId, ExerciseType exerciseType, String deleteMessage) {
-        this.exerciseId = exerciseId;
-        this.exerciseType = exerciseType;
+    public DeleteExerciseViewModel(List<Long> exerciseIds, String deleteMessage) {
+        this.exerciseIds = exerciseIds;
         this.deleteMessage = deleteMessage;
     }
 
@@ -27,9 +26,13 @@ public class DeleteExerciseViewModel {
         return deleteMessage;
     }
 
+    public int getExerciseCount() {
+        return exerciseIds.size();
+    }
+
     public Completable deleteExerciseCompletable() {
-        return ExerciseDao.getInstance().delete(exerciseId, exerciseType)
+        return ExerciseDao.getInstance().delete(exerciseIds)
                 .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+                .subscribeOn(DatabaseSchedulers.write());
     }
 }
@@ -7,6 +7,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 
 import java.util.ArrayList;
@@ -18,9 +19,14 @@ import java.util.List;
 
 public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseViewHolder> {
 
+    /** How close to the end of the list the next page is requested. */
+    private static final int PREFETCH_DISTANCE = 10;
+
     private Context mContext;
     private ExerciseListViewModel mViewModel;
     private List<Exercise> mExercises;
+    private boolean mHasMore;
+    private boolean mIsPageRequested;
 
     public ExerciseAdapter(Context context, ExerciseListViewModel viewModel) {
         mContext = context;
@@ -33,21 +39,28 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseViewHolder> {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.list_item_exercise_list, parent, false);
 
-        return new ExerciseViewHolder(view, mContext);
+        return new ExerciseViewHolder(view, mContext, mViewModel);
     }
 
     @Override
     public void onBindViewHolder(ExerciseViewHolder holder, int position) {
+        Exercise exercise = mExercises.get(position);
+
         if (mViewModel.isEditMode()) {
-            holder.mDeleteButton.setVisibility(View.VISIBLE);
+            holder.mSelectCheckBox.setVisibility(View.VISIBLE);
+            holder.mSelectCheckBox.setChecked(mViewModel.isSelected(exercise.id));
             holder.mFavoriteImageSwitcher.setVisibility(View.GONE);
         } else {
-            holder.mDeleteButton.setVisibility(View.GONE);
+            holder.mSelectCheckBox.setVisibility(View.GONE);
             holder.mFavoriteImageSwitcher.setVisibility(View.VISIBLE);
         }
 
-        Exercise exercise = mExercises.get(position);
         holder.setExercise(exercise);
+
+        if (mHasMore && !mIsPageRequested && position >= mExercises.size() - PREFETCH_DISTANCE) {
+            mIsPageRequested = true;
+            mViewModel.requestPage(getLastId());
+        }
     }
 
     @Override
@@ -55,20 +68,97 @@ public class ExerciseAdapter extends RecyclerView.Adapter<ExerciseViewHolder> {
         return mExercises.size();
     }
 
-    public void clear() {
-        int size = mExercises.size();
+    /**
+     * Replaces the list with its first page.
+     */
+    public void setExercises(List<Exercise> exercises, boolean hasMore) {
         mExercises.clear();
-        notifyItemRangeRemoved(0, size);
+        mExercises.addAll(exercises);
+        mHasMore = hasMore;
+        mIsPageRequested = false;
+        notifyDataSetChanged();
     }
 
-    public void addAll(List<Exercise> exercises) {
+    /**
+     * Appends the page. If the list changed since the page was requested and no longer ends where
+     * the page starts, the page is dropped and requested again from the new end.
+     */
+    public void addPage(long afterId, List<Exercise> exercises, boolean hasMore) {
+        if (afterId != getLastId()) {
+            mViewModel.requestPage(getLastId());
+            return;
+        }
+
         int prevSize = mExercises.size();
         mExercises.addAll(exercises);
-        notifyItemRangeInserted(prevSize, mExercises.size());
+        mHasMore = hasMore;
+        mIsPageRequested = false;
+        notifyItemRangeInserted(prevSize, exercises.size());
+    }
+
+    /**
+     * Replaces, adds or removes only the rows with the ids. A new row past the last page loaded is
+     * left for its page to load.
+     *
+     * @param exercises the exercises found for the ids, an id without one is removed
+     */
+    public void update(List<Long> ids, List<Exercise> exercises) {
+        for (long id: ids) {
+            int position = getPosition(id);
+            Exercise exercise = find(exercises, id);
+
+            if (position >= 0) {
+                if (exercise == null) {
+                    mExercises.remove(position);
+                    notifyItemRemoved(position);
+                } else {
+                    mExercises.set(position, exercise);
+                    notifyItemChanged(position);
+                }
+            } else if (exercise != null && (!mHasMore || id < getLastId())) {
+                position = -position - 1;
+                mExercises.add(position, exercise);
+                notifyItemInserted(position);
+            }
+        }
     }
 
     public List<Exercise> getExercises() {
         return mExercises;
     }
 
+    private long getLastId() {
+        return mExercises.isEmpty() ? ExerciseDao.FIRST_PAGE : mExercises.get(mExercises.size() - 1).id;
+    }
+
+    /**
+     * Binary search by id, the list is in id order.
+     *
+     * @return the position of the id, or (-(insertion point) - 1) if it isn't listed
+     */
+    private int getPosition(long id) {
+        int low = 0;
+        int high = mExercises.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = mExercises.get(mid).id;
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static Exercise find(List<Exercise> exercises, long id) {
+        for (Exercise exercise: exercises) {
+            if (exercise.id == id) {
+                return exercise;
+            }
+        }
+        return null;
+    }
 }
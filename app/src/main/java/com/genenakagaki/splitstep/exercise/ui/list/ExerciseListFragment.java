@@ -10,6 +10,7 @@ import android.support.v4.content.ContextCompat;
 import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.SearchView;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -20,7 +21,6 @@ import android.widget.TextView;
 
 import com.genenakagaki.splitstep.R;
 import com.genenakagaki.splitstep.exercise.data.ExerciseSharedPref;
-import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 
 import java.util.List;
 
@@ -73,12 +73,52 @@ public class ExerciseListFragment extends Fragment {
             drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
         }
 
+        drawable = menu.findItem(R.id.action_delete).getIcon();
+        if (drawable != null) {
+            drawable.mutate();
+            int color = ContextCompat.getColor(getActivity(), android.R.color.white);
+            drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+        }
+
+        MenuItem searchItem = menu.findItem(R.id.action_search);
+        drawable = searchItem.getIcon();
+        if (drawable != null) {
+            drawable.mutate();
+            int color = ContextCompat.getColor(getActivity(), android.R.color.white);
+            drawable.setColorFilter(color, PorterDuff.Mode.SRC_ATOP);
+        }
+
+        SearchView searchView = (SearchView) searchItem.getActionView();
+        // the menu is created again when edit mode changes, keep showing the search
+        String searchQuery = mViewModel.getSearchQuery();
+        if (searchQuery != null) {
+            searchItem.expandActionView();
+            searchView.setQuery(searchQuery, false);
+            searchView.clearFocus();
+        }
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                mViewModel.setSearchQuery(query);
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                // collapsing the search clears it, which lists every exercise again
+                mViewModel.setSearchQuery(newText);
+                return true;
+            }
+        });
+
         if (mViewModel.isEditMode()) {
             menu.findItem(R.id.action_edit).setVisible(false);
             menu.findItem(R.id.action_cancel).setVisible(true);
+            menu.findItem(R.id.action_delete).setVisible(!mViewModel.getSelectedIds().isEmpty());
         } else {
             menu.findItem(R.id.action_edit).setVisible(true);
             menu.findItem(R.id.action_cancel).setVisible(false);
+            menu.findItem(R.id.action_delete).setVisible(false);
         }
     }
 
@@ -93,9 +133,17 @@ public class ExerciseListFragment extends Fragment {
                 break;
             case R.id.action_cancel:
                 Timber.d("action_cancel");
-                mViewModel.setEditMode(false);
-                getActivity().invalidateOptionsMenu();
-                mExerciseAdapter.notifyDataSetChanged();
+                finishEditMode();
+                break;
+            case R.id.action_delete:
+                Timber.d("action_delete");
+                List<Long> selectedIds = mViewModel.getSelectedIds();
+                String deleteMessage = getResources().getQuantityString(
+                        R.plurals.delete_exercises_message, selectedIds.size(), selectedIds.size());
+
+                DeleteExerciseDialog dialog = DeleteExerciseDialog.newInstance(selectedIds, deleteMessage);
+                dialog.setTargetFragment(this, 0);
+                dialog.show(getFragmentManager(), DeleteExerciseDialog.class.getSimpleName());
                 break;
         }
 
@@ -131,12 +179,17 @@ public class ExerciseListFragment extends Fragment {
         super.onResume();
         mDisposable = new CompositeDisposable();
 
-        mDisposable.add(mViewModel.getExercisesSubject()
-                .subscribe(new Consumer<List<Exercise>>() {
+        mDisposable.add(mViewModel.getExerciseUpdates()
+                .subscribe(new Consumer<ExerciseListUpdate>() {
                     @Override
-                    public void accept(List<Exercise> exercises) throws Exception {
-                        mExerciseAdapter.clear();
-                        mExerciseAdapter.addAll(exercises);
+                    public void accept(ExerciseListUpdate update) throws Exception {
+                        if (update.isReload()) {
+                            mExerciseAdapter.setExercises(update.getExercises(), update.hasMore());
+                        } else if (update.isPage()) {
+                            mExerciseAdapter.addPage(update.getAfterId(), update.getExercises(), update.hasMore());
+                        } else {
+                            mExerciseAdapter.update(update.getIds(), update.getExercises());
+                        }
 
                         if (mExerciseAdapter.getItemCount() > 0) {
                             mEmptyTextView.setVisibility(View.GONE);
@@ -147,8 +200,6 @@ public class ExerciseListFragment extends Fragment {
                         }
                     }
                 }));
-
-        getExerciseList();
     }
 
     @Override
@@ -173,8 +224,13 @@ public class ExerciseListFragment extends Fragment {
         fragment.show(getFragmentManager(), AddExerciseDialog.class.getSimpleName());
     }
 
-    public void getExerciseList() {
-        mDisposable.add(mViewModel.getExerciseList().subscribe());
+    /**
+     * Leaves edit mode and clears the selection.
+     */
+    public void finishEditMode() {
+        mViewModel.setEditMode(false);
+        getActivity().invalidateOptionsMenu();
+        mExerciseAdapter.notifyDataSetChanged();
     }
 
     public CompositeDisposable getDisposable() {
@@ -3,6 +3,9 @@ package com.genenakagaki.splitstep.exercise.ui.list;
 import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ExerciseColumnUpdate;
+import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
 
@@ -42,16 +45,17 @@ public class ExerciseListItemViewModel {
     }
 
     public Completable toggleExerciseFavorite() {
-        return Completable.create(new CompletableOnSubscribe() {
-            @Override
-            public void subscribe(@io.reactivex.annotations.NonNull CompletableEmitter e) throws Exception {
-                mExercise.favorite = !mExercise.favorite;
-                mExercise.update();
-                mExerciseSubject.onNext(mExercise);
-                e.onComplete();
-            }
-        }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
+        // list rows don't have every column, only the favorite column is written
+        return ExerciseDao.getInstance().update(new ExerciseColumnUpdate(mExercise).favorite(!mExercise.favorite))
+                .andThen(Completable.create(new CompletableOnSubscribe() {
+                    @Override
+                    public void subscribe(@io.reactivex.annotations.NonNull CompletableEmitter e) throws Exception {
+                        mExerciseSubject.onNext(mExercise);
+                        e.onComplete();
+                    }
+                }))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeOn(DatabaseSchedulers.write());
     }
 
     public String getExerciseDisplayable() {
@@ -0,0 +1,70 @@
+package com.genenakagaki.splitstep.exercise.ui.list;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+
+import java.util.List;
+
+/**
+ * A change to apply to the exercise list.
+ *
+ * A reload replaces the whole list with its first page, and a page is appended if the list still
+ * ends where the page was requested from. Otherwise each id is replaced by the exercise found for
+ * it, added if it wasn't listed yet, or removed if no exercise was found.
+ */
+public class ExerciseListUpdate {
+
+    private final List<Long> ids;
+    private final List<Exercise> exercises;
+    private final long afterId;
+    private final boolean hasMore;
+
+    public static ExerciseListUpdate reload(List<Exercise> exercises, boolean hasMore) {
+        return new ExerciseListUpdate(null, exercises, ExerciseDao.FIRST_PAGE, hasMore);
+    }
+
+    public static ExerciseListUpdate page(long afterId, List<Exercise> exercises, boolean hasMore) {
+        return new ExerciseListUpdate(null, exercises, afterId, hasMore);
+    }
+
+    public static ExerciseListUpdate rows(List<Long> ids, List<Exercise> exercises) {
+        return new ExerciseListUpdate(ids, exercises, ExerciseDao.FIRST_PAGE, false);
+    }
+
+    private ExerciseListUpdate(List<Long> ids, List<Exercise> exercises, long afterId, boolean hasMore) {
+        this.ids = ids;
+        this.exercises = exercises;
+        this.afterId = afterId;
+        this.hasMore = hasMore;
+    }
+
+    public boolean isReload() {
+        return ids == null && afterId == ExerciseDao.FIRST_PAGE;
+    }
+
+    public boolean isPage() {
+        return ids == null && afterId != ExerciseDao.FIRST_PAGE;
+    }
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public List<Exercise> getExercises() {
+        return exercises;
+    }
+
+    /**
+     * @return id of the last exercise before the page
+     */
+    public long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * @return true if there are exercises after the reload or page
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
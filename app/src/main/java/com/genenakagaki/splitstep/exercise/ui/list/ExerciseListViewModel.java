@@ -3,22 +3,29 @@ package com.genenakagaki.splitstep.exercise.ui.list;
 import android.content.Context;
 
 import com.genenakagaki.splitstep.R;
+import com.genenakagaki.splitstep.exercise.data.DatabaseSchedulers;
+import com.genenakagaki.splitstep.exercise.data.ExerciseChange;
 import com.genenakagaki.splitstep.exercise.data.ExerciseDao;
+import com.genenakagaki.splitstep.exercise.data.ExerciseSearch;
 import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
 import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.raizlabs.android.dbflow.structure.BaseModel;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
-import io.reactivex.Completable;
-import io.reactivex.CompletableEmitter;
-import io.reactivex.CompletableOnSubscribe;
-import io.reactivex.CompletableSource;
 import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.functions.Function;
-import io.reactivex.schedulers.Schedulers;
-import io.reactivex.subjects.BehaviorSubject;
+import io.reactivex.subjects.PublishSubject;
 import timber.log.Timber;
 
 
@@ -28,32 +35,60 @@ import timber.log.Timber;
 
 public class ExerciseListViewModel {
 
+    public static final int PAGE_SIZE = 50;
+
+    /** How long typing has to pause before the search is run. */
+    public static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
     private Context context;
 
     private ExerciseType exerciseType;
     private boolean isEditMode;
+    private Set<Long> selectedIds = new LinkedHashSet<>();
 
-    private BehaviorSubject<List<Exercise>> exercisesSubject = BehaviorSubject.create();
+    private PublishSubject<Long> pageRequests = PublishSubject.create();
+    private PublishSubject<String> searchQueries = PublishSubject.create();
+
+    private String searchQuery;
+    /** The query the list shows the results of, null for every exercise. Only used by the loads. */
+    private String shownQuery;
 
     public ExerciseListViewModel(Context context, ExerciseType exerciseType) {
         this.context = context;
         this.exerciseType = exerciseType;
     }
 
-    public Observable<List<Exercise>> getExercisesSubject() {
-        return exercisesSubject
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.io());
-    }
-
+    /**
+     * Leaving edit mode clears the selection.
+     */
     public void setEditMode(boolean isEditMode) {
         this.isEditMode = isEditMode;
+        if (!isEditMode) {
+            selectedIds.clear();
+        }
     }
 
     public boolean isEditMode() {
         return isEditMode;
     }
 
+    public void toggleSelected(long exerciseId) {
+        if (!selectedIds.remove(exerciseId)) {
+            selectedIds.add(exerciseId);
+        }
+    }
+
+    public boolean isSelected(long exerciseId) {
+        return selectedIds.contains(exerciseId);
+    }
+
+    /**
+     * @return the ids selected in edit mode, in the order they were selected
+     */
+    public List<Long> getSelectedIds() {
+        return new ArrayList<>(selectedIds);
+    }
+
     public String getTitle() {
         switch (exerciseType) {
             case REGULAR:
@@ -63,21 +98,147 @@ public class ExerciseListViewModel {
         }
     }
 
-    public Completable getExerciseList() {
-        Timber.d("getExerciseList");
+    /**
+     * Searches the exercises of the type once typing pauses for {@link #SEARCH_DEBOUNCE_MILLIS}.
+     * The results are emitted by {@link #getExerciseUpdates()} as a reload, a query without words
+     * reloads every exercise.
+     */
+    public void setSearchQuery(String query) {
+        searchQuery = query;
+        searchQueries.onNext(query);
+    }
+
+    /**
+     * @return the query last set, null if there is none
+     */
+    public String getSearchQuery() {
+        return searchQuery == null || searchQuery.isEmpty() ? null : searchQuery;
+    }
+
+    /**
+     * Requests the page after the exercise with the id. The page is emitted by
+     * {@link #getExerciseUpdates()}.
+     */
+    public void requestPage(long afterId) {
+        pageRequests.onNext(afterId);
+    }
+
+    /**
+     * Emits the first page, then the pages requested and the rows that changed, in order, for as
+     * long as it is subscribed to.
+     *
+     * While searching the list is the best {@link #PAGE_SIZE} matches, searched again on any
+     * change.
+     */
+    public Observable<ExerciseListUpdate> getExerciseUpdates() {
+        Timber.d("getExerciseUpdates");
+
+        // listen for changes before the first load so no write can fall in between
+        Observable<Callable<Single<ExerciseListUpdate>>> changeLoads = Observable.merge(
+                ExerciseDao.getInstance().getChanges(exerciseType),
+                Observable.just(ExerciseChange.forTable(BaseModel.Action.CHANGE)))
+                .map(new Function<ExerciseChange, Callable<Single<ExerciseListUpdate>>>() {
+                    @Override
+                    public Callable<Single<ExerciseListUpdate>> apply(@NonNull final ExerciseChange change) throws Exception {
+                        return new Callable<Single<ExerciseListUpdate>>() {
+                            @Override
+                            public Single<ExerciseListUpdate> call() throws Exception {
+                                return loadChange(change);
+                            }
+                        };
+                    }
+                });
+
+        Observable<Callable<Single<ExerciseListUpdate>>> pageLoads = pageRequests
+                .map(new Function<Long, Callable<Single<ExerciseListUpdate>>>() {
+                    @Override
+                    public Callable<Single<ExerciseListUpdate>> apply(@NonNull final Long afterId) throws Exception {
+                        return new Callable<Single<ExerciseListUpdate>>() {
+                            @Override
+                            public Single<ExerciseListUpdate> call() throws Exception {
+                                return loadPage(afterId);
+                            }
+                        };
+                    }
+                });
+
+        Observable<Callable<Single<ExerciseListUpdate>>> searchLoads = searchQueries
+                .debounce(SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)
+                .distinctUntilChanged()
+                .map(new Function<String, Callable<Single<ExerciseListUpdate>>>() {
+                    @Override
+                    public Callable<Single<ExerciseListUpdate>> apply(@NonNull final String query) throws Exception {
+                        return new Callable<Single<ExerciseListUpdate>>() {
+                            @Override
+                            public Single<ExerciseListUpdate> call() throws Exception {
+                                shownQuery = new ExerciseSearch(query).isEmpty() ? null : query;
+                                return loadChange(ExerciseChange.forTable(BaseModel.Action.CHANGE));
+                            }
+                        };
+                    }
+                });
+
+        // one load at a time, chosen when its turn comes, so a change loads what the list shows
+        // and updates reach the list in the order they happened
+        return Observable.merge(changeLoads, pageLoads, searchLoads)
+                .observeOn(DatabaseSchedulers.read())
+                .concatMap(new Function<Callable<Single<ExerciseListUpdate>>, ObservableSource<ExerciseListUpdate>>() {
+                    @Override
+                    public ObservableSource<ExerciseListUpdate> apply(@NonNull Callable<Single<ExerciseListUpdate>> load) throws Exception {
+                        return load.call().toObservable();
+                    }
+                })
+                .observeOn(AndroidSchedulers.mainThread());
+    }
+
+    private Single<ExerciseListUpdate> loadChange(final ExerciseChange change) {
+        if (shownQuery != null) {
+            return loadSearch(shownQuery);
+        }
+
+        if (change.isTableChange()) {
+            return loadPage(ExerciseDao.FIRST_PAGE);
+        }
+
+        if (change.getAction() == BaseModel.Action.DELETE) {
+            return Single.just(ExerciseListUpdate.rows(change.getIds(), Collections.<Exercise>emptyList()));
+        }
+
+        return ExerciseDao.getInstance().findByIds(exerciseType, change.getIds())
+                .map(new Function<List<Exercise>, ExerciseListUpdate>() {
+                    @Override
+                    public ExerciseListUpdate apply(@NonNull List<Exercise> exercises) throws Exception {
+                        return ExerciseListUpdate.rows(change.getIds(), exercises);
+                    }
+                });
+    }
+
+    private Single<ExerciseListUpdate> loadPage(final long afterId) {
+        // one more than a page tells whether there is a next page without querying it
+        return ExerciseDao.getInstance().findPage(exerciseType, afterId, PAGE_SIZE + 1)
+                .map(new Function<List<Exercise>, ExerciseListUpdate>() {
+                    @Override
+                    public ExerciseListUpdate apply(@NonNull List<Exercise> exercises) throws Exception {
+                        boolean hasMore = exercises.size() > PAGE_SIZE;
+                        if (hasMore) {
+                            exercises = exercises.subList(0, PAGE_SIZE);
+                        }
+
+                        if (afterId == ExerciseDao.FIRST_PAGE) {
+                            return ExerciseListUpdate.reload(exercises, hasMore);
+                        }
+                        return ExerciseListUpdate.page(afterId, exercises, hasMore);
+                    }
+                });
+    }
 
-        return ExerciseDao.getInstance().findByType(exerciseType).flatMapCompletable(new Function<List<Exercise>, CompletableSource>() {
-            @Override
-            public CompletableSource apply(@NonNull final List<Exercise> exercises) throws Exception {
-                return Completable.create(new CompletableOnSubscribe() {
+    private Single<ExerciseListUpdate> loadSearch(String query) {
+        return ExerciseDao.getInstance().search(exerciseType, query, PAGE_SIZE)
+                .map(new Function<List<Exercise>, ExerciseListUpdate>() {
                     @Override
-                    public void subscribe(@NonNull CompletableEmitter e) throws Exception {
-                        exercisesSubject.onNext(exercises);
-                        e.onComplete();
+                    public ExerciseListUpdate apply(@NonNull List<Exercise> exercises) throws Exception {
+                        return ExerciseListUpdate.reload(exercises, false);
                     }
                 });
-            }
-        }).observeOn(AndroidSchedulers.mainThread())
-                .subscribeOn(Schedulers.computation());
     }
 }
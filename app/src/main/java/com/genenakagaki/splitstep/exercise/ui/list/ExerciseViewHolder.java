@@ -1,10 +1,9 @@
 package com.genenakagaki.splitstep.exercise.ui.list;
 
 import android.content.Context;
-import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
-import android.widget.ImageButton;
+import android.widget.CheckBox;
 import android.widget.ImageSwitcher;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
@@ -29,16 +28,18 @@ import timber.log.Timber;
  */
 
 public class ExerciseViewHolder extends RecyclerView.ViewHolder {
-    @BindView(R.id.delete_button) ImageButton mDeleteButton;
+    @BindView(R.id.select_checkbox) CheckBox mSelectCheckBox;
     @BindView(R.id.favorite_imageswitcher) ImageSwitcher mFavoriteImageSwitcher;
     @BindView(R.id.name_textview) TextView mNameTextButton;
 
     private Context mContext;
+    private ExerciseListViewModel mListViewModel;
     private ExerciseListItemViewModel mListItemViewModel;
 
-    public ExerciseViewHolder(View view, Context context) {
+    public ExerciseViewHolder(View view, Context context, ExerciseListViewModel listViewModel) {
         super(view);
         mContext = context;
+        mListViewModel = listViewModel;
         ButterKnife.bind(this, view);
         mFavoriteImageSwitcher.setFactory(new ViewSwitcher.ViewFactory() {
             @Override
@@ -74,14 +75,6 @@ public class ExerciseViewHolder extends RecyclerView.ViewHolder {
                 }));
     }
 
-    @OnClick(R.id.delete_button)
-    public void onDeleteButtonClick() {
-        DeleteExerciseDialog dialog = DeleteExerciseDialog.newInstance(
-                mListItemViewModel.getExercise().id, mListItemViewModel.getExerciseDisplayable());
-        AppCompatActivity activity = (AppCompatActivity) mContext;
-        dialog.show(activity.getSupportFragmentManager(), DeleteExerciseDialog.class.getSimpleName());
-    }
-
     @OnClick(R.id.favorite_imageswitcher)
     public void onFavoriteClick() {
         Timber.d("onFavoriteClick");
@@ -92,6 +85,16 @@ public class ExerciseViewHolder extends RecyclerView.ViewHolder {
     public void onExerciseClick() {
         Timber.d("onExerciseClick");
         ExerciseActivity activity = (ExerciseActivity) mContext;
+
+        if (mListViewModel.isEditMode()) {
+            long exerciseId = mListItemViewModel.getExercise().id;
+            mListViewModel.toggleSelected(exerciseId);
+            mSelectCheckBox.setChecked(mListViewModel.isSelected(exerciseId));
+            // the delete action shows while something is selected
+            activity.invalidateOptionsMenu();
+            return;
+        }
+
         ExerciseSharedPref.setExerciseId(mContext, mListItemViewModel.getExercise().id);
 
         switch (ExerciseSharedPref.getExerciseType(mContext)) {
@@ -0,0 +1,109 @@
+package com.genenakagaki.splitstep.exercise.ui.model;
+
+import android.content.Context;
+
+import com.genenakagaki.splitstep.R;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Shared, precomputed text for every duration that can be displayed (00:00 to 99:59).
+ *
+ * Each string is built at most once, so formatting on the coach screen's tick path produces no
+ * garbage.
+ */
+public class DurationFormat {
+
+    public static final int MAX_MINUTES = 99;
+    public static final int MAX_DURATION = MAX_MINUTES * 60 + 59;
+
+    private static final String[] NUMBERS = new String[MAX_MINUTES + 1];
+    private static final String[] TWO_DIGITS = new String[MAX_MINUTES + 1];
+
+    static {
+        for (int i = 0; i <= MAX_MINUTES; i++) {
+            NUMBERS[i] = Integer.toString(i);
+            TWO_DIGITS[i] = i < 10 ? "0" + i : NUMBERS[i];
+        }
+    }
+
+    private static final String[] TIMER_DISPLAY = new String[MAX_DURATION + 1];
+
+    private static final String[] DETAIL_DISPLAY = new String[MAX_DURATION + 1];
+    private static Locale detailDisplayLocale;
+
+    private DurationFormat() {}
+
+    /**
+     * @return the number without padding, e.g. "7".
+     */
+    public static String getNumber(int number) {
+        if (number < 0 || number > MAX_MINUTES) {
+            return Integer.toString(number);
+        }
+        return NUMBERS[number];
+    }
+
+    /**
+     * @return the number padded to 2 digits, e.g. "07".
+     */
+    public static String getTwoDigits(int number) {
+        return TWO_DIGITS[clamp(number, MAX_MINUTES)];
+    }
+
+    /**
+     * @return a new array of the 2 digit strings from "00" up to count - 1.
+     */
+    public static String[] getTwoDigitValues(int count) {
+        return Arrays.copyOf(TWO_DIGITS, count);
+    }
+
+    /**
+     * @return the duration as shown on the coach screen, e.g. "01 : 30".
+     */
+    public static String getTimerDisplay(int duration) {
+        duration = clamp(duration, MAX_DURATION);
+
+        String display = TIMER_DISPLAY[duration];
+        if (display == null) {
+            display = TWO_DIGITS[duration / 60] + " : " + TWO_DIGITS[duration % 60];
+            TIMER_DISPLAY[duration] = display;
+        }
+        return display;
+    }
+
+    /**
+     * @return the duration as shown on the exercise detail screen, e.g. "1 minutes 30 seconds".
+     */
+    public static synchronized String getDetailDisplay(Context context, int duration) {
+        duration = clamp(duration, MAX_DURATION);
+
+        Locale locale = context.getResources().getConfiguration().locale;
+        if (!locale.equals(detailDisplayLocale)) {
+            Arrays.fill(DETAIL_DISPLAY, null);
+            detailDisplayLocale = locale;
+        }
+
+        String display = DETAIL_DISPLAY[duration];
+        if (display == null) {
+            int minutes = duration / 60;
+            int seconds = duration % 60;
+
+            if (minutes == 0) {
+                display = context.getString(R.string.duration_value_seconds, seconds);
+            } else {
+                display = context.getString(R.string.duration_value, minutes, seconds);
+            }
+            DETAIL_DISPLAY[duration] = display;
+        }
+        return display;
+    }
+
+    private static int clamp(int value, int max) {
+        if (value < 0) {
+            return 0;
+        }
+        return value > max ? max : value;
+    }
+}
@@ -0,0 +1,184 @@
+package com.genenakagaki.splitstep.exercise.ui.view;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.v4.content.ContextCompat;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.genenakagaki.splitstep.R;
+
+/**
+ * The dial in the middle of the coach screen.
+ *
+ * Draws the sets ring, the rest ring, the timed set ring and the timer text in a single
+ * {@link #onDraw(Canvas)}. The view is always square, as wide as it is allowed to be. Every setter
+ * only invalidates when the value changes.
+ */
+public class CoachDialView extends View {
+
+    private static final float START_ANGLE = -90;
+
+    private final Paint trackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint setsPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint restPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint timedSetPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final RectF outerRing = new RectF();
+    private final RectF innerRing = new RectF();
+
+    private final float ringWidth;
+    private final float ringGap;
+
+    private int setsMax = 1;
+    private int setsProgress;
+    private int restMax = 1;
+    private int restProgress;
+    private boolean isRestVisible;
+    private int timedSetMax = 1;
+    private int timedSetProgress;
+    private boolean isTimedSetVisible;
+    private String text = "";
+
+    public CoachDialView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+
+        Resources resources = context.getResources();
+        ringWidth = resources.getDimension(R.dimen.coach_dial_ring_width);
+        ringGap = resources.getDimension(R.dimen.coach_dial_ring_gap);
+
+        initRingPaint(trackPaint, ContextCompat.getColor(context, R.color.lightGray));
+        initRingPaint(setsPaint, ContextCompat.getColor(context, R.color.green));
+        initRingPaint(restPaint, ContextCompat.getColor(context, R.color.restProgressColor));
+        initRingPaint(timedSetPaint, ContextCompat.getColor(context, R.color.repsProgressColor));
+
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        textPaint.setTextSize(resources.getDimension(R.dimen.coach_dial_text_size));
+
+        // same color as a plain TextView
+        TypedArray typedArray = context.obtainStyledAttributes(new int[] {android.R.attr.textColorPrimary});
+        textPaint.setColor(typedArray.getColor(0, Color.BLACK));
+        typedArray.recycle();
+    }
+
+    public void setSetsMax(int max) {
+        if (setsMax != max) {
+            setsMax = Math.max(max, 1);
+            invalidate();
+        }
+    }
+
+    public void setSetsProgress(int progress) {
+        if (setsProgress != progress) {
+            setsProgress = progress;
+            invalidate();
+        }
+    }
+
+    public void setRestMax(int max) {
+        if (restMax != max) {
+            restMax = Math.max(max, 1);
+            invalidate();
+        }
+    }
+
+    public void setRestProgress(int progress) {
+        if (restProgress != progress) {
+            restProgress = progress;
+            if (isRestVisible) {
+                invalidate();
+            }
+        }
+    }
+
+    public void setRestVisible(boolean isVisible) {
+        if (isRestVisible != isVisible) {
+            isRestVisible = isVisible;
+            invalidate();
+        }
+    }
+
+    public void setTimedSetMax(int max) {
+        if (timedSetMax != max) {
+            timedSetMax = Math.max(max, 1);
+            invalidate();
+        }
+    }
+
+    public void setTimedSetProgress(int progress) {
+        if (timedSetProgress != progress) {
+            timedSetProgress = progress;
+            if (isTimedSetVisible) {
+                invalidate();
+            }
+        }
+    }
+
+    public void setTimedSetVisible(boolean isVisible) {
+        if (isTimedSetVisible != isVisible) {
+            isTimedSetVisible = isVisible;
+            invalidate();
+        }
+    }
+
+    public void setText(String text) {
+        if (!this.text.equals(text)) {
+            this.text = text;
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int size = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            size = Math.min(size, MeasureSpec.getSize(heightMeasureSpec));
+        }
+        setMeasuredDimension(size, size);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+
+        float inset = ringWidth / 2;
+        outerRing.set(inset, inset, w - inset, h - inset);
+
+        inset += ringWidth + ringGap;
+        innerRing.set(inset, inset, w - inset, h - inset);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        canvas.drawOval(outerRing, trackPaint);
+        canvas.drawArc(outerRing, START_ANGLE, getSweepAngle(setsProgress, setsMax), false, setsPaint);
+
+        canvas.drawOval(innerRing, trackPaint);
+        if (isRestVisible) {
+            canvas.drawArc(innerRing, START_ANGLE, getSweepAngle(restProgress, restMax), false, restPaint);
+        }
+        if (isTimedSetVisible) {
+            canvas.drawArc(innerRing, START_ANGLE,
+                    getSweepAngle(timedSetProgress, timedSetMax), false, timedSetPaint);
+        }
+
+        float baseline = getHeight() / 2f - (textPaint.descent() + textPaint.ascent()) / 2;
+        canvas.drawText(text, getWidth() / 2f, baseline, textPaint);
+    }
+
+    private void initRingPaint(Paint paint, int color) {
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeWidth(ringWidth);
+        paint.setColor(color);
+    }
+
+    private static float getSweepAngle(int progress, int max) {
+        return 360f * Math.min(Math.max(progress, 0), max) / max;
+    }
+}
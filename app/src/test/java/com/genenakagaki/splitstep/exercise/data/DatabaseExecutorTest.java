@@ -0,0 +1,122 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DatabaseExecutorTest {
+
+    private DatabaseExecutor mExecutor;
+    private Scheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mExecutor = new DatabaseExecutor("test", 1);
+        mScheduler = Schedulers.from(mExecutor);
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testWrites_FromManyThreads_ShouldRunOneAtATimeInOrder() throws Exception {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        List<Completable> writes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int write = i;
+            writes.add(Completable.fromAction(new Action() {
+                @Override
+                public void run() throws Exception {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    order.add(write);
+                    Thread.sleep(1);
+                    running.decrementAndGet();
+                }
+            }).subscribeOn(mScheduler));
+        }
+        Completable.merge(writes).blockingAwait(5, TimeUnit.SECONDS);
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(20, order.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void testMetrics_WithBlockedThread_ShouldCountQueueDepthAndWait() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(4);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertEquals(3, mExecutor.getQueueDepth());
+        Thread.sleep(20);
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // the last task finishes counting just after it counts down
+        Thread.sleep(20);
+
+        assertEquals(0, mExecutor.getQueueDepth());
+        assertEquals(3, mExecutor.getMaxQueueDepth());
+        assertEquals(4, mExecutor.getCompletedCount());
+        assertTrue(mExecutor.getMaxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+        assertTrue(mExecutor.getMaxExecutionNanos() >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    public void testResetMetrics_ShouldStartOver() throws Exception {
+        Single.fromCallable(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return 1;
+            }
+        }).subscribeOn(mScheduler).blockingGet();
+
+        mExecutor.resetMetrics();
+
+        assertEquals(0, mExecutor.getCompletedCount());
+        assertEquals(0, mExecutor.getAverageWaitNanos());
+        assertEquals(0, mExecutor.getMaxExecutionNanos());
+    }
+}
@@ -0,0 +1,45 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ExerciseNameTest {
+
+    private static final String[] NAMES = {
+            "Lateral Shuffle", "  lateral \t shuffle\n", "A  B   C    D", "\u00c9lan Sprint", "x", "", "   ",
+            "Drill 2 (Box)", "Z-A"
+    };
+
+    @Test
+    public void testNormalize_ShouldFoldCaseAndSpacing() {
+        assertEquals("lateral shuffle", ExerciseName.normalize("Lateral Shuffle"));
+        assertEquals("lateral shuffle", ExerciseName.normalize(" lateral\t\tshuffle \r\n"));
+        // only ASCII letters are folded
+        assertEquals("\u00c9lan", ExerciseName.normalize("\u00c9lan"));
+        assertEquals("", ExerciseName.normalize("  "));
+    }
+
+    @Test
+    public void testToSql_ShouldNormalizeLikeNormalize() throws Exception {
+        JdbcDatabase database = JdbcDatabase.inMemory();
+        try {
+            database.execute("CREATE TABLE `names`(`name` TEXT, `normalizedName` TEXT)");
+            for (String name: NAMES) {
+                database.execute("INSERT INTO `names`(`name`) VALUES ('" + name + "')");
+            }
+            for (String normalize: ExerciseName.toSql("`name`", "`normalizedName`")) {
+                database.execute("UPDATE `names` SET `normalizedName` = " + normalize);
+            }
+
+            for (String name: NAMES) {
+                assertEquals(ExerciseName.normalize(name), database.queryStrings(
+                        "SELECT `normalizedName` FROM `names` WHERE `name` = ?", name).get(0));
+            }
+        } finally {
+            database.close();
+        }
+    }
+}
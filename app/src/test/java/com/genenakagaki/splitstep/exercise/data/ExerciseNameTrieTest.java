@@ -0,0 +1,44 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ExerciseNameTrieTest {
+
+    private final ExerciseNameTrie mTrie = new ExerciseNameTrie(Arrays.asList(
+            "Lateral Shuffle", "Lateral Hop", "Ladder Run", "lateral shuffle", "Skip", "Skips", "Sprint"));
+
+    @Test
+    public void testAdd_WithSameNormalizedName_ShouldKeepFirst() {
+        assertEquals(6, mTrie.size());
+        assertEquals("Lateral Shuffle", mTrie.find("LATERAL  shuffle "));
+    }
+
+    @Test
+    public void testFind_WithPrefixOnly_ShouldReturnNull() {
+        assertNull(mTrie.find("Lateral"));
+        assertNull(mTrie.find(""));
+    }
+
+    @Test
+    public void testComplete_ShouldReturnNamesStartingWithPrefixInOrder() {
+        assertEquals(Arrays.asList("Lateral Hop", "Lateral Shuffle"), mTrie.complete("lat", 5));
+        assertEquals(Collections.singletonList("Ladder Run"), mTrie.complete("La", 1));
+        // not the name itself
+        assertEquals(Collections.singletonList("Skips"), mTrie.complete("skip", 5));
+        assertEquals(Collections.<String>emptyList(), mTrie.complete("", 5));
+    }
+
+    @Test
+    public void testFindSimilar_ShouldReturnNearestNamesFirst() {
+        assertEquals(Collections.singletonList("Lateral Shuffle"), mTrie.findSimilar("Lateral Shufle", 1, 5));
+        assertEquals(Arrays.asList("Skip", "Skips"), mTrie.findSimilar("Skipz", 1, 5));
+        assertEquals(Arrays.asList("Skip", "Skips"), mTrie.findSimilar("Skp", 2, 5));
+        assertEquals(Collections.<String>emptyList(), mTrie.findSimilar("Sprint", 1, 5));
+    }
+}
@@ -0,0 +1,59 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.migration.CreateIndexesMigration;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Times searches of a big library in a database file, from a single letter, which matches most
+ * exercises, to a whole name.
+ */
+public class ExerciseSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "agility", "ladder", "cone", "shuffle", "sprint", "jump", "squat", "lunge", "skip", "carioca",
+            "box", "drill", "lateral", "backpedal", "hop", "bound", "plank", "burpee", "crossover", "react"
+    };
+
+    private static final String[] QUERIES = { "s", "sp", "spr", "sprint", "sprint lad", "react cone 12" };
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkSearch_With50kExercises() throws Exception {
+        int exerciseCount = 50000;
+        JdbcDatabase database = JdbcDatabase.open(mFolder.newFile());
+        try {
+            database.createSchema();
+            database.executeInTransaction(new CreateIndexesMigration().getStatements());
+
+            long start = System.nanoTime();
+            database.getConnection().setAutoCommit(false);
+            for (int i = 0; i < exerciseCount; i++) {
+                ExerciseSearchTest.insert(database, ExerciseType.REGULAR_VALUE,
+                        WORDS[i % WORDS.length] + " " + WORDS[i / WORDS.length % WORDS.length] + " " + i,
+                        "notes on " + WORDS[(i + 7) % WORDS.length]);
+            }
+            database.getConnection().commit();
+            database.getConnection().setAutoCommit(true);
+            System.out.println(exerciseCount + " exercises inserted and indexed in "
+                    + (System.nanoTime() - start) / 1000000 + "ms");
+
+            for (String query: QUERIES) {
+                // the first run reads the pages in
+                ExerciseSearchTest.search(database, ExerciseType.REGULAR_VALUE, query, 50);
+                start = System.nanoTime();
+                int found = ExerciseSearchTest.search(database, ExerciseType.REGULAR_VALUE, query, 50).size();
+                System.out.println("\"" + query + "\": " + found + " found in "
+                        + (System.nanoTime() - start) / 1000 + "us");
+            }
+        } finally {
+            database.close();
+        }
+    }
+}
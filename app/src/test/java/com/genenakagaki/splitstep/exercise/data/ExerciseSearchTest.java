@@ -0,0 +1,127 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.migration.CreateIndexesMigration;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExerciseSearchTest {
+
+    private JdbcDatabase mDatabase;
+
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = JdbcDatabase.inMemory();
+        mDatabase.createSchema();
+        mDatabase.executeInTransaction(new CreateIndexesMigration().getStatements());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+
+    /**
+     * Inserts the exercise and the row of its type, as ExerciseDao does.
+     */
+    static void insert(JdbcDatabase database, int type, String name, String notes) throws Exception {
+        database.execute("INSERT INTO `Exercise`(`type`, `name`, `subType`, `favorite`) VALUES ("
+                + type + ", '" + name + "', 1, 0)");
+        String table = type == ExerciseType.REACTION_VALUE ? "ReactionExercise" : "RegularExercise";
+        database.execute("INSERT INTO `" + table + "`(`id`, `notes`)"
+                + " VALUES (last_insert_rowid(), " + (notes == null ? "NULL" : "'" + notes + "'") + ")");
+    }
+
+    static List<String> search(JdbcDatabase database, int type, String query, int limit) throws Exception {
+        ExerciseSearch search = new ExerciseSearch(query);
+        String sql = search.getQuery(type, limit);
+        // the names instead of the exercises
+        sql = "SELECT `name` FROM (" + sql + ")";
+        return database.queryStrings(sql, search.getArgs());
+    }
+
+    private List<String> search(String query) throws Exception {
+        return search(mDatabase, ExerciseType.REGULAR_VALUE, query, 50);
+    }
+
+    @Test
+    public void testExerciseSearch_WithoutWords_ShouldBeEmpty() {
+        assertTrue(new ExerciseSearch(" - \"* ").isEmpty());
+        assertFalse(new ExerciseSearch("a").isEmpty());
+    }
+
+    @Test
+    public void testGetMatch_ShouldMatchPrefixOfEveryWord() {
+        assertEquals("jump* squat*", new ExerciseSearch("  jump-\"squat ").getMatch());
+        // operators of the query syntax are words like any other
+        assertEquals("lunge* OR* NEAR*", new ExerciseSearch("lunge OR NEAR(").getMatch());
+    }
+
+    @Test
+    public void testSearch_WithPrefix_ShouldMatchWordsStartingWithIt() throws Exception {
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Squat", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Jump Squat", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Push up", null);
+
+        assertEquals(Arrays.asList("Squat", "Jump Squat"), search("squ"));
+        assertEquals(Collections.singletonList("Jump Squat"), search("sq ju"));
+        assertEquals(Collections.<String>emptyList(), search("quat"));
+    }
+
+    @Test
+    public void testSearch_WithNotes_ShouldRankNameMatchesFirst() throws Exception {
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Box drill", "start from a ladder");
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Ladder run", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Agility ladder", null);
+
+        assertEquals(Arrays.asList("Ladder run", "Agility ladder", "Box drill"), search("ladder"));
+    }
+
+    @Test
+    public void testSearch_ShouldOnlyFindExercisesOfType() throws Exception {
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Shuffle", null);
+        insert(mDatabase, ExerciseType.REACTION_VALUE, "Shuffle", "cones");
+
+        assertEquals(Collections.singletonList("Shuffle"),
+                search(mDatabase, ExerciseType.REACTION_VALUE, "cones", 50));
+        assertEquals(Collections.<String>emptyList(), search("cones"));
+    }
+
+    @Test
+    public void testSearch_WithLimit_ShouldFindBestMatches() throws Exception {
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Sprint b", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Hill sprint", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Sprint a", null);
+
+        assertEquals(Arrays.asList("Sprint a", "Sprint b"),
+                search(mDatabase, ExerciseType.REGULAR_VALUE, "sprint", 2));
+    }
+
+    @Test
+    public void testTriggers_ShouldKeepSearchInStep() throws Exception {
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Skip", null);
+        insert(mDatabase, ExerciseType.REGULAR_VALUE, "Carioca", null);
+
+        mDatabase.execute("UPDATE `Exercise` SET `name` = 'High knees' WHERE `id` = 1");
+        mDatabase.execute("UPDATE `RegularExercise` SET `notes` = 'lateral' WHERE `id` = 2");
+        assertEquals(Collections.<String>emptyList(), search("skip"));
+        assertEquals(Collections.singletonList("High knees"), search("knee"));
+        assertEquals(Collections.singletonList("Carioca"), search("lat"));
+
+        mDatabase.execute("PRAGMA foreign_keys = ON");
+        mDatabase.execute("DELETE FROM `Exercise` WHERE `id` = 2");
+        assertEquals(Collections.<String>emptyList(), search("carioca"));
+        assertEquals(1, mDatabase.count(ExerciseSearch.TABLE));
+    }
+}
@@ -0,0 +1,167 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.migration.CreateIndexesMigration;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pages through the exercise list on one connection while another logs reaction times a set at a
+ * time, the way the coach screen writes while the list refreshes. Run with SQLite's default
+ * rollback journal and with WAL and {@link DatabaseTuning}'s pragmas, as the app opens the database.
+ */
+public class WalBenchmark {
+
+    private static final int EXERCISE_COUNT = 10000;
+    private static final int SET_COUNT = 500;
+    private static final int REPS_PER_SET = 20;
+    private static final int PAGE_SIZE = 50;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkConcurrentReads_WithRollbackJournal() throws Exception {
+        benchmark("rollback journal", false);
+    }
+
+    @Test
+    public void benchmarkConcurrentReads_WithWal() throws Exception {
+        benchmark("WAL", true);
+    }
+
+    private void benchmark(String mode, boolean wal) throws Exception {
+        File file = mFolder.newFile();
+        JdbcDatabase setup = JdbcDatabase.open(file);
+        try {
+            setup.createSchema();
+            setup.executeInTransaction(new CreateIndexesMigration().getStatements());
+            setup.execute("WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < "
+                    + EXERCISE_COUNT + ") INSERT INTO `Exercise`(`type`, `name`, `subType`, `favorite`)"
+                    + " SELECT 1 + i % 2, 'exercise' || i, 1, 0 FROM n");
+        } finally {
+            setup.close();
+        }
+
+        final JdbcDatabase writer = open(file, wal);
+        final JdbcDatabase reader = open(file, wal);
+        try {
+            final CountDownLatch prepared = new CountDownLatch(1);
+            final AtomicBoolean writing = new AtomicBoolean(true);
+            final Exception[] readerError = new Exception[1];
+            final long[] reads = new long[1];
+            final long[] maxReadNanos = new long[1];
+            Thread readerThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        readPages(reader.getConnection(), prepared, writing, reads, maxReadNanos);
+                    } catch (Exception e) {
+                        readerError[0] = e;
+                        prepared.countDown();
+                    }
+                }
+            });
+
+            readerThread.start();
+            prepared.await();
+            long start = System.nanoTime();
+            try {
+                writeSets(writer.getConnection());
+            } finally {
+                writing.set(false);
+                readerThread.join();
+            }
+            long writeNanos = System.nanoTime() - start;
+
+            if (readerError[0] != null) {
+                throw readerError[0];
+            }
+            assertEquals(SET_COUNT * REPS_PER_SET, writer.count("ReactionTime"));
+            System.out.println(mode + ": " + SET_COUNT + " sets written in " + writeNanos / 1000000 + "ms, "
+                    + reads[0] + " pages read meanwhile (" + reads[0] * 1000000000L / writeNanos + "/s), "
+                    + "slowest read " + maxReadNanos[0] / 1000000 + "ms");
+        } finally {
+            writer.close();
+            reader.close();
+        }
+    }
+
+    private static JdbcDatabase open(File file, boolean wal) throws Exception {
+        JdbcDatabase database = JdbcDatabase.open(file);
+        // wait on locks instead of failing with SQLITE_BUSY, as Android does
+        database.execute("PRAGMA busy_timeout = 10000");
+        if (wal) {
+            database.execute("PRAGMA journal_mode = WAL");
+            for (String pragma: DatabaseTuning.PRAGMAS) {
+                database.execute(pragma);
+            }
+            database.execute(DatabaseTuning.AUTO_CHECKPOINT);
+        }
+        return database;
+    }
+
+    private static void writeSets(Connection connection) throws Exception {
+        connection.setAutoCommit(false);
+        PreparedStatement insert = connection.prepareStatement("INSERT INTO `ReactionTime`"
+                + "(`exerciseId`, `sessionStart`, `setNumber`, `cone`, `stimulusTime`, `responseTime`)"
+                + " VALUES (?, 0, ?, ?, ?, ?)");
+        try {
+            for (int set = 0; set < SET_COUNT; set++) {
+                for (int rep = 0; rep < REPS_PER_SET; rep++) {
+                    insert.setLong(1, 1 + set % EXERCISE_COUNT);
+                    insert.setInt(2, set);
+                    insert.setInt(3, rep % 4);
+                    insert.setLong(4, rep * 1000L);
+                    insert.setLong(5, rep * 1000L + 300);
+                    insert.executeUpdate();
+                }
+                connection.commit();
+            }
+        } finally {
+            insert.close();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void readPages(Connection connection, CountDownLatch prepared, AtomicBoolean writing,
+                                  long[] reads, long[] maxReadNanos) throws Exception {
+        PreparedStatement page = connection.prepareStatement("SELECT `id`, `type`, `name`, `subType`,"
+                + " `favorite` FROM `Exercise` WHERE `type` = ? AND `id` > ? ORDER BY `id` LIMIT " + PAGE_SIZE);
+        prepared.countDown();
+        try {
+            long lastId = 0;
+            while (writing.get()) {
+                long start = System.nanoTime();
+                page.setInt(1, ExerciseType.REGULAR_VALUE);
+                page.setLong(2, lastId);
+                ResultSet resultSet = page.executeQuery();
+                int rows = 0;
+                while (resultSet.next()) {
+                    lastId = resultSet.getLong(1);
+                    rows++;
+                }
+                resultSet.close();
+                if (rows < PAGE_SIZE) {
+                    lastId = 0;
+                }
+                reads[0]++;
+                maxReadNanos[0] = Math.max(maxReadNanos[0], System.nanoTime() - start);
+            }
+        } finally {
+            page.close();
+        }
+    }
+}
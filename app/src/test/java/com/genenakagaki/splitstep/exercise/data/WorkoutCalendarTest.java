@@ -0,0 +1,48 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+public class WorkoutCalendarTest {
+
+    // 2017-10-16, a Monday
+    private static final long MONDAY = 17455;
+
+    @Test
+    public void testGetDay_ShouldCountInTimeZone() {
+        // 2017-10-16 23:30 in Tokyo, still 14:30 in London
+        long time = MONDAY * WorkoutCalendar.DAY_MILLIS + (23 * 60 + 30 - 9 * 60) * 60 * 1000;
+
+        assertEquals(MONDAY, WorkoutCalendar.getDay(time, TimeZone.getTimeZone("Asia/Tokyo")));
+        assertEquals(MONDAY, WorkoutCalendar.getDay(time, TimeZone.getTimeZone("UTC")));
+        assertEquals(MONDAY + 1, WorkoutCalendar.getDay(time + 60 * 60 * 1000, TimeZone.getTimeZone("Asia/Tokyo")));
+        assertEquals(-1, WorkoutCalendar.getDay(-1, TimeZone.getTimeZone("UTC")));
+    }
+
+    @Test
+    public void testGetWeek_ShouldStartOnMonday() {
+        for (int i = 0; i < 7; i++) {
+            assertEquals(MONDAY, WorkoutCalendar.getWeek(MONDAY + i));
+        }
+        assertEquals(MONDAY - 7, WorkoutCalendar.getWeek(MONDAY - 1));
+        assertEquals(MONDAY + 7, WorkoutCalendar.getWeek(MONDAY + 7));
+    }
+
+    @Test
+    public void testToWeekSql_ShouldComputeSameAsGetWeek() throws Exception {
+        JdbcDatabase database = JdbcDatabase.inMemory();
+        try {
+            for (long day = 0; day < 30; day++) {
+                assertEquals(WorkoutCalendar.getWeek(day),
+                        database.queryLong("SELECT " + WorkoutCalendar.toWeekSql(String.valueOf(day))));
+            }
+        } finally {
+            database.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.migration.CreateIndexesMigration;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times reading a year of history of one exercise from the totals against adding up its log, in a
+ * database file holding years of sets of many exercises.
+ */
+public class WorkoutHistoryBenchmark {
+
+    private static final int EXERCISE_COUNT = 20;
+    private static final int DAY_COUNT = 3 * 365;
+    private static final int SETS_PER_DAY = 10;
+
+    // 2015-01-05, a Monday
+    private static final long FIRST_DAY = 16440;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkHistory_With3YearsOfSets() throws Exception {
+        JdbcDatabase database = JdbcDatabase.open(mFolder.newFile());
+        try {
+            database.createSchema();
+            database.executeInTransaction(new CreateIndexesMigration().getStatements());
+            for (int i = 0; i < EXERCISE_COUNT; i++) {
+                ExerciseSearchTest.insert(database, ExerciseType.REGULAR_VALUE, "exercise" + i, null);
+            }
+
+            long start = System.nanoTime();
+            database.getConnection().setAutoCommit(false);
+            for (int day = 0; day < DAY_COUNT; day++) {
+                for (int exercise = 1; exercise <= EXERCISE_COUNT; exercise++) {
+                    for (int set = 0; set < SETS_PER_DAY; set++) {
+                        WorkoutHistoryTest.insert(database, exercise, FIRST_DAY + day, 30000, set == 0 ? 0 : 90000);
+                    }
+                }
+            }
+            database.getConnection().commit();
+            database.getConnection().setAutoCommit(true);
+            System.out.println(database.count("SetLog") + " sets logged and totalled in "
+                    + (System.nanoTime() - start) / 1000000 + "ms");
+
+            long lastYear = FIRST_DAY + DAY_COUNT - 365;
+            String range = " AND `day` >= " + lastYear + " AND `day` < " + (FIRST_DAY + DAY_COUNT);
+            time(database, "daily totals", "SELECT `sets` FROM `DailySetTotal` WHERE `exerciseId` = 7" + range);
+            time(database, "daily from log", "SELECT COUNT(*) FROM `SetLog` WHERE `exerciseId` = 7" + range
+                    + " GROUP BY `day`");
+            time(database, "weekly totals", "SELECT `sets` FROM `WeeklySetTotal` WHERE `exerciseId` = 7"
+                    + " AND `week` >= " + WorkoutCalendar.getWeek(lastYear));
+            time(database, "weekly from log", "SELECT COUNT(*) FROM `SetLog` WHERE `exerciseId` = 7" + range
+                    + " GROUP BY " + WorkoutCalendar.toWeekSql("`day`"));
+
+            assertEquals(SETS_PER_DAY * 365, database.queryLong("SELECT SUM(`sets`) FROM `DailySetTotal`"
+                    + " WHERE `exerciseId` = 7" + range));
+        } finally {
+            database.close();
+        }
+    }
+
+    private static void time(JdbcDatabase database, String name, String sql) throws Exception {
+        // the first run reads the pages in
+        database.queryStrings(sql);
+        long start = System.nanoTime();
+        int rows = database.queryStrings(sql).size();
+        System.out.println(name + ": " + rows + " rows in " + (System.nanoTime() - start) / 1000 + "us");
+    }
+}
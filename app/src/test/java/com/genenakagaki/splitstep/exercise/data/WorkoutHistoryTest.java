@@ -0,0 +1,93 @@
+package com.genenakagaki.splitstep.exercise.data;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.migration.CreateIndexesMigration;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The daily and weekly totals kept by the triggers as sets are logged.
+ */
+public class WorkoutHistoryTest {
+
+    // 2017-10-16, a Monday
+    private static final long MONDAY = 17455;
+
+    private JdbcDatabase mDatabase;
+
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = JdbcDatabase.inMemory();
+        mDatabase.execute("PRAGMA foreign_keys = ON");
+        mDatabase.createSchema();
+        mDatabase.executeInTransaction(new CreateIndexesMigration().getStatements());
+
+        ExerciseSearchTest.insert(mDatabase, ExerciseType.REGULAR_VALUE, "Sprint", null);
+        ExerciseSearchTest.insert(mDatabase, ExerciseType.REGULAR_VALUE, "Shuffle", null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+
+    /**
+     * Inserts a set as SetLogDao does.
+     */
+    static void insert(JdbcDatabase database, long exerciseId, long day, long workMillis, long restMillis)
+            throws Exception {
+        database.execute("INSERT INTO `SetLog`(`exerciseId`, `sessionStart`, `setNumber`, `workMillis`,"
+                + " `restMillis`, `completedAt`, `day`) VALUES (" + exerciseId + ", 0, 0, " + workMillis + ", "
+                + restMillis + ", " + day * WorkoutCalendar.DAY_MILLIS + ", " + day + ")");
+    }
+
+    private String total(String table, String key, long exerciseId, long value) throws Exception {
+        return mDatabase.queryString("SELECT `sets` || ' ' || `workMillis` || ' ' || `restMillis` FROM `" + table
+                + "` WHERE `exerciseId` = " + exerciseId + " AND `" + key + "` = " + value);
+    }
+
+    @Test
+    public void testInsert_ShouldAddUpSetsOfTheDay() throws Exception {
+        insert(mDatabase, 1, MONDAY, 30000, 0);
+        insert(mDatabase, 1, MONDAY, 28000, 90000);
+        insert(mDatabase, 1, MONDAY + 1, 31000, 0);
+        insert(mDatabase, 2, MONDAY, 10000, 0);
+
+        assertEquals("2 58000 90000", total("DailySetTotal", "day", 1, MONDAY));
+        assertEquals("1 31000 0", total("DailySetTotal", "day", 1, MONDAY + 1));
+        assertEquals("1 10000 0", total("DailySetTotal", "day", 2, MONDAY));
+        assertEquals(3, mDatabase.count("DailySetTotal"));
+    }
+
+    @Test
+    public void testInsert_ShouldAddUpSetsOfTheWeekFromMonday() throws Exception {
+        insert(mDatabase, 1, MONDAY - 1, 20000, 0);
+        insert(mDatabase, 1, MONDAY, 30000, 0);
+        insert(mDatabase, 1, MONDAY + 6, 28000, 60000);
+
+        assertEquals("1 20000 0", total("WeeklySetTotal", "week", 1, MONDAY - 7));
+        assertEquals("2 58000 60000", total("WeeklySetTotal", "week", 1, MONDAY));
+        assertEquals(Arrays.asList(String.valueOf(MONDAY - 7), String.valueOf(MONDAY)),
+                mDatabase.queryStrings("SELECT `week` FROM `WeeklySetTotal` ORDER BY `week`"));
+    }
+
+    @Test
+    public void testDeleteExercise_ShouldDeleteItsHistory() throws Exception {
+        insert(mDatabase, 1, MONDAY, 30000, 0);
+        insert(mDatabase, 2, MONDAY, 10000, 0);
+
+        mDatabase.execute("DELETE FROM `Exercise` WHERE `id` = 1");
+
+        assertEquals(Collections.singletonList("2"), mDatabase.queryStrings("SELECT `exerciseId` FROM `SetLog`"));
+        assertEquals(1, mDatabase.count("DailySetTotal"));
+        assertEquals(1, mDatabase.count("WeeklySetTotal"));
+    }
+}
@@ -0,0 +1,69 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Times the upgrade from version 1 of a database file with a big library, half regular and half
+ * reaction exercises. Each migration is timed on its own and then all of them together, the way
+ * DBFlow runs them.
+ */
+public class MigrationBenchmark {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void benchmarkMigrate_With10kExercises() throws Exception {
+        benchmark(10000);
+    }
+
+    @Test
+    public void benchmarkMigrate_With100kExercises() throws Exception {
+        benchmark(100000);
+    }
+
+    private void benchmark(int exerciseCount) throws Exception {
+        JdbcDatabase database = createVersion1Database(exerciseCount);
+        try {
+            for (BulkMigration migration: MigrationsTest.MIGRATIONS.values()) {
+                long start = System.nanoTime();
+                database.executeInTransaction(migration.getStatements());
+                report(exerciseCount, migration.getClass().getSimpleName(), start);
+            }
+            assertEquals(exerciseCount, database.count("Exercise"));
+            assertEquals(exerciseCount / 2, database.count("RegularExercise"));
+            assertEquals(exerciseCount / 2, database.count("ReactionExercise"));
+        } finally {
+            database.close();
+        }
+
+        database = createVersion1Database(exerciseCount);
+        try {
+            long start = System.nanoTime();
+            MigrationsTest.migrate(database, 1);
+            report(exerciseCount, "all", start);
+        } finally {
+            database.close();
+        }
+    }
+
+    private JdbcDatabase createVersion1Database(int exerciseCount) throws Exception {
+        JdbcDatabase database = JdbcDatabase.open(mFolder.newFile());
+        database.createVersion1Schema();
+        database.insertExercises("regular", exerciseCount / 2, ExerciseType.REGULAR_VALUE);
+        database.insertExercises("reaction", exerciseCount / 2, ExerciseType.REACTION_VALUE);
+        return database;
+    }
+
+    private static void report(int exerciseCount, String migration, long start) {
+        System.out.println(exerciseCount + " exercises, " + migration + ": "
+                + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+}
@@ -0,0 +1,239 @@
+package com.genenakagaki.splitstep.exercise.data.migration;
+
+import com.genenakagaki.splitstep.exercise.data.ExerciseDatabase;
+import com.genenakagaki.splitstep.exercise.data.ExerciseSearch;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.utils.JdbcDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MigrationsTest {
+
+    /** Every upgrade migration by version, add new ones here too. */
+    static final SortedMap<Integer, BulkMigration> MIGRATIONS = new TreeMap<>();
+
+    static {
+        MIGRATIONS.put(UniqueExerciseNameMigration.VERSION, new UniqueExerciseNameMigration());
+        MIGRATIONS.put(ExerciseTypeIndexMigration.VERSION, new ExerciseTypeIndexMigration());
+        MIGRATIONS.put(CascadeDeleteMigration.VERSION, new CascadeDeleteMigration());
+        MIGRATIONS.put(ExerciseSettingsMigration.VERSION, new ExerciseSettingsMigration());
+        MIGRATIONS.put(ExerciseSearchMigration.VERSION, new ExerciseSearchMigration());
+        MIGRATIONS.put(NormalizedNameMigration.VERSION, new NormalizedNameMigration());
+        MIGRATIONS.put(WorkoutHistoryMigration.VERSION, new WorkoutHistoryMigration());
+        MIGRATIONS.put(ReactionTimeCascadeMigration.VERSION, new ReactionTimeCascadeMigration());
+        MIGRATIONS.put(ReactionTimeMillisMigration.VERSION, new ReactionTimeMillisMigration());
+    }
+
+    /** The migrations run when the database is created. */
+    static final List<BulkMigration> CREATE_MIGRATIONS = new ArrayList<>();
+
+    static {
+        CREATE_MIGRATIONS.add(new CreateIndexesMigration());
+    }
+
+    /**
+     * Creates the tables missing and runs the migrations after the version in one transaction, as
+     * DBFlow does on upgrade.
+     */
+    static void migrate(JdbcDatabase database, int oldVersion) throws Exception {
+        database.createSchema();
+        List<String> statements = new ArrayList<>();
+        for (BulkMigration migration: MIGRATIONS.tailMap(oldVersion + 1).values()) {
+            statements.addAll(migration.getStatements());
+        }
+        database.executeInTransaction(statements);
+    }
+
+    private JdbcDatabase mDatabase;
+
+    @Before
+    public void setUp() throws Exception {
+        mDatabase = JdbcDatabase.inMemory();
+        mDatabase.createVersion1Schema();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mDatabase.close();
+    }
+
+    @Test
+    public void testMigrations_ShouldCoverEveryVersionUpToDatabaseVersion() {
+        // version 2 only added a table, which DBFlow creates by itself
+        int version = 2;
+        for (int migrationVersion: MIGRATIONS.keySet()) {
+            assertEquals(++version, migrationVersion);
+        }
+        assertEquals(ExerciseDatabase.VERSION, version);
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldKeepExercises() throws Exception {
+        mDatabase.insertExercises("regular", 10, ExerciseType.REGULAR_VALUE);
+        mDatabase.insertExercises("reaction", 5, ExerciseType.REACTION_VALUE);
+        mDatabase.insertExercises("regular", 1, ExerciseType.REGULAR_VALUE);
+        // left behind by a delete before deletes cascaded
+        mDatabase.execute("INSERT INTO `ReactionExercise` VALUES (1000, 2, 10)");
+
+        migrate(mDatabase, 1);
+
+        assertEquals(16, mDatabase.count("Exercise"));
+        assertEquals(5, mDatabase.count("ReactionExercise"));
+        assertEquals("regular0 (16)", mDatabase.queryString("SELECT `name` FROM `Exercise` WHERE `id` = 16"));
+        assertTrue(mDatabase.hasIndex(NormalizedNameMigration.INDEX_NAME));
+        assertTrue(mDatabase.hasIndex(ExerciseTypeIndexMigration.INDEX_NAME));
+        assertTrue(mDatabase.hasIndex(WorkoutHistoryMigration.INDEX_NAME));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldCascadeDeletes() throws Exception {
+        mDatabase.insertExercises("reaction", 2, ExerciseType.REACTION_VALUE);
+
+        migrate(mDatabase, 1);
+        mDatabase.execute("PRAGMA foreign_keys = ON");
+        mDatabase.execute("DELETE FROM `Exercise` WHERE `id` = 1");
+
+        assertEquals(1, mDatabase.count("ReactionExercise"));
+        assertEquals(2, mDatabase.queryLong("SELECT `id` FROM `ReactionExercise`"));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldMoveSettingsToTypeTables() throws Exception {
+        mDatabase.insertExercises("regular", 2, ExerciseType.REGULAR_VALUE);
+        mDatabase.insertExercises("reaction", 2, ExerciseType.REACTION_VALUE);
+        mDatabase.execute("UPDATE `ReactionExercise` SET `cones` = 4 WHERE `id` = 3");
+        mDatabase.execute("DELETE FROM `ReactionExercise` WHERE `id` = 4");
+
+        migrate(mDatabase, 1);
+
+        assertEquals(2, mDatabase.count("RegularExercise"));
+        assertEquals("notes 1", mDatabase.queryString("SELECT `notes` FROM `RegularExercise` WHERE `id` = 2"));
+        assertEquals(60, mDatabase.queryLong("SELECT `restDuration` FROM `RegularExercise` WHERE `id` = 2"));
+        assertEquals(2, mDatabase.count("ReactionExercise"));
+        assertEquals(4, mDatabase.queryLong("SELECT `cones` FROM `ReactionExercise` WHERE `id` = 3"));
+        assertEquals(3, mDatabase.queryLong("SELECT `sets` FROM `ReactionExercise` WHERE `id` = 3"));
+        // a reaction exercise that lost its row gets one with the defaults
+        assertEquals(2, mDatabase.queryLong("SELECT `cones` FROM `ReactionExercise` WHERE `id` = 4"));
+        assertEquals("notes 1", mDatabase.queryString("SELECT `notes` FROM `ReactionExercise` WHERE `id` = 4"));
+    }
+
+    @Test
+    public void testMigrate_WithForeignKeysOn_ShouldKeepSettings() throws Exception {
+        mDatabase.insertExercises("regular", 2, ExerciseType.REGULAR_VALUE);
+        mDatabase.insertExercises("reaction", 2, ExerciseType.REACTION_VALUE);
+        for (BulkMigration migration: MIGRATIONS.headMap(ExerciseSettingsMigration.VERSION).values()) {
+            mDatabase.executeInTransaction(migration.getStatements());
+        }
+
+        // rebuilding Exercise must not cascade to the tables of the types
+        mDatabase.execute("PRAGMA foreign_keys = ON");
+        migrate(mDatabase, CascadeDeleteMigration.VERSION);
+
+        assertEquals(4, mDatabase.count("Exercise"));
+        assertEquals(2, mDatabase.count("RegularExercise"));
+        assertEquals(2, mDatabase.count("ReactionExercise"));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldNotReuseDeletedIds() throws Exception {
+        mDatabase.insertExercises("regular", 3, ExerciseType.REGULAR_VALUE);
+        mDatabase.execute("DELETE FROM `Exercise` WHERE `id` = 3");
+
+        migrate(mDatabase, 1);
+        mDatabase.execute("INSERT INTO `Exercise`(`type`, `name`) VALUES (1, 'new')");
+
+        assertEquals(4, mDatabase.queryLong("SELECT `id` FROM `Exercise` WHERE `name` = 'new'"));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldIndexNamesAndNotes() throws Exception {
+        mDatabase.insertExercises("regular", 2, ExerciseType.REGULAR_VALUE);
+        mDatabase.insertExercises("reaction", 2, ExerciseType.REACTION_VALUE);
+
+        migrate(mDatabase, 1);
+
+        assertEquals(4, mDatabase.count(ExerciseSearch.TABLE));
+        assertEquals("regular1", mDatabase.queryString("SELECT `name` FROM `ExerciseSearch` WHERE `docid` = 2"));
+        assertEquals("notes 0", mDatabase.queryString("SELECT `notes` FROM `ExerciseSearch` WHERE `docid` = 3"));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldRenameNamesDifferingInCaseOrSpacing() throws Exception {
+        mDatabase.execute("INSERT INTO `Exercise`(`type`, `name`) VALUES (1, 'Lateral Shuffle'),"
+                + " (1, 'lateral  shuffle '), (2, 'LATERAL SHUFFLE'), (1, 'Lateral Hop')");
+
+        migrate(mDatabase, 1);
+
+        assertEquals("lateral shuffle", mDatabase.queryString("SELECT `normalizedName` FROM `Exercise` WHERE `id` = 1"));
+        assertEquals("lateral  shuffle  (2)", mDatabase.queryString("SELECT `name` FROM `Exercise` WHERE `id` = 2"));
+        assertEquals("lateral shuffle (2)", mDatabase.queryString("SELECT `normalizedName` FROM `Exercise` WHERE `id` = 2"));
+        // other types may have the same name
+        assertEquals("LATERAL SHUFFLE", mDatabase.queryString("SELECT `name` FROM `Exercise` WHERE `id` = 3"));
+        assertFalse(mDatabase.hasIndex(UniqueExerciseNameMigration.INDEX_NAME));
+    }
+
+    @Test
+    public void testMigrate_FromVersion1_ShouldCascadeDeletesToReactionTimes() throws Exception {
+        mDatabase.insertExercises("reaction", 2, ExerciseType.REACTION_VALUE);
+        mDatabase.execute("CREATE TABLE `ReactionTime`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `exerciseId` INTEGER, `sessionStart` INTEGER, `setNumber` INTEGER, `cone` INTEGER,"
+                + " `stimulusTime` INTEGER, `responseTime` INTEGER)");
+        // the third exercise was deleted before deletes cascaded
+        mDatabase.execute("INSERT INTO `ReactionTime`(`exerciseId`, `sessionStart`, `setNumber`, `cone`,"
+                + " `stimulusTime`, `responseTime`) VALUES (1, 100, 0, 1, 0, 300), (2, 100, 0, 2, 0, 400),"
+                + " (3, 100, 0, 1, 0, 500)");
+
+        migrate(mDatabase, 1);
+        assertEquals(2, mDatabase.count("ReactionTime"));
+        assertTrue(mDatabase.hasIndex(ReactionTimeCascadeMigration.INDEX_NAME));
+
+        mDatabase.execute("PRAGMA foreign_keys = ON");
+        mDatabase.execute("DELETE FROM `Exercise` WHERE `id` = 1");
+        assertEquals(2, mDatabase.queryLong("SELECT `exerciseId` FROM `ReactionTime`"));
+        mDatabase.execute("INSERT INTO `ReactionTime`(`exerciseId`) VALUES (2)");
+        assertEquals(4, mDatabase.queryLong("SELECT MAX(`id`) FROM `ReactionTime`"));
+    }
+
+    @Test
+    public void testMigrate_FromVersion10_ShouldConvertReactionTimesToMillis() throws Exception {
+        mDatabase.insertExercises("reaction", 1, ExerciseType.REACTION_VALUE);
+        migrate(mDatabase, 1);
+        mDatabase.execute("INSERT INTO `ReactionTime`(`exerciseId`, `sessionStart`, `setNumber`, `cone`,"
+                + " `stimulusTime`, `responseTime`) VALUES (1, 100, 0, 1, 5000000000, 5450000000),"
+                + " (1, 100, 0, 2, 6000000000, -1)");
+
+        migrate(mDatabase, 10);
+
+        assertEquals(5450, mDatabase.queryLong("SELECT `responseTime` FROM `ReactionTime` WHERE `cone` = 1"));
+        assertEquals(6000, mDatabase.queryLong("SELECT `stimulusTime` FROM `ReactionTime` WHERE `cone` = 2"));
+        assertEquals(-1, mDatabase.queryLong("SELECT `responseTime` FROM `ReactionTime` WHERE `cone` = 2"));
+    }
+
+    @Test
+    public void testCreate_ShouldMatchUpgradedSchema() throws Exception {
+        migrate(mDatabase, 1);
+
+        JdbcDatabase created = JdbcDatabase.inMemory();
+        try {
+            created.createSchema();
+            for (BulkMigration migration: CREATE_MIGRATIONS) {
+                created.executeInTransaction(migration.getStatements());
+            }
+
+            assertEquals(mDatabase.describeSchema(), created.describeSchema());
+        } finally {
+            created.close();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConeSequenceGeneratorTest {
+
+    @Test
+    public void testGenerate_WithSameSeed_ShouldReturnSameSequence() {
+        int[] first = new ConeSequenceGenerator(4, 42, 1).generate(100);
+        int[] second = new ConeSequenceGenerator(4, 42, 1).generate(100);
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testGenerate_WithDifferentSeed_ShouldReturnDifferentSequence() {
+        int[] first = new ConeSequenceGenerator(4, 1, 1).generate(100);
+        int[] second = new ConeSequenceGenerator(4, 2, 1).generate(100);
+
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void testGenerate_WithNoImmediateRepeat_ShouldNeverRepeatCone() {
+        for (long seed = 0; seed < 100; seed++) {
+            int[] sequence = new ConeSequenceGenerator(3, seed,
+                    ConeSequenceGenerator.NO_IMMEDIATE_REPEAT).generate(200);
+
+            for (int i = 1; i < sequence.length; i++) {
+                assertTrue(sequence[i] != sequence[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void testGenerate_WithMaxRunLength_ShouldNotExceedRunLength() {
+        for (long seed = 0; seed < 100; seed++) {
+            int[] sequence = new ConeSequenceGenerator(2, seed, 2).generate(200);
+
+            int runLength = 1;
+            for (int i = 1; i < sequence.length; i++) {
+                runLength = sequence[i] == sequence[i - 1] ? runLength + 1 : 1;
+                assertTrue(runLength <= 2);
+            }
+        }
+    }
+
+    @Test
+    public void testGenerate_WithManyCues_ShouldBalanceCones() {
+        int coneCount = 5;
+        int[] counts = new int[coneCount];
+        for (int cone : new ConeSequenceGenerator(coneCount, 7, 1).generate(1000)) {
+            assertTrue(cone >= 1 && cone <= coneCount);
+            counts[cone - 1]++;
+        }
+
+        for (int count : counts) {
+            assertTrue(Math.abs(count - 200) <= 2);
+        }
+    }
+
+    @Test
+    public void testGenerate_WithOneCone_ShouldReturnOnlyThatCone() {
+        int[] sequence = new ConeSequenceGenerator(1, 0, 1).generate(5);
+
+        assertArrayEquals(new int[] {1, 1, 1, 1, 1}, sequence);
+    }
+
+    @Test
+    public void testGenerate_WithZeroLength_ShouldReturnEmptySequence() {
+        assertEquals(0, new ConeSequenceGenerator(3, 0, 1).generate(0).length);
+    }
+}
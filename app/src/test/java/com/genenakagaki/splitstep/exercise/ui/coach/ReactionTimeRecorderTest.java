@@ -0,0 +1,81 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionTime;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReactionTimeRecorderTest {
+
+    @Test
+    public void testRecordResponse_AfterStimulus_ShouldRecordReactionTime() {
+        ReactionTimeRecorder recorder = new ReactionTimeRecorder(4);
+        recorder.recordStimulus(0, 2, 1000);
+
+        assertTrue(recorder.recordResponse(1500));
+
+        List<ReactionTime> reactionTimes = recorder.drain(1, 100);
+        assertEquals(1, reactionTimes.size());
+        assertEquals(2, reactionTimes.get(0).cone);
+        assertEquals(500, reactionTimes.get(0).getReactionMillis());
+    }
+
+    @Test
+    public void testRecordResponse_Twice_ShouldOnlyRecordFirst() {
+        ReactionTimeRecorder recorder = new ReactionTimeRecorder(4);
+        recorder.recordStimulus(0, 1, 1000);
+
+        assertTrue(recorder.recordResponse(1200));
+        assertFalse(recorder.recordResponse(1300));
+        assertEquals(1200, recorder.drain(1, 100).get(0).responseTime);
+    }
+
+    @Test
+    public void testRecordResponse_WithoutStimulus_ShouldReturnFalse() {
+        assertFalse(new ReactionTimeRecorder(4).recordResponse(1000));
+    }
+
+    @Test
+    public void testDrain_WithMissedCone_ShouldHaveNoResponse() {
+        ReactionTimeRecorder recorder = new ReactionTimeRecorder(4);
+        recorder.recordStimulus(0, 1, 1000);
+        recorder.recordStimulus(0, 2, 2000);
+        recorder.recordResponse(2300);
+
+        List<ReactionTime> reactionTimes = recorder.drain(1, 100);
+        assertFalse(reactionTimes.get(0).hasResponse());
+        assertEquals(300, reactionTimes.get(1).getReactionMillis());
+    }
+
+    @Test
+    public void testRecordStimulus_WhenFull_ShouldOverwriteOldest() {
+        ReactionTimeRecorder recorder = new ReactionTimeRecorder(2);
+        recorder.recordStimulus(0, 1, 1000);
+        recorder.recordStimulus(0, 2, 2000);
+        recorder.recordStimulus(0, 3, 3000);
+
+        assertEquals(1, recorder.getDroppedCount());
+        List<ReactionTime> reactionTimes = recorder.drain(1, 100);
+        assertEquals(2, reactionTimes.size());
+        assertEquals(2, reactionTimes.get(0).cone);
+        assertEquals(3, reactionTimes.get(1).cone);
+    }
+
+    @Test
+    public void testDrain_ShouldEmptyRecorder() {
+        ReactionTimeRecorder recorder = new ReactionTimeRecorder(2);
+        recorder.recordStimulus(1, 1, 1000);
+
+        List<ReactionTime> reactionTimes = recorder.drain(7, 100);
+        assertEquals(7, reactionTimes.get(0).exerciseId);
+        assertEquals(100, reactionTimes.get(0).sessionStart);
+        assertEquals(1, reactionTimes.get(0).setNumber);
+        assertEquals(0, recorder.size());
+        assertEquals(0, recorder.drain(7, 100).size());
+    }
+}
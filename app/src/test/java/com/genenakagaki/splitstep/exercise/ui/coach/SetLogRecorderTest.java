@@ -0,0 +1,152 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.SetLog;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Logs the sets of whole workouts run on a virtual clock.
+ */
+public class SetLogRecorderTest {
+
+    private static final long SECOND = 1000;
+    private static final long EXERCISE_ID = 1;
+    private static final long SESSION_START = 100;
+    // 2017-10-16 00:00 UTC
+    private static final long WALL_TIME = 17455 * 24 * 60 * 60 * SECOND;
+
+    private TestScheduler mTestScheduler;
+    private CoachClock mClock;
+    private List<SetLog> mSetLogs;
+
+    @Before
+    public void setUp() throws Exception {
+        mTestScheduler = new TestScheduler();
+        mClock = new CoachClock(new TimeSource() {
+            @Override
+            public long now() {
+                return mTestScheduler.now(TimeUnit.MILLISECONDS);
+            }
+        }, mTestScheduler);
+        mSetLogs = new ArrayList<>();
+    }
+
+    @Test
+    public void testOnPhaseStarted_WithTimedSets_ShouldLogEverySetWithTheRestBeforeIt() {
+        start(compile(ExerciseSubType.TIMED_SETS, 3, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(3 + 3 * 30 + 2 * 90, TimeUnit.SECONDS);
+
+        assertEquals(3, mSetLogs.size());
+        for (int i = 0; i < 3; i++) {
+            SetLog setLog = mSetLogs.get(i);
+            assertEquals(EXERCISE_ID, setLog.exerciseId);
+            assertEquals(SESSION_START, setLog.sessionStart);
+            assertEquals(i, setLog.setNumber);
+            assertEquals(30 * SECOND, setLog.workMillis);
+            assertEquals(i == 0 ? 0 : 90 * SECOND, setLog.restMillis);
+            assertEquals(17455, setLog.day);
+        }
+    }
+
+    @Test
+    public void testOnPhaseStarted_WithSkipsAndPause_ShouldLogTimeSpent() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.REPS, 2, 0, 60, new RegularExercise(1)));
+
+        // count down, then 12s of reps, paused for 20s in the middle
+        mTestScheduler.advanceTimeBy(3 + 5, TimeUnit.SECONDS);
+        scheduler.pause();
+        mTestScheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+        scheduler.resume();
+        mTestScheduler.advanceTimeBy(7, TimeUnit.SECONDS);
+        scheduler.skip();
+        // rest cut short
+        mTestScheduler.advanceTimeBy(45, TimeUnit.SECONDS);
+        scheduler.skip();
+        mTestScheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        scheduler.skip();
+
+        assertEquals(2, mSetLogs.size());
+        assertEquals(12 * SECOND, mSetLogs.get(0).workMillis);
+        assertEquals(0, mSetLogs.get(0).restMillis);
+        assertEquals(10 * SECOND, mSetLogs.get(1).workMillis);
+        assertEquals(45 * SECOND, mSetLogs.get(1).restMillis);
+    }
+
+    @Test
+    public void testOnPhaseStarted_WithReactionCues_ShouldLogEachSetOnce() {
+        start(compile(ExerciseSubType.TIMED_SETS, 2, 30, 60, new ReactionExercise(1, 2, 10)));
+
+        mTestScheduler.advanceTimeBy(3 + 2 * 30 + 60, TimeUnit.SECONDS);
+
+        assertEquals(2, mSetLogs.size());
+        assertEquals(30 * SECOND, mSetLogs.get(1).workMillis);
+        assertEquals(60 * SECOND, mSetLogs.get(1).restMillis);
+    }
+
+    @Test
+    public void testOnPhaseStarted_WhenStartedInTheMiddleOfASet_ShouldNotLogIt() {
+        WorkoutScheduler scheduler = new WorkoutScheduler(mClock,
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 60, new ReactionExercise(1, 2, 10)));
+        record(scheduler);
+        // the second cue of the first set
+        scheduler.seek(2);
+
+        mTestScheduler.advanceTimeBy(20 + 60 + 30, TimeUnit.SECONDS);
+
+        assertEquals(1, mSetLogs.size());
+        assertEquals(1, mSetLogs.get(0).setNumber);
+    }
+
+    private WorkoutScheduler start(WorkoutTimeline timeline) {
+        WorkoutScheduler scheduler = new WorkoutScheduler(mClock, timeline);
+        record(scheduler);
+        scheduler.start();
+        return scheduler;
+    }
+
+    /**
+     * Records the sets as WorkoutService does.
+     */
+    private void record(final WorkoutScheduler scheduler) {
+        final SetLogRecorder recorder = new SetLogRecorder(EXERCISE_ID, SESSION_START, TimeZone.getTimeZone("UTC"));
+        scheduler.getPhaseSubject().subscribe(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer index) throws Exception {
+                SetLog setLog = recorder.onPhaseStarted(scheduler.getTimeline(), index,
+                        scheduler.getPhaseStartTime() - scheduler.getPausedMillis(),
+                        WALL_TIME + mClock.now());
+                if (setLog != null) {
+                    mSetLogs.add(setLog);
+                }
+            }
+        });
+    }
+
+    private static WorkoutTimeline compile(ExerciseSubType subType, int sets, int setDuration,
+                                           int restDuration, ExerciseSettings settings) {
+        Exercise exercise = new Exercise(ExerciseType.REGULAR.getValue(), subType.getValue(), "Exercise");
+        settings.sets = sets;
+        settings.setDuration = setDuration;
+        settings.restDuration = restDuration;
+        return WorkoutTimelineCompiler.compile(exercise, settings);
+    }
+}
@@ -0,0 +1,288 @@
+package com.genenakagaki.splitstep.exercise.ui.coach;
+
+import com.genenakagaki.splitstep.exercise.data.entity.Exercise;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSettings;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseSubType;
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+import com.genenakagaki.splitstep.exercise.data.entity.ReactionExercise;
+import com.genenakagaki.splitstep.exercise.data.entity.RegularExercise;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Consumer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs whole workouts on a virtual clock.
+ */
+public class WorkoutSchedulerTest {
+
+    private static final long SECOND = 1000;
+
+    private TestScheduler mTestScheduler;
+    private CoachClock mClock;
+
+    private List<Integer> mPhases;
+    private List<Long> mStartTimes;
+    private List<Long> mCallbackTimes;
+    private List<Long> mBeepTimes;
+
+    @Before
+    public void setUp() throws Exception {
+        mTestScheduler = new TestScheduler();
+        mClock = new CoachClock(new TimeSource() {
+            @Override
+            public long now() {
+                return mTestScheduler.now(TimeUnit.MILLISECONDS);
+            }
+        }, mTestScheduler);
+
+        mPhases = new ArrayList<>();
+        mStartTimes = new ArrayList<>();
+        mCallbackTimes = new ArrayList<>();
+        mBeepTimes = new ArrayList<>();
+    }
+
+    @Test
+    public void testStart_WithTimedSets_ShouldRunEveryPhaseOnTime() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 10, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(3 + 10 * 30 + 9 * 90, TimeUnit.SECONDS);
+
+        // count down, 10 sets, 9 rests, done
+        assertEquals(21, mPhases.size());
+        assertEquals(WorkoutTimeline.PHASE_COUNT_DOWN, (int) mPhases.get(0));
+        assertEquals(0, (long) mStartTimes.get(0));
+
+        long expected = 3 * SECOND;
+        for (int set = 0; set < 10; set++) {
+            int i = 1 + set * 2;
+            assertPhase(i, WorkoutTimeline.PHASE_SET, expected);
+            expected += 30 * SECOND;
+
+            if (set < 9) {
+                assertPhase(i + 1, WorkoutTimeline.PHASE_REST, expected);
+                expected += 90 * SECOND;
+            }
+        }
+        assertPhase(20, WorkoutTimeline.PHASE_DONE, expected);
+        assertEquals(1113 * SECOND, expected);
+        assertEquals(10, scheduler.getTimeline().getFinishedSets(scheduler.getIndex()));
+    }
+
+    @Test
+    public void testStart_WithReactionExercise_ShouldCueEveryRep() {
+        ReactionExercise reactionExercise = new ReactionExercise(1, 3, 10);
+        start(compile(ExerciseSubType.TIMED_SETS, 2, 25, 60, reactionExercise));
+
+        mTestScheduler.advanceTimeBy(3 + 2 * 25 + 60, TimeUnit.SECONDS);
+
+        // count down, 3 cues, rest, 3 cues, done
+        assertEquals(9, mPhases.size());
+        assertPhase(1, WorkoutTimeline.PHASE_REP_CUE, 3 * SECOND);
+        assertPhase(2, WorkoutTimeline.PHASE_REP_CUE, 13 * SECOND);
+        assertPhase(3, WorkoutTimeline.PHASE_REP_CUE, 23 * SECOND);
+        assertPhase(4, WorkoutTimeline.PHASE_REST, 28 * SECOND);
+        assertPhase(5, WorkoutTimeline.PHASE_REP_CUE, 88 * SECOND);
+        assertPhase(8, WorkoutTimeline.PHASE_DONE, 113 * SECOND);
+    }
+
+    @Test
+    public void testSkip_WithReps_ShouldWaitForAthlete() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.REPS, 2, 0, 60, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(1, TimeUnit.HOURS);
+        assertEquals(2, mPhases.size());
+        assertPhase(1, WorkoutTimeline.PHASE_SET, 3 * SECOND);
+
+        scheduler.skip();
+        long restStart = mClock.now();
+        mTestScheduler.advanceTimeBy(60, TimeUnit.SECONDS);
+
+        assertPhase(2, WorkoutTimeline.PHASE_REST, restStart);
+        assertPhase(3, WorkoutTimeline.PHASE_SET, restStart + 60 * SECOND);
+    }
+
+    @Test
+    public void testGetBoundedDurationFrom_WithReps_ShouldLeaveOutSets() {
+        WorkoutTimeline timeline = compile(ExerciseSubType.REPS, 2, 0, 60, new RegularExercise(1));
+
+        // count down, set, rest, set, done
+        assertEquals(63 * SECOND, timeline.getBoundedDurationFrom(0));
+        assertEquals(60 * SECOND, timeline.getBoundedDurationFrom(2));
+        assertEquals(0, timeline.getBoundedDurationFrom(4));
+    }
+
+    @Test
+    public void testSkip_WhileDeadlineIsFiring_ShouldIgnoreDeadline() {
+        // deadlines that can't be cancelled, as when the task already waits for the scheduler
+        mClock = new CoachClock(new TimeSource() {
+            @Override
+            public long now() {
+                return mTestScheduler.now(TimeUnit.MILLISECONDS);
+            }
+        }, mTestScheduler) {
+            @Override
+            public Disposable schedule(Runnable task, long deadline) {
+                super.schedule(task, deadline);
+                return Disposables.empty();
+            }
+        };
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 60, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(3 + 10, TimeUnit.SECONDS);
+        scheduler.skip();
+        // past the deadline of the skipped set
+        mTestScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+
+        assertEquals(3, mPhases.size());
+        assertPhase(2, WorkoutTimeline.PHASE_REST, 13 * SECOND);
+
+        mTestScheduler.advanceTimeBy(30, TimeUnit.SECONDS);
+        assertPhase(3, WorkoutTimeline.PHASE_SET, 73 * SECOND);
+    }
+
+    @Test
+    public void testPause_DuringRest_ShouldMoveDeadline() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(3 + 30 + 10, TimeUnit.SECONDS);
+        scheduler.pause();
+        assertEquals(80, scheduler.getRemainingSeconds(mClock.now()));
+
+        mTestScheduler.advanceTimeBy(5, TimeUnit.MINUTES);
+        assertEquals(3, mPhases.size());
+        assertEquals(80, scheduler.getRemainingSeconds(mClock.now()));
+
+        scheduler.resume();
+        mTestScheduler.advanceTimeBy(80, TimeUnit.SECONDS);
+
+        assertPhase(3, WorkoutTimeline.PHASE_SET, (3 + 30 + 90 + 5 * 60) * SECOND);
+    }
+
+    @Test
+    public void testGetRemainingSeconds_DuringRest_ShouldCountDownEverySecond() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 5, new RegularExercise(1)));
+        mTestScheduler.advanceTimeBy(3 + 30, TimeUnit.SECONDS);
+
+        TestObserver<Integer> observer = scheduler.getRemainingSeconds().test();
+        mTestScheduler.advanceTimeBy(5 * SECOND - 1, TimeUnit.MILLISECONDS);
+
+        observer.assertValues(5, 4, 3, 2, 1);
+        observer.dispose();
+    }
+
+    @Test
+    public void testGetSpanRemainingMillis_DuringRepCue_ShouldCountDownWholeSet() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 1, 25, 60, new ReactionExercise(1, 3, 10)));
+
+        mTestScheduler.advanceTimeBy(3 + 12, TimeUnit.SECONDS);
+
+        assertEquals(WorkoutTimeline.PHASE_REP_CUE, scheduler.getTimeline().getPhase(scheduler.getIndex()));
+        assertEquals(13 * SECOND, scheduler.getSpanRemainingMillis(mClock.now()));
+    }
+
+    @Test
+    public void testGetSpan_WhilePaused_ShouldStopCountingDown() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(3 + 30 + 10, TimeUnit.SECONDS);
+        scheduler.pause();
+        mTestScheduler.advanceTimeBy(5, TimeUnit.MINUTES);
+
+        assertFalse(scheduler.getSpan().isCountingDown());
+        assertEquals(80 * SECOND, scheduler.getSpanRemainingMillis(mClock.now()));
+
+        scheduler.resume();
+        mTestScheduler.advanceTimeBy(20, TimeUnit.SECONDS);
+
+        assertTrue(scheduler.getSpan().isCountingDown());
+        assertEquals(60 * SECOND, scheduler.getSpanRemainingMillis(mClock.now()));
+    }
+
+    @Test
+    public void testPause_DuringCountDown_ShouldStopBeepsUntilResumed() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(1500, TimeUnit.MILLISECONDS);
+        scheduler.pause();
+        mTestScheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(0L, SECOND), mBeepTimes);
+
+        scheduler.resume();
+        mTestScheduler.advanceTimeBy(1500, TimeUnit.MILLISECONDS);
+
+        // the last beep moved with the phase by the 10 seconds paused
+        assertEquals(Arrays.asList(0L, SECOND, 12 * SECOND), mBeepTimes);
+        assertPhase(1, WorkoutTimeline.PHASE_SET, 13 * SECOND);
+    }
+
+    @Test
+    public void testSkip_DuringCountDown_ShouldStopBeeps() {
+        WorkoutScheduler scheduler = start(
+                compile(ExerciseSubType.TIMED_SETS, 2, 30, 90, new RegularExercise(1)));
+
+        mTestScheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        scheduler.skip();
+        mTestScheduler.advanceTimeBy(10, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(0L), mBeepTimes);
+        assertPhase(1, WorkoutTimeline.PHASE_SET, 500);
+    }
+
+    private WorkoutScheduler start(WorkoutTimeline timeline) {
+        final WorkoutScheduler scheduler = new WorkoutScheduler(mClock, timeline);
+        scheduler.getPhaseSubject().subscribe(new Consumer<Integer>() {
+            @Override
+            public void accept(Integer index) throws Exception {
+                mPhases.add(scheduler.getTimeline().getPhase(index));
+                mStartTimes.add(scheduler.getPhaseStartTime());
+                mCallbackTimes.add(mClock.now());
+            }
+        });
+        scheduler.getCountDownSubject().subscribe(new Consumer<Long>() {
+            @Override
+            public void accept(Long beepTime) throws Exception {
+                mBeepTimes.add(beepTime);
+            }
+        });
+        scheduler.start();
+        return scheduler;
+    }
+
+    private void assertPhase(int i, int phase, long startTime) {
+        assertEquals(phase, (int) mPhases.get(i));
+        assertEquals(startTime, (long) mStartTimes.get(i));
+        assertEquals(startTime, (long) mCallbackTimes.get(i));
+    }
+
+    private static WorkoutTimeline compile(ExerciseSubType subType, int sets, int setDuration,
+                                           int restDuration, ExerciseSettings settings) {
+        Exercise exercise = new Exercise(ExerciseType.REGULAR.getValue(), subType.getValue(), "Exercise");
+        settings.sets = sets;
+        settings.setDuration = setDuration;
+        settings.restDuration = restDuration;
+        return WorkoutTimelineCompiler.compile(exercise, settings);
+    }
+}
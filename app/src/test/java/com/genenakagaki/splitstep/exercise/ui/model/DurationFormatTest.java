@@ -0,0 +1,43 @@
+package com.genenakagaki.splitstep.exercise.ui.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class DurationFormatTest {
+
+    @Test
+    public void testGetTimerDisplay_WithDuration_ShouldPadMinutesAndSeconds() {
+        assertEquals("00 : 00", DurationFormat.getTimerDisplay(0));
+        assertEquals("01 : 05", DurationFormat.getTimerDisplay(65));
+        assertEquals("99 : 59", DurationFormat.getTimerDisplay(DurationFormat.MAX_DURATION));
+    }
+
+    @Test
+    public void testGetTimerDisplay_WithDurationOutOfRange_ShouldClamp() {
+        assertEquals("00 : 00", DurationFormat.getTimerDisplay(-1));
+        assertEquals("99 : 59", DurationFormat.getTimerDisplay(DurationFormat.MAX_DURATION + 1));
+    }
+
+    @Test
+    public void testGetTimerDisplay_CalledTwice_ShouldReturnSameInstance() {
+        assertSame(DurationFormat.getTimerDisplay(90), DurationFormat.getTimerDisplay(90));
+    }
+
+    @Test
+    public void testGetTwoDigitValues_WithCount_ShouldReturnPaddedValues() {
+        String[] values = DurationFormat.getTwoDigitValues(60);
+
+        assertEquals(60, values.length);
+        assertEquals("00", values[0]);
+        assertEquals("07", values[7]);
+        assertEquals("59", values[59]);
+    }
+
+    @Test
+    public void testGetNumber_WithNumber_ShouldNotPad() {
+        assertEquals("3", DurationFormat.getNumber(3));
+        assertEquals("12", DurationFormat.getNumber(12));
+    }
+}
@@ -0,0 +1,213 @@
+package com.genenakagaki.splitstep.exercise.utils;
+
+import com.genenakagaki.splitstep.exercise.data.entity.ExerciseType;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQLite through JDBC, to run the app's SQL on the JVM without a device.
+ *
+ * {@link #createVersion1Schema()} creates the tables as DBFlow created them in the first release,
+ * the starting point of every upgrade. {@link #createSchema()} creates them as DBFlow creates them
+ * now, keep it in step with the entities.
+ */
+public class JdbcDatabase {
+
+    private final Connection connection;
+
+    public static JdbcDatabase inMemory() throws SQLException {
+        return new JdbcDatabase("jdbc:sqlite::memory:");
+    }
+
+    public static JdbcDatabase open(File file) throws SQLException {
+        return new JdbcDatabase("jdbc:sqlite:" + file.getAbsolutePath());
+    }
+
+    private JdbcDatabase(String url) throws SQLException {
+        connection = DriverManager.getConnection(url);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    public void execute(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * Runs the statements in one transaction, as DBFlow runs pending migrations.
+     */
+    public void executeInTransaction(List<String> statements) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            for (String sql: statements) {
+                execute(sql);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    public long queryLong(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        } finally {
+            statement.close();
+        }
+    }
+
+    public String queryString(String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery(sql);
+            return resultSet.next() ? resultSet.getString(1) : null;
+        } finally {
+            statement.close();
+        }
+    }
+
+    public long count(String table) throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM `" + table + "`");
+    }
+
+    public boolean hasIndex(String name) throws SQLException {
+        return queryLong("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = '" + name + "'") > 0;
+    }
+
+    public void createVersion1Schema() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS `Exercise`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `type` INTEGER, `name` TEXT, `subType` INTEGER, `sets` INTEGER, `reps` INTEGER,"
+                + " `setDuration` INTEGER, `restDuration` INTEGER, `favorite` INTEGER, `notes` TEXT)");
+        execute("CREATE TABLE IF NOT EXISTS `ReactionExercise`(`id` INTEGER, `cones` INTEGER,"
+                + " `repDuration` INTEGER, PRIMARY KEY(`id`), FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`)"
+                + " ON UPDATE NO ACTION ON DELETE NO ACTION)");
+        execute("CREATE TABLE IF NOT EXISTS `RegularExercise`(`id` INTEGER, `subType` INTEGER DEFAULT 1,"
+                + " `reps` INTEGER DEFAULT 1, `sets` INTEGER DEFAULT 1, `restDuration` INTEGER DEFAULT 1,"
+                + " PRIMARY KEY(`id`), FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`)"
+                + " ON UPDATE NO ACTION ON DELETE NO ACTION)");
+    }
+
+    /**
+     * Creates the tables missing, as DBFlow does before it runs migrations.
+     */
+    public void createSchema() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS `Exercise`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `type` INTEGER, `name` TEXT, `subType` INTEGER, `favorite` INTEGER, `normalizedName` TEXT)");
+        execute("CREATE TABLE IF NOT EXISTS `ReactionExercise`(`id` INTEGER, `cones` INTEGER,"
+                + " `repDuration` INTEGER, `sets` INTEGER, `reps` INTEGER, `setDuration` INTEGER,"
+                + " `restDuration` INTEGER, `notes` TEXT, PRIMARY KEY(`id`),"
+                + " FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        execute("CREATE TABLE IF NOT EXISTS `RegularExercise`(`id` INTEGER, `sets` INTEGER, `reps` INTEGER,"
+                + " `setDuration` INTEGER, `restDuration` INTEGER, `notes` TEXT, PRIMARY KEY(`id`),"
+                + " FOREIGN KEY(`id`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        execute("CREATE TABLE IF NOT EXISTS `ReactionTime`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `exerciseId` INTEGER, `sessionStart` INTEGER, `setNumber` INTEGER, `cone` INTEGER,"
+                + " `stimulusTime` INTEGER, `responseTime` INTEGER,"
+                + " FOREIGN KEY(`exerciseId`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        execute("CREATE TABLE IF NOT EXISTS `SetLog`(`id` INTEGER PRIMARY KEY AUTOINCREMENT,"
+                + " `exerciseId` INTEGER, `sessionStart` INTEGER, `setNumber` INTEGER, `workMillis` INTEGER,"
+                + " `restMillis` INTEGER, `completedAt` INTEGER, `day` INTEGER,"
+                + " FOREIGN KEY(`exerciseId`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        for (String table: new String[] { "DailySetTotal", "WeeklySetTotal" }) {
+            String key = table.equals("DailySetTotal") ? "day" : "week";
+            execute("CREATE TABLE IF NOT EXISTS `" + table + "`(`exerciseId` INTEGER, `" + key + "` INTEGER,"
+                    + " `sets` INTEGER, `workMillis` INTEGER, `restMillis` INTEGER, PRIMARY KEY(`exerciseId`, `" + key + "`),"
+                    + " FOREIGN KEY(`exerciseId`) REFERENCES `Exercise` (`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+        }
+    }
+
+    /**
+     * Describes each table by its columns, foreign keys and indexes, and names the triggers,
+     * leaving out how the SQL that created them is written.
+     */
+    public String describeSchema() throws SQLException {
+        StringBuilder schema = new StringBuilder();
+        for (String table: queryStrings("SELECT `name` FROM sqlite_master"
+                + " WHERE `type` = 'table' AND `name` NOT LIKE 'sqlite_%' ORDER BY `name`")) {
+            schema.append(table)
+                    .append(queryStrings("SELECT `name` || ' ' || `type` || ' ' || `dflt_value` || ' ' || `pk`"
+                            + " FROM pragma_table_info('" + table + "')"))
+                    .append(queryStrings("SELECT `table` || '.' || `to` || ' ' || `on_delete`"
+                            + " FROM pragma_foreign_key_list('" + table + "')"))
+                    .append(queryStrings("SELECT `name` || ' ' || `unique` FROM pragma_index_list('" + table + "')"
+                            + " WHERE `origin` = 'c' ORDER BY `name`"))
+                    .append('\n');
+        }
+        schema.append(queryStrings("SELECT `name` FROM sqlite_master WHERE `type` = 'trigger' ORDER BY `name`"));
+        return schema.toString();
+    }
+
+    /**
+     * @return the first column of each row
+     */
+    public List<String> queryStrings(String sql, String... args) throws SQLException {
+        List<String> strings = new ArrayList<>();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < args.length; i++) {
+                statement.setString(i + 1, args[i]);
+            }
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                strings.add(resultSet.getString(1));
+            }
+        } finally {
+            statement.close();
+        }
+        return strings;
+    }
+
+    /**
+     * Inserts exercises named prefix + number in one batch, reaction exercises get their
+     * ReactionExercise row too.
+     */
+    public void insertExercises(String prefix, int count, int type) throws SQLException {
+        connection.setAutoCommit(false);
+        PreparedStatement exercise = connection.prepareStatement("INSERT INTO `Exercise`"
+                + "(`type`, `name`, `subType`, `sets`, `reps`, `setDuration`, `restDuration`, `favorite`, `notes`)"
+                + " VALUES (?, ?, 1, 3, 10, 30, 60, 0, ?)");
+        PreparedStatement reactionExercise = connection.prepareStatement(
+                "INSERT INTO `ReactionExercise`(`id`, `cones`, `repDuration`) VALUES (last_insert_rowid(), 2, 10)");
+        try {
+            for (int i = 0; i < count; i++) {
+                exercise.setInt(1, type);
+                exercise.setString(2, prefix + i);
+                exercise.setString(3, "notes " + i);
+                exercise.executeUpdate();
+
+                if (type == ExerciseType.REACTION_VALUE) {
+                    reactionExercise.executeUpdate();
+                }
+            }
+            connection.commit();
+        } finally {
+            exercise.close();
+            reactionExercise.close();
+            connection.setAutoCommit(true);
+        }
+    }
+}